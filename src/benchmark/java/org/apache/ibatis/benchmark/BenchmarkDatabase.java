@@ -0,0 +1,119 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+
+/**
+ * An in-memory HSQLDB database holding blogs, their authors and their posts, shared by the benchmarks.
+ */
+public class BenchmarkDatabase implements AutoCloseable {
+
+  public static final int BLOGS = 100;
+  public static final int POSTS_PER_BLOG = 10;
+  public static final int POSTS = BLOGS * POSTS_PER_BLOG;
+
+  private final PooledDataSource dataSource;
+  private final SqlSessionFactory sqlSessionFactory;
+
+  public BenchmarkDatabase(String name) throws SQLException {
+    dataSource = new PooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:" + name, "sa", "");
+    createTables();
+    Configuration configuration = new Configuration(new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+    // every query goes to the database unless a benchmark is about the cache
+    configuration.setLocalCacheScope(LocalCacheScope.STATEMENT);
+    configuration.addMapper(BenchmarkMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  public SqlSessionFactory getSqlSessionFactory() {
+    return sqlSessionFactory;
+  }
+
+  public PooledDataSource getDataSource() {
+    return dataSource;
+  }
+
+  public Configuration getConfiguration() {
+    return sqlSessionFactory.getConfiguration();
+  }
+
+  private void createTables() throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("drop table post if exists");
+        statement.execute("drop table blog if exists");
+        statement.execute("drop table author if exists");
+        statement.execute("create table author (id int primary key, username varchar(32), email varchar(64))");
+        statement.execute("create table blog (id int primary key, title varchar(64), author_id int)");
+        statement.execute("create table post (id int primary key, blog_id int, created_on timestamp,"
+            + " subject varchar(64), body varchar(256))");
+      }
+      try (PreparedStatement author = connection.prepareStatement("insert into author values (?, ?, ?)");
+          PreparedStatement blog = connection.prepareStatement("insert into blog values (?, ?, ?)");
+          PreparedStatement post = connection.prepareStatement("insert into post values (?, ?, ?, ?, ?)")) {
+        long now = System.currentTimeMillis();
+        for (int i = 1; i <= BLOGS; i++) {
+          author.setInt(1, i);
+          author.setString(2, "author" + i);
+          author.setString(3, "author" + i + "@example.com");
+          author.addBatch();
+          blog.setInt(1, i);
+          blog.setString(2, "Blog " + i);
+          blog.setInt(3, i);
+          blog.addBatch();
+          for (int j = 1; j <= POSTS_PER_BLOG; j++) {
+            int id = (i - 1) * POSTS_PER_BLOG + j;
+            post.setInt(1, id);
+            post.setInt(2, i);
+            post.setTimestamp(3, new Timestamp(now - id * 60_000L));
+            post.setString(4, "Post " + id);
+            post.setString(5, "The body of post " + id + " of blog " + i);
+            post.addBatch();
+          }
+        }
+        author.executeBatch();
+        blog.executeBatch();
+        post.executeBatch();
+      }
+      if (!connection.getAutoCommit()) {
+        connection.commit();
+      }
+    }
+  }
+
+  @Override
+  public void close() throws SQLException {
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+      statement.execute("shutdown");
+    } finally {
+      dataSource.forceCloseAll();
+    }
+  }
+
+}
@@ -0,0 +1,125 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.impl.TinyLfuCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds, hashes and compares {@link CacheKey}s the way {@code BaseExecutor.createCacheKey} does, and reads them from
+ * a second level cache assembled by {@link CacheBuilder} with its standard decorators.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+
+  private static final int KEYS = 1024;
+  private static final String STATEMENT_ID = "org.apache.ibatis.benchmark.BenchmarkMapper.findPosts";
+  private static final String SQL = "select id, blog_id, created_on, subject, body from post WHERE subject like ? and blog_id in (?, ?, ?)";
+
+  @Param({ "LRU", "TINYLFU" })
+  public String eviction;
+
+  private Cache cache;
+  private CacheKey[] keys;
+  private CacheKey[] copies;
+
+  @State(Scope.Thread)
+  public static class KeyIndex {
+    private int next;
+
+    int next() {
+      return next++ & (KEYS - 1);
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    CacheBuilder builder = new CacheBuilder("benchmark").size(KEYS * 2);
+    if ("TINYLFU".equals(eviction)) {
+      builder.implementation(TinyLfuCache.class);
+    } else {
+      builder.implementation(PerpetualCache.class).addDecorator(LruCache.class);
+    }
+    cache = builder.build();
+    keys = new CacheKey[KEYS];
+    copies = new CacheKey[KEYS];
+    for (int i = 0; i < KEYS; i++) {
+      keys[i] = newCacheKey(i);
+      copies[i] = newCacheKey(i);
+      cache.putObject(keys[i], "result " + i);
+    }
+  }
+
+  private static CacheKey newCacheKey(int id) {
+    CacheKey cacheKey = new CacheKey();
+    cacheKey.update(STATEMENT_ID);
+    cacheKey.update(0);
+    cacheKey.update(Integer.MAX_VALUE);
+    cacheKey.update(SQL);
+    cacheKey.update("Post%");
+    cacheKey.update(id);
+    cacheKey.update(id + 1);
+    cacheKey.update(id + 2);
+    cacheKey.update("benchmark");
+    return cacheKey;
+  }
+
+  @Benchmark
+  public int createCacheKey(KeyIndex index) {
+    return newCacheKey(index.next()).hashCode();
+  }
+
+  @Benchmark
+  public boolean cacheKeyEquals(KeyIndex index) {
+    int i = index.next();
+    return keys[i].equals(copies[i]);
+  }
+
+  @Benchmark
+  public Object cacheHit(KeyIndex index) {
+    return cache.getObject(copies[index.next()]);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Object cacheHitContended(KeyIndex index) {
+    return cache.getObject(copies[index.next()]);
+  }
+
+}
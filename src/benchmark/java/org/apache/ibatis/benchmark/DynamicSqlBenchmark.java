@@ -0,0 +1,83 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Renders a statement with {@code <where>}, {@code <if>}, {@code <choose>} and {@code <foreach>} through
+ * {@code DynamicSqlSource.getBoundSql}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DynamicSqlBenchmark {
+
+  @Param({ "1", "10", "100" })
+  public int inListSize;
+
+  private BenchmarkDatabase database;
+  private MappedStatement findPosts;
+  private Map<String, Object> criteria;
+
+  @Setup
+  public void setUp() throws Exception {
+    database = new BenchmarkDatabase("dynamic_sql");
+    findPosts = database.getConfiguration().getMappedStatement("org.apache.ibatis.benchmark.BenchmarkMapper.findPosts");
+    List<Integer> blogIds = new ArrayList<>();
+    for (int i = 1; i <= inListSize; i++) {
+      blogIds.add(i);
+    }
+    criteria = new HashMap<>();
+    criteria.put("subject", "Post%");
+    criteria.put("blogIds", blogIds);
+    criteria.put("since", new Date(0));
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    database.close();
+  }
+
+  @Benchmark
+  public BoundSql getBoundSql() {
+    return findPosts.getBoundSql(criteria);
+  }
+
+}
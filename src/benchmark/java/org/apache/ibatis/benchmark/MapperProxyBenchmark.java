@@ -0,0 +1,76 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A mapper call answered by the session cache, so that the time is spent in {@code MapperProxy.invoke}, the executor
+ * and the cache key rather than in the database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperProxyBenchmark {
+
+  private BenchmarkDatabase database;
+  private SqlSession sqlSession;
+  private BenchmarkMapper mapper;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    database = new BenchmarkDatabase("mapper_proxy");
+    database.getConfiguration().setLocalCacheScope(LocalCacheScope.SESSION);
+    sqlSession = database.getSqlSessionFactory().openSession();
+    mapper = sqlSession.getMapper(BenchmarkMapper.class);
+    mapper.selectAuthor(1);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    sqlSession.close();
+    database.close();
+  }
+
+  @Benchmark
+  public Author invokeMapper() {
+    return mapper.selectAuthor(1);
+  }
+
+  @Benchmark
+  public Author getMapperAndInvoke() {
+    return sqlSession.getMapper(BenchmarkMapper.class).selectAuthor(1);
+  }
+
+}
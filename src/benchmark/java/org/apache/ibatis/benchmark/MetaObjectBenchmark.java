@@ -0,0 +1,87 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Property access through {@link MetaObject}, as done for every parameter and every mapped column.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetaObjectBenchmark {
+
+  private Configuration configuration;
+  private Blog blog;
+  private Map<String, Object> map;
+
+  @Setup
+  public void setUp() {
+    configuration = new Configuration();
+    Author author = new Author();
+    author.setId(1);
+    author.setUsername("author1");
+    blog = new Blog();
+    blog.setId(1);
+    blog.setTitle("Blog 1");
+    blog.setAuthor(author);
+    map = new HashMap<>();
+    map.put("blog", blog);
+  }
+
+  @Benchmark
+  public Object getProperty() {
+    return configuration.newMetaObject(blog).getValue("title");
+  }
+
+  @Benchmark
+  public Object getNestedProperty() {
+    return configuration.newMetaObject(blog).getValue("author.username");
+  }
+
+  @Benchmark
+  public Object getPropertyThroughMap() {
+    return configuration.newMetaObject(map).getValue("blog.author.username");
+  }
+
+  @Benchmark
+  public Blog setProperty() {
+    MetaObject metaObject = configuration.newMetaObject(blog);
+    metaObject.setValue("id", 2);
+    metaObject.setValue("title", "Blog 2");
+    return blog;
+  }
+
+}
@@ -0,0 +1,173 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.datasource.pooled.PoolMode;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 10,000 concurrent mapper calls, each in its own {@link SqlSession}, through a pool of 8 connections.
+ * <p>
+ * Each call runs on its own virtual thread when the JVM has them (Java 21 and later), and on 256 platform threads
+ * otherwise. The fork is started with {@code -Djdk.tracePinnedThreads=short}, so the JVM reports every virtual thread
+ * that blocks while pinned to its carrier thread, for example inside a {@code synchronized} block. The benchmark fails
+ * if any is reported.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+public class VirtualThreadBenchmark {
+
+  public static final int CALLS = 10_000;
+
+  @Param({ "SYNCHRONIZED", "CONCURRENT" })
+  public PoolMode poolMode;
+
+  private BenchmarkDatabase database;
+  private SqlSessionFactory sqlSessionFactory;
+  private ExecutorService executor;
+  private PrintStream originalOut;
+  private PinnedThreadCounter pinnedThreads;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    database = new BenchmarkDatabase("virtual_thread");
+    PooledDataSource dataSource = database.getDataSource();
+    dataSource.setPoolMode(poolMode);
+    dataSource.setPoolMaximumActiveConnections(8);
+    dataSource.setPoolMaximumIdleConnections(8);
+    sqlSessionFactory = database.getSqlSessionFactory();
+    executor = newExecutor();
+    // the JVM prints pinned virtual threads to System.out
+    originalOut = System.out;
+    pinnedThreads = new PinnedThreadCounter(originalOut);
+    System.setOut(new PrintStream(pinnedThreads, true));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    System.setOut(originalOut);
+    executor.shutdownNow();
+    database.close();
+    if (pinnedThreads.getCount() > 0) {
+      throw new IllegalStateException(pinnedThreads.getCount() + " frames held a monitor while a virtual thread was pinned");
+    }
+  }
+
+  @Benchmark
+  public int selectInOwnSession() throws Exception {
+    List<Future<Author>> futures = new ArrayList<>(CALLS);
+    for (int i = 0; i < CALLS; i++) {
+      int id = i % BenchmarkDatabase.BLOGS + 1;
+      futures.add(executor.submit(() -> {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+          return sqlSession.getMapper(BenchmarkMapper.class).selectAuthor(id);
+        }
+      }));
+    }
+    int found = 0;
+    for (Future<Author> future : futures) {
+      if (future.get() != null) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+  private static ExecutorService newExecutor() {
+    try {
+      // Java 21 and later
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newFixedThreadPool(256);
+    }
+  }
+
+  /**
+   * Counts the frames marked as holding a monitor in the stack traces printed by {@code -Djdk.tracePinnedThreads}.
+   */
+  private static class PinnedThreadCounter extends FilterOutputStream {
+
+    private static final String MARKER = "<== monitors";
+
+    private final AtomicInteger count = new AtomicInteger();
+    private final StringBuilder line = new StringBuilder();
+
+    PinnedThreadCounter(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+      out.write(b);
+      scan(b);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      for (int i = off; i < off + len; i++) {
+        scan(b[i]);
+      }
+    }
+
+    private void scan(int b) {
+      if (b != '\n') {
+        line.append((char) b);
+        return;
+      }
+      if (line.indexOf(MARKER) >= 0) {
+        count.incrementAndGet();
+      }
+      line.setLength(0);
+    }
+
+    int getCount() {
+      return count.get();
+    }
+  }
+
+}
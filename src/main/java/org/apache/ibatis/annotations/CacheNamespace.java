@@ -22,8 +22,12 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.cache.CacheWeigher;
+import org.apache.ibatis.cache.ResultSizeEstimator;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.serializer.JavaCacheSerializer;
 
 /**
  * The annotation that specify to use cache on namespace(e.g. mapper interface).
@@ -78,6 +82,31 @@ public @interface CacheNamespace {
    */
   int size() default 1024;
 
+  /**
+   * Returns the maximum estimated size of all cached results in bytes. Takes precedence over {@link #size()} when
+   * positive; supported by the {@link LruCache} eviction and the {@code TinyLfuCache} implementation.
+   *
+   * @return the maximum size in bytes, or 0 to bound the cache by {@link #size()}
+   * @since 3.5.6
+   */
+  long maxBytes() default 0;
+
+  /**
+   * Returns the weigher used to estimate the size of an entry when {@link #maxBytes()} is set.
+   *
+   * @return the weigher type
+   * @since 3.5.6
+   */
+  Class<? extends CacheWeigher> weigher() default ResultSizeEstimator.class;
+
+  /**
+   * Returns the serializer making the copies handed out by a read/write cache.
+   *
+   * @return the serializer type
+   * @since 3.5.6
+   */
+  Class<? extends CacheSerializer> serializer() default JavaCacheSerializer.class;
+
   /**
    * Returns whether use read/write cache.
    *
@@ -138,6 +138,25 @@ public @interface Options {
    */
   String resultSets() default "";
 
+  /**
+   * Returns whether the batches of this statement may be executed concurrently with the other batches of the session.
+   *
+   * @return {@code true} if the batches of this statement are independent of the other batches
+   * @see org.apache.ibatis.session.Configuration#getBatchFlushParallelism()
+   * @since 3.5.6
+   */
+  boolean parallelFlush() default false;
+
+  /**
+   * Returns whether the rows of this statement may join the pending batch of the same SQL when other statements were
+   * batched in between.
+   *
+   * @return {@code true} if the rows of this statement may be moved ahead of the statements batched after its first row
+   * @see org.apache.ibatis.session.Configuration#isBatchGroupBySql()
+   * @since 3.5.6
+   */
+  boolean groupBySql() default false;
+
   /**
    * @return A database id that correspond this options
    * @since 3.5.5
@@ -27,6 +27,7 @@ import java.util.Optional;
 import org.apache.ibatis.annotations.Flush;
 import org.apache.ibatis.annotations.MapKey;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.Flow;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
@@ -83,6 +84,8 @@ public class MapperMethod {
           result = executeForMap(sqlSession, args);
         } else if (method.returnsCursor()) {
           result = executeForCursor(sqlSession, args);
+        } else if (method.returnsPublisher()) {
+          result = executeForPublisher(sqlSession, args);
         } else {
           Object param = method.convertArgsToSqlCommandParam(args);
           result = sqlSession.selectOne(command.getName(), param);
@@ -170,6 +173,18 @@ public class MapperMethod {
     return result;
   }
 
+  private <T> Flow.Publisher<T> executeForPublisher(SqlSession sqlSession, Object[] args) {
+    Flow.Publisher<T> result;
+    Object param = method.convertArgsToSqlCommandParam(args);
+    if (method.hasRowBounds()) {
+      RowBounds rowBounds = method.extractRowBounds(args);
+      result = sqlSession.selectPublisher(command.getName(), param, rowBounds);
+    } else {
+      result = sqlSession.selectPublisher(command.getName(), param);
+    }
+    return result;
+  }
+
   private <E> Object convertToDeclaredCollection(Configuration config, List<E> list) {
     Object collection = config.getObjectFactory().create(method.getReturnType());
     MetaObject metaObject = config.newMetaObject(collection);
@@ -299,6 +314,7 @@ public class MapperMethod {
     private final boolean returnsMap; /* 返回值是Map */
     private final boolean returnsVoid; /* 返回值是void */
     private final boolean returnsCursor; /* 返回sql游标 */
+    private final boolean returnsPublisher;
     private final boolean returnsOptional; /* 返回Optional */
     private final Class<?> returnType; /* 返回值类型 */
     private final String mapKey;
@@ -318,6 +334,7 @@ public class MapperMethod {
       this.returnsVoid = void.class.equals(this.returnType);
       this.returnsMany = configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray();
       this.returnsCursor = Cursor.class.equals(this.returnType);
+      this.returnsPublisher = Flow.Publisher.class.equals(this.returnType);
       this.returnsOptional = Optional.class.equals(this.returnType);
       this.mapKey = getMapKey(method);
       this.returnsMap = this.mapKey != null;
@@ -366,6 +383,16 @@ public class MapperMethod {
       return returnsCursor;
     }
 
+    /**
+     * Return whether return type is {@link Flow.Publisher}.
+     *
+     * @return return {@code true}, if return type is {@link Flow.Publisher}
+     * @since 3.5.6
+     */
+    public boolean returnsPublisher() {
+      return returnsPublisher;
+    }
+
     /**
      * return whether return type is {@code java.util.Optional}.
      *
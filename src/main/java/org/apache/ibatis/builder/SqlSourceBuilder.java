@@ -21,6 +21,7 @@ import java.util.Map;
 import java.util.StringTokenizer;
 
 import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.parsing.GenericTokenParser;
 import org.apache.ibatis.parsing.TokenHandler;
@@ -35,7 +36,7 @@ import org.apache.ibatis.type.JdbcType;
  */
 public class SqlSourceBuilder extends BaseBuilder {
 
-  private static final String PARAMETER_PROPERTIES = "javaType,jdbcType,mode,numericScale,resultMap,typeHandler,jdbcTypeName";
+  private static final String PARAMETER_PROPERTIES = "javaType,jdbcType,mode,numericScale,resultMap,typeHandler,jdbcTypeName,expand";
 
   public SqlSourceBuilder(Configuration configuration) {
     super(configuration);
@@ -85,8 +86,16 @@ public class SqlSourceBuilder extends BaseBuilder {
 
     @Override
     public String handleToken(String content) {
-      parameterMappings.add(buildParameterMapping(content));
-      return "?";
+      ParameterMapping parameterMapping = buildParameterMapping(content);
+      parameterMappings.add(parameterMapping);
+      if (parameterMapping.getExpandedItems() == null) {
+        return "?";
+      }
+      StringBuilder placeholders = new StringBuilder("?");
+      for (int i = 1; i < parameterMapping.getExpandedItems(); i++) {
+        placeholders.append(", ?");
+      }
+      return placeholders.toString();
     }
 
     private ParameterMapping buildParameterMapping(String content) {
@@ -109,6 +118,14 @@ public class SqlSourceBuilder extends BaseBuilder {
           propertyType = Object.class;
         }
       }
+      String expand = propertiesMap.get("expand");
+      if (expand != null) {
+        // the items of an array are set one by one
+        if (!propertyType.isArray() || propertyType.getComponentType().isPrimitive()) {
+          throw new BuilderException("Only an array of objects can be expanded in mapping #{" + content + "}.");
+        }
+        propertyType = propertyType.getComponentType();
+      }
       ParameterMapping.Builder builder = new ParameterMapping.Builder(configuration, property, propertyType);
       Class<?> javaType = propertyType;
       String typeHandlerAlias = null;
@@ -130,6 +147,8 @@ public class SqlSourceBuilder extends BaseBuilder {
           typeHandlerAlias = value;
         } else if ("jdbcTypeName".equals(name)) {
           builder.jdbcTypeName(value);
+        } else if ("expand".equals(name)) {
+          builder.expandedItems(Integer.valueOf(value));
         } else if ("property".equals(name)) {
           // Do Nothing
         } else if ("expression".equals(name)) {
@@ -141,7 +160,11 @@ public class SqlSourceBuilder extends BaseBuilder {
       if (typeHandlerAlias != null) {
         builder.typeHandler(resolveTypeHandler(javaType, typeHandlerAlias));
       }
-      return builder.build();
+      ParameterMapping parameterMapping = builder.build();
+      if (expand != null && parameterMapping.getMode() != ParameterMode.IN) {
+        throw new BuilderException("An expanded parameter must be an IN parameter in mapping #{" + content + "}.");
+      }
+      return parameterMapping;
     }
 
     private Map<String, String> parseParameterMapping(String content) {
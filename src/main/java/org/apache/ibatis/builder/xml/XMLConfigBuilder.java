@@ -39,6 +39,7 @@ import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
+import org.apache.ibatis.scripting.xmltags.SubstitutionFilter;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.AutoMappingUnknownColumnBehavior;
 import org.apache.ibatis.session.Configuration;
@@ -269,6 +270,18 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setLogPrefix(props.getProperty("logPrefix"));
     configuration.setConfigurationFactory(resolveClass(props.getProperty("configurationFactory")));
     configuration.setShrinkWhitespacesInSql(booleanValueOf(props.getProperty("shrinkWhitespacesInSql"), false));
+    configuration.setUseCompiledRowMappers(booleanValueOf(props.getProperty("useCompiledRowMappers"), false));
+    configuration.setUseLambdaInvokers(booleanValueOf(props.getProperty("useLambdaInvokers"), false));
+    configuration.setCacheKeySqlFingerprint(booleanValueOf(props.getProperty("cacheKeySqlFingerprint"), false));
+    configuration.setInferResultOrdered(booleanValueOf(props.getProperty("inferResultOrdered"), false));
+    configuration.setNestedSelectBatchSize(integerValueOf(props.getProperty("nestedSelectBatchSize"), null));
+    configuration.setDynamicSqlCacheSize(integerValueOf(props.getProperty("dynamicSqlCacheSize"), null));
+    configuration.setUseCompiledExpressions(booleanValueOf(props.getProperty("useCompiledExpressions"), false));
+    configuration.setSubstitutionFilter((SubstitutionFilter) createInstance(props.getProperty("substitutionFilter")));
+    configuration.setBatchGroupBySql(booleanValueOf(props.getProperty("batchGroupBySql"), false));
+    configuration.setBatchFlushRows(integerValueOf(props.getProperty("batchFlushRows"), null));
+    configuration.setBatchFlushBytes(longValueOf(props.getProperty("batchFlushBytes"), null));
+    configuration.setBatchFlushParallelism(integerValueOf(props.getProperty("batchFlushParallelism"), null));
     configuration.setDefaultSqlProviderType(resolveClass(props.getProperty("defaultSqlProviderType")));
   }
 
@@ -34,6 +34,8 @@ import org.apache.ibatis.builder.IncompleteElementException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.cache.CacheWeigher;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.Discriminator;
@@ -207,10 +209,15 @@ public class XMLMapperBuilder extends BaseBuilder {
       Class<? extends Cache> evictionClass = typeAliasRegistry.resolveAlias(eviction);
       Long flushInterval = context.getLongAttribute("flushInterval");
       Integer size = context.getIntAttribute("size");
+      Long maxBytes = context.getLongAttribute("maxBytes");
+      String weigher = context.getStringAttribute("weigher");
+      Class<? extends CacheWeigher> weigherClass = weigher == null ? null : typeAliasRegistry.resolveAlias(weigher);
+      String serializer = context.getStringAttribute("serializer");
+      Class<? extends CacheSerializer> serializerClass = serializer == null ? null : typeAliasRegistry.resolveAlias(serializer);
       boolean readWrite = !context.getBooleanAttribute("readOnly", false);
       boolean blocking = context.getBooleanAttribute("blocking", false);
       Properties props = context.getChildrenAsProperties();
-      builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props);
+      builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, maxBytes, weigherClass, serializerClass, readWrite, blocking, props);
     }
   }
 
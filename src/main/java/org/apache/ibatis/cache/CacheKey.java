@@ -15,8 +15,13 @@
  */
 package org.apache.ibatis.cache;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.StringJoiner;
 
@@ -29,6 +34,16 @@ public class CacheKey implements Cloneable, Serializable {
 
   private static final long serialVersionUID = 1146682552656046210L;
 
+  /**
+   * The components are written as a list, as they were before they were kept in an array.
+   */
+  private static final ObjectStreamField[] serialPersistentFields = {
+      new ObjectStreamField("multiplier", int.class),
+      new ObjectStreamField("hashcode", int.class),
+      new ObjectStreamField("checksum", long.class),
+      new ObjectStreamField("count", int.class),
+      new ObjectStreamField("updateList", List.class) };
+
   public static final CacheKey NULL_CACHE_KEY = new CacheKey() {
 
     @Override
@@ -40,45 +55,61 @@ public class CacheKey implements Cloneable, Serializable {
     public void updateAll(Object[] objects) {
       throw new CacheException("Not allowed to update a null cache key instance.");
     }
+
+    @Override
+    public void reset() {
+      throw new CacheException("Not allowed to update a null cache key instance.");
+    }
   };
 
   private static final int DEFAULT_MULTIPLIER = 37;
   private static final int DEFAULT_HASHCODE = 17;
+  private static final int DEFAULT_CAPACITY = 8;
+  private static final Object[] EMPTY_UPDATES = {};
 
-  private final int multiplier;
   private int hashcode;
   private long checksum;
   private int count;
-  // 8/21/2017 - Sonarlint flags this as needing to be marked transient. While true if content is not serializable, this
-  // is not always true and thus should not be marked transient.
-  private List<Object> updateList;
+  private Object[] updates;
 
   public CacheKey() {
     this.hashcode = DEFAULT_HASHCODE;
-    this.multiplier = DEFAULT_MULTIPLIER;
     this.count = 0;
-    this.updateList = new ArrayList<>();
+    this.updates = EMPTY_UPDATES;
   }
 
-  public CacheKey(Object[] objects) {
+  /**
+   * Creates a key sized for a number of updates, so that building it allocates a single array.
+   *
+   * @param expectedUpdates
+   *          the expected number of updates
+   * @since 3.5.6
+   */
+  public CacheKey(int expectedUpdates) {
     this();
+    this.updates = expectedUpdates > 0 ? new Object[expectedUpdates] : EMPTY_UPDATES;
+  }
+
+  public CacheKey(Object[] objects) {
+    this(objects.length);
     updateAll(objects);
   }
 
   public int getUpdateCount() {
-    return updateList.size();
+    return count;
   }
 
   public void update(Object object) {
     int baseHashCode = object == null ? 1 : ArrayUtil.hashCode(object);
 
-    count++;
+    if (count == updates.length) {
+      updates = Arrays.copyOf(updates, Math.max(DEFAULT_CAPACITY, count * 2));
+    }
+    updates[count++] = object;
     checksum += baseHashCode;
     baseHashCode *= count;
 
-    hashcode = multiplier * hashcode + baseHashCode;
-
-    updateList.add(object);
+    hashcode = DEFAULT_MULTIPLIER * hashcode + baseHashCode;
   }
 
   public void updateAll(Object[] objects) {
@@ -87,6 +118,19 @@ public class CacheKey implements Cloneable, Serializable {
     }
   }
 
+  /**
+   * Removes all updates, so that the key can be reused to look up other keys without allocating them. A key must not
+   * be reset while it is stored in a map or a cache.
+   *
+   * @since 3.5.6
+   */
+  public void reset() {
+    Arrays.fill(updates, 0, count, null);
+    hashcode = DEFAULT_HASHCODE;
+    checksum = 0;
+    count = 0;
+  }
+
   @Override
   public boolean equals(Object object) {
     if (this == object) {
@@ -108,10 +152,11 @@ public class CacheKey implements Cloneable, Serializable {
       return false;
     }
 
-    for (int i = 0; i < updateList.size(); i++) {
-      Object thisObject = updateList.get(i);
-      Object thatObject = cacheKey.updateList.get(i);
-      if (!ArrayUtil.equals(thisObject, thatObject)) {
+    final Object[] thoseUpdates = cacheKey.updates;
+    for (int i = 0; i < count; i++) {
+      Object thisObject = updates[i];
+      Object thatObject = thoseUpdates[i];
+      if (thisObject != thatObject && !ArrayUtil.equals(thisObject, thatObject)) {
         return false;
       }
     }
@@ -128,15 +173,37 @@ public class CacheKey implements Cloneable, Serializable {
     StringJoiner returnValue = new StringJoiner(":");
     returnValue.add(String.valueOf(hashcode));
     returnValue.add(String.valueOf(checksum));
-    updateList.stream().map(ArrayUtil::toString).forEach(returnValue::add);
+    for (int i = 0; i < count; i++) {
+      returnValue.add(ArrayUtil.toString(updates[i]));
+    }
     return returnValue.toString();
   }
 
   @Override
   public CacheKey clone() throws CloneNotSupportedException {
     CacheKey clonedCacheKey = (CacheKey) super.clone();
-    clonedCacheKey.updateList = new ArrayList<>(updateList);
+    // leaves room for one more update, a cloned row key is combined with the key of its parent
+    clonedCacheKey.updates = Arrays.copyOf(updates, count + 1);
     return clonedCacheKey;
   }
 
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    ObjectOutputStream.PutField fields = out.putFields();
+    fields.put("multiplier", DEFAULT_MULTIPLIER);
+    fields.put("hashcode", hashcode);
+    fields.put("checksum", checksum);
+    fields.put("count", count);
+    fields.put("updateList", new ArrayList<>(Arrays.asList(updates).subList(0, count)));
+    out.writeFields();
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    ObjectInputStream.GetField fields = in.readFields();
+    hashcode = fields.get("hashcode", DEFAULT_HASHCODE);
+    checksum = fields.get("checksum", 0L);
+    List<?> updateList = (List<?>) fields.get("updateList", null);
+    updates = updateList == null ? EMPTY_UPDATES : updateList.toArray();
+    count = updates.length;
+  }
+
 }
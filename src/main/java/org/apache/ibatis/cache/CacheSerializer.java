@@ -0,0 +1,52 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Converts cached objects to bytes and back, used by read/write caches to hand out copies and by caches that store
+ * their entries outside of the heap.
+ * <p>
+ * Implementations must have a no-argument constructor and be thread-safe.
+ *
+ * @since 3.5.6
+ * @see org.apache.ibatis.cache.serializer.JavaCacheSerializer
+ * @see org.apache.ibatis.cache.serializer.SchemaCacheSerializer
+ */
+public interface CacheSerializer {
+
+  /**
+   * Serializes an object.
+   *
+   * @param object
+   *          The object to serialize, may be null
+   * @return The serialized form
+   * @throws CacheException
+   *           if the object cannot be serialized
+   */
+  byte[] serialize(Object object);
+
+  /**
+   * Creates a copy of a serialized object.
+   *
+   * @param bytes
+   *          The bytes returned by {@link #serialize(Object)}
+   * @return The copy, may be null
+   * @throws CacheException
+   *           if the bytes cannot be read
+   */
+  Object deserialize(byte[] bytes);
+
+}
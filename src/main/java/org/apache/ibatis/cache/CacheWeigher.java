@@ -0,0 +1,40 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Calculates the weight of a cache entry, used by caches that are bounded by {@code maxBytes}.
+ * <p>
+ * The weight of an entry is computed once when it is put into the cache. Implementations must have a no-argument
+ * constructor and be thread-safe.
+ *
+ * @since 3.5.6
+ * @see ResultSizeEstimator
+ */
+public interface CacheWeigher {
+
+  /**
+   * Returns the weight of an entry in bytes.
+   *
+   * @param key
+   *          Usually a {@link CacheKey}
+   * @param value
+   *          The result of a select, or its serialized form for a read/write cache
+   * @return The weight, must not be negative
+   */
+  long weigh(Object key, Object value);
+
+}
@@ -0,0 +1,93 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A 256-bit fingerprint of a string, used in place of a long SQL statement in a {@link CacheKey}.
+ * <p>
+ * The fingerprint is the SHA-256 digest of the UTF-8 encoding of the string. Comparing two fingerprints costs four long
+ * comparisons however long the statement is. As no way to find two strings with the same SHA-256 digest is known, two
+ * different statements do not share a fingerprint even when callers choose part of the SQL, as text substituted with
+ * <code>${}</code> lets them. A non-cryptographic hash would not give that guarantee.
+ *
+ * @since 3.5.6
+ */
+public final class Fingerprint implements Serializable {
+
+  private static final long serialVersionUID = 4301957032858713186L;
+
+  private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform implements SHA-256
+      throw new CacheException("SHA-256 is not available.  Cause: " + e, e);
+    }
+  });
+
+  private final long h1;
+  private final long h2;
+  private final long h3;
+  private final long h4;
+
+  private Fingerprint(long h1, long h2, long h3, long h4) {
+    this.h1 = h1;
+    this.h2 = h2;
+    this.h3 = h3;
+    this.h4 = h4;
+  }
+
+  /**
+   * Computes the fingerprint of a string.
+   *
+   * @param value
+   *          the string
+   * @return the fingerprint
+   */
+  public static Fingerprint of(String value) {
+    ByteBuffer digest = ByteBuffer.wrap(DIGEST.get().digest(value.getBytes(StandardCharsets.UTF_8)));
+    return new Fingerprint(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Fingerprint)) {
+      return false;
+    }
+    Fingerprint that = (Fingerprint) o;
+    return h1 == that.h1 && h2 == that.h2 && h3 == that.h3 && h4 == that.h4;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) h1;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%016x%016x%016x%016x", h1, h2, h3, h4);
+  }
+
+}
@@ -37,4 +37,9 @@ public final class NullCacheKey extends CacheKey {
   public void updateAll(Object[] objects) {
     throw new CacheException("Not allowed to update a NullCacheKey instance.");
   }
+
+  @Override
+  public void reset() {
+    throw new CacheException("Not allowed to update a NullCacheKey instance.");
+  }
 }
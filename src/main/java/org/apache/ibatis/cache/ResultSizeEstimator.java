@@ -0,0 +1,237 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The default {@link CacheWeigher}: estimates the retained heap size of a cache key and the cached result.
+ * <p>
+ * Result lists are walked element by element. The layout of every result class, i.e. all its instance fields and
+ * those of its superclasses whether a result map writes to them or not, is read by reflection once and cached, so
+ * weighing a list of rows costs one pass over the values without reflection on the class per row. Strings, boxed
+ * values, dates, arrays, collections and maps are sized by their usual layout on a 64-bit JVM with compressed
+ * references. JDK classes whose fields are not accessible are counted by their shallow size. Objects reachable more
+ * than once are counted once, and MyBatis' own objects (for example the state behind a lazy loading proxy) are not
+ * counted at all.
+ *
+ * @since 3.5.6
+ */
+public class ResultSizeEstimator implements CacheWeigher {
+
+  private static final int OBJECT_HEADER = 12;
+  private static final int ARRAY_HEADER = 16;
+  private static final int REFERENCE = 4;
+  private static final String[] FRAMEWORK_PACKAGES = { "org.apache.ibatis.session.", "org.apache.ibatis.executor.",
+      "org.apache.ibatis.mapping.", "org.apache.ibatis.reflection.", "org.apache.ibatis.type.",
+      "org.apache.ibatis.scripting.", "org.apache.ibatis.binding.", "org.apache.ibatis.transaction.",
+      "org.apache.ibatis.logging.", "org.apache.ibatis.plugin." };
+
+  private final Map<Class<?>, ClassLayout> layouts = new ConcurrentHashMap<>();
+
+  @Override
+  public long weigh(Object key, Object value) {
+    return estimate(key) + estimate(value);
+  }
+
+  /**
+   * Estimates the heap retained by an object graph.
+   *
+   * @param root
+   *          the object, may be null
+   * @return the estimated size in bytes
+   */
+  public long estimate(Object root) {
+    if (root == null) {
+      return 0;
+    }
+    Map<Object, Boolean> visited = new IdentityHashMap<>();
+    Deque<Object> pending = new ArrayDeque<>();
+    pending.push(root);
+    long size = 0;
+    while (!pending.isEmpty()) {
+      Object object = pending.pop();
+      if (visited.put(object, Boolean.TRUE) == null) {
+        size += sizeOf(object, pending);
+      }
+    }
+    return size;
+  }
+
+  private long sizeOf(Object object, Deque<Object> pending) {
+    Class<?> type = object.getClass();
+    if (isShared(object, type)) {
+      return 0;
+    } else if (object instanceof String) {
+      return align(OBJECT_HEADER + 12) + align(ARRAY_HEADER + 2L * ((String) object).length());
+    } else if (type.isArray()) {
+      return sizeOfArray(object, type.getComponentType(), pending);
+    } else if (object instanceof Number || object instanceof Boolean || object instanceof Character) {
+      return sizeOfNumber(object);
+    } else if (object instanceof Collection) {
+      Collection<?> collection = (Collection<?>) object;
+      pushAll(collection, pending);
+      if (object instanceof ArrayList) {
+        return align(OBJECT_HEADER + 12) + align(ARRAY_HEADER + (long) REFERENCE * collection.size());
+      }
+      // linked and hashed collections keep a node per element
+      return align(OBJECT_HEADER + 36) + 32L * collection.size();
+    } else if (object instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) object;
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        push(entry.getKey(), pending);
+        push(entry.getValue(), pending);
+      }
+      return align(OBJECT_HEADER + 36) + align(ARRAY_HEADER + (long) REFERENCE * tableSize(map.size())) + 32L * map.size();
+    }
+    ClassLayout layout = layouts.computeIfAbsent(type, ClassLayout::new);
+    for (Field field : layout.references) {
+      try {
+        push(field.get(object), pending);
+      } catch (IllegalAccessException e) {
+        // counted by its shallow size only
+      }
+    }
+    return layout.shallowSize;
+  }
+
+  private long sizeOfArray(Object array, Class<?> componentType, Deque<Object> pending) {
+    int length = Array.getLength(array);
+    if (!componentType.isPrimitive()) {
+      for (Object element : (Object[]) array) {
+        push(element, pending);
+      }
+      return align(ARRAY_HEADER + (long) REFERENCE * length);
+    }
+    return align(ARRAY_HEADER + (long) primitiveSize(componentType) * length);
+  }
+
+  private long sizeOfNumber(Object object) {
+    if (object instanceof BigDecimal) {
+      BigInteger unscaled = ((BigDecimal) object).unscaledValue();
+      return align(OBJECT_HEADER + 20) + align(OBJECT_HEADER + 20) + align(ARRAY_HEADER + 4L * (unscaled.bitLength() / 32 + 1));
+    } else if (object instanceof BigInteger) {
+      return align(OBJECT_HEADER + 20) + align(ARRAY_HEADER + 4L * (((BigInteger) object).bitLength() / 32 + 1));
+    } else if (object instanceof Long || object instanceof Double) {
+      return align(OBJECT_HEADER + 8);
+    }
+    return align(OBJECT_HEADER + 4);
+  }
+
+  /**
+   * Objects referenced by many entries and not retained by any of them, such as the configuration held by a
+   * lazy loading proxy.
+   */
+  private boolean isShared(Object object, Class<?> type) {
+    return object instanceof Class || object instanceof Enum || object instanceof ClassLoader || object instanceof Thread
+        || isFrameworkClass(type.getName());
+  }
+
+  private static boolean isFrameworkClass(String className) {
+    for (String prefix : FRAMEWORK_PACKAGES) {
+      if (className.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void pushAll(Collection<?> collection, Deque<Object> pending) {
+    for (Object element : collection) {
+      push(element, pending);
+    }
+  }
+
+  private void push(Object object, Deque<Object> pending) {
+    if (object != null) {
+      pending.push(object);
+    }
+  }
+
+  private static int tableSize(int size) {
+    int capacity = 16;
+    while (capacity * 3 / 4 < size) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  private static int primitiveSize(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    } else if (type == int.class || type == float.class) {
+      return 4;
+    } else if (type == short.class || type == char.class) {
+      return 2;
+    }
+    return 1;
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+
+  /**
+   * The shallow size of a class and the reference fields to follow.
+   */
+  private static class ClassLayout {
+    private final long shallowSize;
+    private final List<Field> references = new ArrayList<>();
+
+    ClassLayout(Class<?> type) {
+      long size = OBJECT_HEADER;
+      for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+        for (Field field : current.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers())) {
+            continue;
+          }
+          if (field.getType().isPrimitive()) {
+            size += primitiveSize(field.getType());
+          } else {
+            size += REFERENCE;
+            if (isFollowed(field)) {
+              references.add(field);
+            }
+          }
+        }
+      }
+      this.shallowSize = align(size);
+    }
+
+    private boolean isFollowed(Field field) {
+      try {
+        field.setAccessible(true);
+        return true;
+      } catch (RuntimeException e) {
+        // e.g. a field of a JDK class that is not opened to this module
+        return false;
+      }
+    }
+  }
+
+}
@@ -16,9 +16,9 @@
 package org.apache.ibatis.cache.decorators;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
@@ -30,6 +30,11 @@ import org.apache.ibatis.cache.CacheException;
  * It sets a lock over a cache key when the element is not found in cache.
  * This way, other threads will wait until this element is filled instead of hitting the database.
  *
+ * <p>
+ * Concurrent misses for the same key are coalesced: the first thread loads the value while the others wait for it to
+ * be put and then read it from the cache. A lock only exists while its key is being loaded and is removed once the
+ * value is put or the load is abandoned, so the number of locks does not grow with the number of distinct keys.
+ *
  * @author Eduardo Macarron
  *
  */
@@ -37,7 +42,9 @@ public class BlockingCache implements Cache {
 
   private long timeout;
   private final Cache delegate;
-  private final ConcurrentHashMap<Object, ReentrantLock> locks;
+  private final ConcurrentHashMap<Object, InFlightLoad> locks;
+  private final LongAdder waitCount = new LongAdder();
+  private final LongAdder accumulatedWaitTime = new LongAdder();
 
   public BlockingCache(Cache delegate) {
     this.delegate = delegate;
@@ -65,12 +72,22 @@ public class BlockingCache implements Cache {
 
   @Override
   public Object getObject(Object key) {
-    acquireLock(key);
-    Object value = delegate.getObject(key);
-    if (value != null) {
-      releaseLock(key);
+    for (;;) {
+      InFlightLoad load = acquireLock(key);
+      if (load == null) {
+        Object value = delegate.getObject(key);
+        if (value != null) {
+          releaseLock(key);
+        }
+        return value;
+      }
+      awaitLoad(key, load);
+      Object value = delegate.getObject(key);
+      if (value != null) {
+        return value;
+      }
+      // the load was abandoned, try to load the value in this thread
     }
-    return value;
   }
 
   @Override
@@ -85,30 +102,45 @@ public class BlockingCache implements Cache {
     delegate.clear();
   }
 
-  private ReentrantLock getLockForKey(Object key) {
-    return locks.computeIfAbsent(key, k -> new ReentrantLock());
+  /**
+   * Takes the lock of a key unless another thread is loading it.
+   *
+   * @return null if the current thread holds the lock, or the load of another thread
+   */
+  private InFlightLoad acquireLock(Object key) {
+    InFlightLoad load = new InFlightLoad();
+    InFlightLoad existing = locks.putIfAbsent(key, load);
+    if (existing == null || existing.owner == Thread.currentThread()) {
+      return null;
+    }
+    return existing;
   }
 
-  private void acquireLock(Object key) {
-    Lock lock = getLockForKey(key);
-    if (timeout > 0) {
-      try {
-        boolean acquired = lock.tryLock(timeout, TimeUnit.MILLISECONDS);
+  private void awaitLoad(Object key, InFlightLoad load) {
+    long start = System.nanoTime();
+    try {
+      if (timeout > 0) {
+        boolean acquired = load.latch.await(timeout, TimeUnit.MILLISECONDS);
         if (!acquired) {
           throw new CacheException("Couldn't get a lock in " + timeout + " for the key " +  key + " at the cache " + delegate.getId());
         }
-      } catch (InterruptedException e) {
-        throw new CacheException("Got interrupted while trying to acquire lock for key " + key, e);
+      } else {
+        load.latch.await();
       }
-    } else {
-      lock.lock();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CacheException("Got interrupted while trying to acquire lock for key " + key, e);
+    } finally {
+      waitCount.increment();
+      accumulatedWaitTime.add(System.nanoTime() - start);
     }
   }
 
   private void releaseLock(Object key) {
-    ReentrantLock lock = locks.get(key);
-    if (lock.isHeldByCurrentThread()) {
-      lock.unlock();
+    InFlightLoad load = locks.get(key);
+    if (load != null && load.owner == Thread.currentThread()) {
+      locks.remove(key, load);
+      load.latch.countDown();
     }
   }
 
@@ -119,4 +151,43 @@ public class BlockingCache implements Cache {
   public void setTimeout(long timeout) {
     this.timeout = timeout;
   }
+
+  /**
+   * Returns how many times a thread waited for another thread to load a key.
+   *
+   * @return the number of waits
+   * @since 3.5.6
+   */
+  public long getWaitCount() {
+    return waitCount.sum();
+  }
+
+  /**
+   * Returns the total time threads waited for other threads to load a key.
+   *
+   * @return the time in milliseconds
+   * @since 3.5.6
+   */
+  public long getAccumulatedWaitTime() {
+    return TimeUnit.NANOSECONDS.toMillis(accumulatedWaitTime.sum());
+  }
+
+  /**
+   * Returns the average time a thread waited for another thread to load a key.
+   *
+   * @return the time in milliseconds
+   * @since 3.5.6
+   */
+  public long getAverageWaitTime() {
+    long count = waitCount.sum();
+    return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(accumulatedWaitTime.sum() / count);
+  }
+
+  /**
+   * A key being loaded by one thread, which the other threads requesting it wait for.
+   */
+  private static class InFlightLoad {
+    private final Thread owner = Thread.currentThread();
+    private final CountDownLatch latch = new CountDownLatch(1);
+  }
 }
@@ -15,10 +15,13 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheWeigher;
+import org.apache.ibatis.cache.ResultSizeEstimator;
 
 /**
  * Lru (least recently used) cache decorator.
@@ -30,6 +33,10 @@ public class LruCache implements Cache {
   private final Cache delegate;
   private Map<Object, Object> keyMap;
   private Object eldestKey;
+  private long maxBytes;
+  private CacheWeigher weigher = new ResultSizeEstimator();
+  private Map<Object, Long> weights;
+  private long weightedSize;
 
   public LruCache(Cache delegate) {
     this.delegate = delegate;
@@ -61,20 +68,63 @@ public class LruCache implements Cache {
     };
   }
 
+  /**
+   * Bounds the cache by the estimated size of its entries instead of their number. Takes precedence over
+   * {@link #setSize(int)}.
+   *
+   * @param maxBytes
+   *          the maximum total weight, as computed by the {@link #setWeigher(CacheWeigher) weigher}
+   * @since 3.5.6
+   */
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+    this.weights = new LinkedHashMap<>(16, .75F, true);
+    this.weightedSize = 0;
+  }
+
+  /**
+   * Sets how entries are weighed once {@link #setMaxBytes(long)} is set. Defaults to a {@link ResultSizeEstimator}.
+   *
+   * @param weigher
+   *          the weigher
+   * @since 3.5.6
+   */
+  public void setWeigher(CacheWeigher weigher) {
+    this.weigher = weigher;
+  }
+
+  public long getWeightedSize() {
+    return weightedSize;
+  }
+
   @Override
   public void putObject(Object key, Object value) {
     delegate.putObject(key, value);
-    cycleKeyList(key);
+    if (weights != null) {
+      cycleWeightedKeyList(key, weigher.weigh(key, value));
+    } else {
+      cycleKeyList(key);
+    }
   }
 
   @Override
   public Object getObject(Object key) {
-    keyMap.get(key); // touch
+    if (weights != null) {
+      weights.get(key); // touch
+    } else {
+      keyMap.get(key); // touch
+    }
     return delegate.getObject(key);
   }
 
   @Override
   public Object removeObject(Object key) {
+    if (weights != null) {
+      Long weight = weights.remove(key);
+      if (weight != null) {
+        weightedSize -= weight;
+      }
+    }
     return delegate.removeObject(key);
   }
 
@@ -82,6 +132,10 @@ public class LruCache implements Cache {
   public void clear() {
     delegate.clear();
     keyMap.clear();
+    if (weights != null) {
+      weights.clear();
+      weightedSize = 0;
+    }
   }
 
   private void cycleKeyList(Object key) {
@@ -92,4 +146,17 @@ public class LruCache implements Cache {
     }
   }
 
+  private void cycleWeightedKeyList(Object key, long weight) {
+    Long prior = weights.put(key, weight);
+    weightedSize += prior == null ? weight : weight - prior;
+    // an entry heavier than maxBytes on its own is evicted as well
+    Iterator<Map.Entry<Object, Long>> eldest = weights.entrySet().iterator();
+    while (weightedSize > maxBytes && eldest.hasNext()) {
+      Map.Entry<Object, Long> entry = eldest.next();
+      eldest.remove();
+      weightedSize -= entry.getValue();
+      delegate.removeObject(entry.getKey());
+    }
+  }
+
 }
@@ -0,0 +1,665 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.cache.serializer.JavaCacheSerializer;
+
+/**
+ * Thread-safe cache that keeps serialized keys and values outside of the Java heap.
+ * <p>
+ * The memory, {@code maxBytes} in total, is split into pages of {@code pageSize} bytes that are allocated on first use,
+ * either as direct buffers or, when {@code file} is set, as regions of a memory-mapped file. A page is assigned to one
+ * slab class and cut into chunks of that class' size; an entry is stored in a chunk of the smallest class that fits it.
+ * When no chunk is free the least recently used entry of the same class is evicted; when the class holds no entry at
+ * all, the page of the least recently used entry is emptied as a whole and reassigned, so that a put never evicts more
+ * than a page worth of entries. Only the lookup index lives on the heap.
+ * <p>
+ * Keys and values must be serializable and every read returns a new copy, so the cache behaves as a read/write cache
+ * regardless of {@code readOnly}. When backed by a file, the entries found in it are loaded again on the next start;
+ * the file should then only be used by a single cache. {@link #close()} releases the memory, or unmaps the file, once
+ * the cache is no longer needed.
+ *
+ * @since 3.5.6
+ */
+public class OffHeapCache implements Cache {
+
+  private static final int PAGE_MAGIC = 0x4d424f48;
+  private static final int PAGE_HEADER = 16;
+  private static final int CHUNK_HEADER = 8;
+  private static final int MIN_CHUNK_SIZE = 64;
+  private static final double GROWTH_FACTOR = 1.25d;
+
+  private final String id;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  private long maxBytes = 64L * 1024 * 1024;
+  private int pageSize = 1024 * 1024;
+  private String file;
+  private CacheSerializer serializer = new JavaCacheSerializer();
+
+  // guarded by lock, created on first access
+  private final Map<Object, Slot> index = new LinkedHashMap<>(16, .75F, true);
+  private Page[] pages;
+  private int[] chunkSizes;
+  private Deque<Page>[] partialPages;
+  private Deque<Page> freePages;
+
+  public OffHeapCache(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Sets the total size of the off-heap memory. Defaults to 64 MiB.
+   *
+   * @param maxBytes
+   *          the size in bytes, rounded down to a whole number of pages
+   */
+  public void setMaxBytes(long maxBytes) {
+    checkNotStarted("maxBytes");
+    if (maxBytes <= 0) {
+      throw new CacheException("The maxBytes of cache '" + id + "' must be positive but was " + maxBytes);
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Sets the size of a page, which is also the size of the largest entry that can be cached. Defaults to 1 MiB.
+   *
+   * @param pageSize
+   *          the size in bytes
+   */
+  public void setPageSize(int pageSize) {
+    checkNotStarted("pageSize");
+    if (pageSize < PAGE_HEADER + MIN_CHUNK_SIZE) {
+      throw new CacheException("The pageSize of cache '" + id + "' must be at least " + (PAGE_HEADER + MIN_CHUNK_SIZE)
+        + " but was " + pageSize);
+    }
+    this.pageSize = pageSize;
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * Sets the file to map the memory from. By default the memory is allocated as direct buffers and is lost on shutdown.
+   *
+   * @param file
+   *          the path of the file, created if it does not exist
+   */
+  public void setFile(String file) {
+    checkNotStarted("file");
+    this.file = file;
+  }
+
+  public String getFile() {
+    return file;
+  }
+
+  /**
+   * Sets how keys and values are serialized. Defaults to a {@link JavaCacheSerializer}.
+   *
+   * @param serializer
+   *          the serializer
+   */
+  public void setSerializer(CacheSerializer serializer) {
+    checkNotStarted("serializer");
+    this.serializer = serializer;
+  }
+
+  @Override
+  public int getSize() {
+    lock.lock();
+    try {
+      start();
+      return index.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    byte[] keyBytes = serialize(key);
+    byte[] valueBytes = serialize(value);
+    long length = (long) CHUNK_HEADER + keyBytes.length + valueBytes.length;
+    lock.lock();
+    try {
+      start();
+      Slot prior = index.remove(key);
+      if (prior != null) {
+        free(prior);
+      }
+      int slabClass = slabClassOf(length);
+      if (slabClass < 0) {
+        // larger than a page, not cached
+        return;
+      }
+      Slot slot = allocate(slabClass);
+      if (slot != null) {
+        slot.write(keyBytes, valueBytes);
+        index.put(key, slot);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    byte[] valueBytes = null;
+    lock.lock();
+    try {
+      start();
+      Slot slot = index.get(key);
+      if (slot != null) {
+        valueBytes = slot.readValue();
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (valueBytes == null) {
+      missCount.increment();
+      return null;
+    }
+    hitCount.increment();
+    return deserialize(valueBytes);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    byte[] valueBytes = null;
+    lock.lock();
+    try {
+      start();
+      Slot slot = index.remove(key);
+      if (slot != null) {
+        valueBytes = slot.readValue();
+        free(slot);
+      }
+    } finally {
+      lock.unlock();
+    }
+    return valueBytes == null ? null : deserialize(valueBytes);
+  }
+
+  @Override
+  public void clear() {
+    lock.lock();
+    try {
+      start();
+      index.clear();
+      for (Deque<Page> partial : partialPages) {
+        partial.clear();
+      }
+      freePages.clear();
+      for (Page page : pages) {
+        page.reset();
+        freePages.add(page);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Writes the entries of a mapped file to disk and releases the off-heap memory, unmapping the file where the JVM
+   * allows it and otherwise leaving that to the garbage collector. The cache starts again on the next access, empty or
+   * with the entries of its file.
+   */
+  public void close() {
+    lock.lock();
+    try {
+      if (pages == null) {
+        return;
+      }
+      index.clear();
+      for (Page page : pages) {
+        ByteBuffer buffer = page.buffer;
+        page.buffer = null;
+        if (buffer instanceof MappedByteBuffer) {
+          ((MappedByteBuffer) buffer).force();
+        }
+        if (buffer != null) {
+          BufferCleaner.clean(buffer);
+        }
+      }
+      pages = null;
+      chunkSizes = null;
+      partialPages = null;
+      freePages = null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private void checkNotStarted(String property) {
+    if (pages != null) {
+      throw new CacheException("The " + property + " of cache '" + id + "' cannot be changed once it is in use.");
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void start() {
+    if (pages != null) {
+      return;
+    }
+    List<Integer> sizes = new ArrayList<>();
+    int maximumChunkSize = pageSize - PAGE_HEADER;
+    for (long size = MIN_CHUNK_SIZE; size < maximumChunkSize; size = (long) (size * GROWTH_FACTOR + 7) & ~7L) {
+      sizes.add((int) size);
+    }
+    sizes.add(maximumChunkSize);
+    chunkSizes = sizes.stream().mapToInt(Integer::intValue).toArray();
+    partialPages = new Deque[chunkSizes.length];
+    for (int i = 0; i < partialPages.length; i++) {
+      partialPages[i] = new ArrayDeque<>();
+    }
+    freePages = new ArrayDeque<>();
+    Page[] newPages = new Page[(int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / pageSize))];
+    if (file == null) {
+      for (int i = 0; i < newPages.length; i++) {
+        newPages[i] = new Page(null);
+        freePages.add(newPages[i]);
+      }
+    } else {
+      mapFile(newPages);
+    }
+    pages = newPages;
+  }
+
+  private void mapFile(Page[] newPages) {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+      long length = (long) newPages.length * pageSize;
+      if (raf.length() != length) {
+        raf.setLength(length);
+      }
+      for (int i = 0; i < newPages.length; i++) {
+        newPages[i] = new Page(channel.map(FileChannel.MapMode.READ_WRITE, (long) i * pageSize, pageSize));
+        recover(newPages[i]);
+      }
+    } catch (IOException e) {
+      throw new CacheException("Error mapping file '" + file + "' for cache '" + id + "'.  Cause: " + e, e);
+    }
+  }
+
+  /**
+   * Loads the entries a page of a mapped file still holds from a previous run.
+   */
+  private void recover(Page page) {
+    ByteBuffer buffer = page.buffer;
+    int slabClass = buffer.getInt(0) == PAGE_MAGIC && buffer.getInt(4) == pageSize ? classOfChunkSize(buffer.getInt(8)) : -1;
+    if (slabClass < 0) {
+      page.reset();
+      freePages.add(page);
+      return;
+    }
+    int chunkSize = chunkSizes[slabClass];
+    for (int offset = PAGE_HEADER; offset + chunkSize <= pageSize; offset += chunkSize) {
+      int keyLength = buffer.getInt(offset);
+      int valueLength = buffer.getInt(offset + 4);
+      if (keyLength > 0 && valueLength > 0 && (long) CHUNK_HEADER + keyLength + valueLength <= chunkSize) {
+        Slot slot = new Slot(page, offset);
+        try {
+          Slot prior = index.put(deserialize(slot.readKey()), slot);
+          if (prior != null) {
+            // not freed by a put that was interrupted, the later copy wins
+            buffer.putInt(prior.offset, 0);
+          }
+          continue;
+        } catch (CacheException e) {
+          // written by an incompatible version of a class, dropped
+        }
+      }
+      buffer.putInt(offset, 0);
+    }
+    page.recover(slabClass, chunkSize);
+    if (page.used == 0) {
+      page.reset();
+      freePages.add(page);
+    } else if (page.hasFreeChunk()) {
+      partialPages[slabClass].add(page);
+      page.queued = true;
+    }
+  }
+
+  private int slabClassOf(long length) {
+    for (int i = 0; i < chunkSizes.length; i++) {
+      if (length <= chunkSizes[i]) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int classOfChunkSize(int chunkSize) {
+    for (int i = 0; i < chunkSizes.length; i++) {
+      if (chunkSizes[i] == chunkSize) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private Slot allocate(int slabClass) {
+    Deque<Page> partial = partialPages[slabClass];
+    for (;;) {
+      Page page = partial.peekFirst();
+      if (page != null) {
+        if (page.hasFreeChunk()) {
+          return new Slot(page, page.takeChunk());
+        }
+        partial.pollFirst();
+        page.queued = false;
+        continue;
+      }
+      page = freePages.poll();
+      if (page != null) {
+        page.assign(slabClass, chunkSizes[slabClass]);
+        partial.addFirst(page);
+        page.queued = true;
+        continue;
+      }
+      if (index.isEmpty()) {
+        return null;
+      }
+      evict(slabClass);
+    }
+  }
+
+  /**
+   * Evicts the least recently used entry of a slab class or, when the class holds none, every entry on the page of the
+   * least recently used entry, which then becomes free.
+   */
+  private void evict(int slabClass) {
+    Page eldestPage = null;
+    for (Iterator<Slot> slots = index.values().iterator(); slots.hasNext();) {
+      Slot slot = slots.next();
+      if (slot.page.slabClass == slabClass) {
+        slots.remove();
+        free(slot);
+        evictionCount.increment();
+        return;
+      }
+      if (eldestPage == null) {
+        eldestPage = slot.page;
+      }
+    }
+    for (Iterator<Slot> slots = index.values().iterator(); slots.hasNext();) {
+      Slot slot = slots.next();
+      if (slot.page == eldestPage) {
+        slots.remove();
+        free(slot);
+        evictionCount.increment();
+      }
+    }
+  }
+
+  private void free(Slot slot) {
+    Page page = slot.page;
+    page.returnChunk(slot.offset);
+    if (page.used == 0) {
+      if (page.queued) {
+        partialPages[page.slabClass].remove(page);
+      }
+      page.reset();
+      freePages.add(page);
+    } else if (!page.queued) {
+      partialPages[page.slabClass].addLast(page);
+      page.queued = true;
+    }
+  }
+
+  private byte[] serialize(Object object) {
+    if (object != null && !(object instanceof Serializable)) {
+      throw new CacheException("OffHeapCache failed to make a copy of a non-serializable object: " + object);
+    }
+    return serializer.serialize(object);
+  }
+
+  private Object deserialize(byte[] bytes) {
+    return serializer.deserialize(bytes);
+  }
+
+  /**
+   * A page of memory cut into chunks of one slab class. The header holds a magic number, the page size and the chunk
+   * size, or 0 while the page is free; each chunk starts with the length of the key, or 0 while the chunk is free, and
+   * the length of the value.
+   */
+  private class Page {
+    private ByteBuffer buffer;
+    private int slabClass = -1;
+    private int chunkSize;
+    private int[] freeChunks;
+    private int freeCount;
+    private int used;
+    private boolean queued;
+
+    Page(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    void assign(int slabClass, int chunkSize) {
+      if (buffer == null) {
+        buffer = ByteBuffer.allocateDirect(pageSize);
+      }
+      buffer.putInt(8, 0);
+      for (int offset = PAGE_HEADER; offset + chunkSize <= pageSize; offset += chunkSize) {
+        buffer.putInt(offset, 0);
+      }
+      buffer.putInt(0, PAGE_MAGIC);
+      buffer.putInt(4, pageSize);
+      buffer.putInt(8, chunkSize);
+      recover(slabClass, chunkSize);
+    }
+
+    /**
+     * Rebuilds the free chunk list from the chunk headers.
+     */
+    void recover(int slabClass, int chunkSize) {
+      this.slabClass = slabClass;
+      this.chunkSize = chunkSize;
+      int count = (pageSize - PAGE_HEADER) / chunkSize;
+      freeChunks = new int[count];
+      freeCount = 0;
+      used = 0;
+      // pushed from the end, so that the lowest offsets are taken first
+      for (int offset = PAGE_HEADER + (count - 1) * chunkSize; offset >= PAGE_HEADER; offset -= chunkSize) {
+        if (buffer.getInt(offset) == 0) {
+          freeChunks[freeCount++] = offset;
+        } else {
+          used++;
+        }
+      }
+    }
+
+    void reset() {
+      if (buffer != null) {
+        buffer.putInt(8, 0);
+      }
+      slabClass = -1;
+      freeChunks = null;
+      freeCount = 0;
+      used = 0;
+      queued = false;
+    }
+
+    boolean hasFreeChunk() {
+      return freeCount > 0;
+    }
+
+    int takeChunk() {
+      used++;
+      return freeChunks[--freeCount];
+    }
+
+    void returnChunk(int offset) {
+      buffer.putInt(offset, 0);
+      freeChunks[freeCount++] = offset;
+      used--;
+    }
+  }
+
+  /**
+   * Releases the memory of a direct or mapped buffer right away through {@code sun.misc.Unsafe.invokeCleaner}, which is
+   * available since Java 9; on older JVMs the buffer is released once it is garbage collected.
+   */
+  private static final class BufferCleaner {
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+      Object unsafe = null;
+      Method invokeCleaner = null;
+      try {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        Field field = unsafeClass.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        unsafe = field.get(null);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        // Java 8 or access denied, left to the garbage collector
+        invokeCleaner = null;
+      }
+      UNSAFE = unsafe;
+      INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private BufferCleaner() {
+    }
+
+    static void clean(ByteBuffer buffer) {
+      if (INVOKE_CLEANER == null || !buffer.isDirect()) {
+        return;
+      }
+      try {
+        INVOKE_CLEANER.invoke(UNSAFE, buffer);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        // left to the garbage collector
+      }
+    }
+  }
+
+  /**
+   * The location of an entry.
+   */
+  private static class Slot {
+    private final Page page;
+    private final int offset;
+
+    Slot(Page page, int offset) {
+      this.page = page;
+      this.offset = offset;
+    }
+
+    void write(byte[] key, byte[] value) {
+      ByteBuffer buffer = page.buffer;
+      buffer.position(offset + CHUNK_HEADER);
+      buffer.put(key);
+      buffer.put(value);
+      buffer.putInt(offset + 4, value.length);
+      // written last, so that a torn write in a mapped file leaves the chunk free
+      buffer.putInt(offset, key.length);
+    }
+
+    byte[] readKey() {
+      return read(CHUNK_HEADER, page.buffer.getInt(offset));
+    }
+
+    byte[] readValue() {
+      ByteBuffer buffer = page.buffer;
+      return read(CHUNK_HEADER + buffer.getInt(offset), buffer.getInt(offset + 4));
+    }
+
+    private byte[] read(int position, int length) {
+      byte[] bytes = new byte[length];
+      ByteBuffer buffer = page.buffer;
+      buffer.position(offset + position);
+      buffer.get(bytes);
+      return bytes;
+    }
+  }
+
+}
@@ -0,0 +1,533 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheWeigher;
+import org.apache.ibatis.cache.ResultSizeEstimator;
+
+/**
+ * Thread-safe, size bounded cache using the W-TinyLFU eviction policy.
+ * <p>
+ * Entries are kept in a {@link ConcurrentHashMap}, so reads never take a lock: a hit is only recorded in a lossy, striped
+ * buffer that is replayed against the policy by whichever thread next holds the eviction lock. New entries enter a small
+ * LRU admission window; when it overflows, its oldest entry competes with the eldest entry of the main space and the
+ * one a {@link FrequencySketch} reports as less popular is evicted. The main space is a segmented LRU in which entries
+ * hit a second time are promoted from probation to the protected segment.
+ * <p>
+ * The cache is bounded by the number of entries, or by their estimated size once {@link #setMaxBytes(long)} is set.
+ * Unlike {@link PerpetualCache} with an eviction decorator this cache needs no {@code SynchronizedCache}, and
+ * {@code CacheBuilder} does not wrap it in one.
+ */
+public class TinyLfuCache implements Cache {
+
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+  private static final int UNLINKED = -1;
+
+  private static final double WINDOW_PERCENTAGE = 0.01d;
+  private static final double PROTECTED_PERCENTAGE = 0.80d;
+  private static final int ADMIT_HASHDOS_THRESHOLD = 5;
+  private static final int ASSUMED_ENTRY_BYTES = 1024;
+
+  private static final int READ_BUFFER_STRIPES = ceilingPowerOfTwo(Math.min(64, 4 * Runtime.getRuntime().availableProcessors()));
+  private static final int READ_BUFFER_SIZE = 64;
+
+  private final String id;
+  private final ConcurrentHashMap<Object, Node> data = new ConcurrentHashMap<>();
+  private final ReadBuffer[] readBuffers = new ReadBuffer[READ_BUFFER_STRIPES];
+  private final ReentrantLock evictionLock = new ReentrantLock();
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  private CacheWeigher weigher = new ResultSizeEstimator();
+  private volatile boolean weighedInBytes;
+
+  // guarded by evictionLock
+  private final AccessOrderDeque window = new AccessOrderDeque();
+  private final AccessOrderDeque probation = new AccessOrderDeque();
+  private final AccessOrderDeque protectedDeque = new AccessOrderDeque();
+  private FrequencySketch sketch;
+  private long maximumWeight;
+  private long windowMaximum;
+  private long protectedMaximum;
+  private long weightedSize;
+  private long windowWeightedSize;
+  private long protectedWeightedSize;
+
+  public TinyLfuCache(String id) {
+    this.id = id;
+    for (int i = 0; i < readBuffers.length; i++) {
+      readBuffers[i] = new ReadBuffer();
+    }
+    setSize(1024);
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    return data.size();
+  }
+
+  /**
+   * Sets the maximum number of entries.
+   *
+   * @param size
+   *          the maximum number of entries
+   */
+  public void setSize(int size) {
+    if (!weighedInBytes) {
+      setMaximumWeight(size, size);
+    }
+  }
+
+  /**
+   * Bounds the cache by the estimated size of its entries instead of their number. Takes precedence over
+   * {@link #setSize(int)}.
+   *
+   * @param maxBytes
+   *          the maximum total weight, as computed by the {@link #setWeigher(CacheWeigher) weigher}
+   * @since 3.5.6
+   */
+  public void setMaxBytes(long maxBytes) {
+    weighedInBytes = true;
+    setMaximumWeight(maxBytes, maxBytes / ASSUMED_ENTRY_BYTES);
+  }
+
+  /**
+   * Sets how entries are weighed once {@link #setMaxBytes(long)} is set. Defaults to a {@link ResultSizeEstimator}.
+   *
+   * @param weigher
+   *          the weigher
+   * @since 3.5.6
+   */
+  public void setWeigher(CacheWeigher weigher) {
+    this.weigher = weigher;
+  }
+
+  private void setMaximumWeight(long maximumWeight, long expectedEntries) {
+    if (maximumWeight <= 0) {
+      throw new CacheException("The maximum size of cache '" + id + "' must be positive but was " + maximumWeight);
+    }
+    evictionLock.lock();
+    try {
+      this.maximumWeight = maximumWeight;
+      this.windowMaximum = Math.max(1, (long) (maximumWeight * WINDOW_PERCENTAGE));
+      this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_PERCENTAGE);
+      this.sketch = new FrequencySketch(expectedEntries);
+      evictEntries();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  private long weigh(Object key, Object value) {
+    return weighedInBytes ? weigher.weigh(key, value) : 1;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    Node node = new Node(key, value, weigh(key, value));
+    Node prior = data.put(key, node);
+    evictionLock.lock();
+    try {
+      if (prior != null) {
+        retire(prior);
+      }
+      drainReadBuffers();
+      // another thread may have replaced or removed the entry before the lock was acquired
+      if (node.queue == UNLINKED && !node.retired && data.get(key) == node) {
+        window.addLast(node);
+        node.queue = WINDOW;
+        windowWeightedSize += node.weight;
+        weightedSize += node.weight;
+        sketch.increment(key);
+        evictEntries();
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Node node = data.get(key);
+    if (node == null) {
+      missCount.increment();
+      return null;
+    }
+    hitCount.increment();
+    ReadBuffer buffer = readBuffers[(int) Thread.currentThread().getId() & (READ_BUFFER_STRIPES - 1)];
+    if (!buffer.offer(node) && evictionLock.tryLock()) {
+      try {
+        drainReadBuffers();
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+    return node.value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Node node = data.remove(key);
+    if (node == null) {
+      return null;
+    }
+    evictionLock.lock();
+    try {
+      retire(node);
+    } finally {
+      evictionLock.unlock();
+    }
+    return node.value;
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      drainReadBuffers();
+      for (Node node : data.values()) {
+        node.retired = true;
+      }
+      data.clear();
+      window.clear();
+      probation.clear();
+      protectedDeque.clear();
+      sketch.clear();
+      weightedSize = 0;
+      windowWeightedSize = 0;
+      protectedWeightedSize = 0;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  /**
+   * Returns the current weight of all entries: their estimated size in bytes if {@link #setMaxBytes(long)} is set,
+   * their number otherwise.
+   *
+   * @return the weighted size
+   */
+  public long getWeightedSize() {
+    evictionLock.lock();
+    try {
+      return weightedSize;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private void drainReadBuffers() {
+    for (ReadBuffer buffer : readBuffers) {
+      buffer.drainTo(this);
+    }
+  }
+
+  private void onAccess(Node node) {
+    if (node.queue == UNLINKED) {
+      return;
+    }
+    sketch.increment(node.key);
+    if (node.queue == WINDOW) {
+      window.moveToBack(node);
+    } else if (node.queue == PROBATION) {
+      // a second hit promotes the entry to the protected segment
+      probation.remove(node);
+      protectedDeque.addLast(node);
+      node.queue = PROTECTED;
+      protectedWeightedSize += node.weight;
+      demoteFromProtected();
+    } else {
+      protectedDeque.moveToBack(node);
+    }
+  }
+
+  private void demoteFromProtected() {
+    while (protectedWeightedSize > protectedMaximum) {
+      Node demoted = protectedDeque.peekFirst();
+      if (demoted == null) {
+        return;
+      }
+      protectedDeque.remove(demoted);
+      probation.addLast(demoted);
+      demoted.queue = PROBATION;
+      protectedWeightedSize -= demoted.weight;
+    }
+  }
+
+  private void evictEntries() {
+    Node candidate = evictFromWindow();
+    evictFromMain(candidate);
+  }
+
+  /**
+   * Moves the entries that overflow the admission window to the tail of the probation segment.
+   *
+   * @return the first entry moved, the entries after it in probation are candidates as well
+   */
+  private Node evictFromWindow() {
+    Node first = null;
+    while (windowWeightedSize > windowMaximum) {
+      Node node = window.peekFirst();
+      if (node == null) {
+        break;
+      }
+      window.remove(node);
+      probation.addLast(node);
+      node.queue = PROBATION;
+      windowWeightedSize -= node.weight;
+      if (first == null) {
+        first = node;
+      }
+    }
+    return first;
+  }
+
+  private void evictFromMain(Node candidate) {
+    while (weightedSize > maximumWeight) {
+      Node victim = probation.peekFirst();
+      if (victim == null) {
+        victim = protectedDeque.peekFirst();
+      }
+      if (victim == null) {
+        victim = window.peekFirst();
+      }
+      if (victim == null) {
+        return;
+      }
+      if (candidate == null || candidate.queue != PROBATION) {
+        candidate = null;
+        evict(victim);
+      } else if (candidate == victim) {
+        candidate = candidate.next;
+        evict(victim);
+      } else if (admit(candidate, victim)) {
+        evict(victim);
+      } else {
+        Node next = candidate.next;
+        evict(candidate);
+        candidate = next;
+      }
+    }
+  }
+
+  private boolean admit(Node candidate, Node victim) {
+    int candidateFrequency = sketch.frequency(candidate.key);
+    int victimFrequency = sketch.frequency(victim.key);
+    if (candidateFrequency > victimFrequency) {
+      return true;
+    } else if (candidateFrequency <= ADMIT_HASHDOS_THRESHOLD) {
+      return false;
+    }
+    // a small random chance keeps an attacker from pinning a warm victim with colliding keys
+    return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+  }
+
+  private void evict(Node node) {
+    data.remove(node.key, node);
+    retire(node);
+    evictionCount.increment();
+  }
+
+  private void retire(Node node) {
+    node.retired = true;
+    if (node.queue == WINDOW) {
+      window.remove(node);
+      windowWeightedSize -= node.weight;
+    } else if (node.queue == PROBATION) {
+      probation.remove(node);
+    } else if (node.queue == PROTECTED) {
+      protectedDeque.remove(node);
+      protectedWeightedSize -= node.weight;
+    } else {
+      return;
+    }
+    node.queue = UNLINKED;
+    weightedSize -= node.weight;
+  }
+
+  private static int ceilingPowerOfTwo(int x) {
+    return 1 << -Integer.numberOfLeadingZeros(x - 1);
+  }
+
+  private static final class Node {
+    private final Object key;
+    private final Object value;
+    private final long weight;
+    // guarded by evictionLock
+    private int queue = UNLINKED;
+    private boolean retired;
+    private Node prev;
+    private Node next;
+
+    Node(Object key, Object value, long weight) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  /**
+   * Intrusive doubly linked list in access order, the eldest entry first.
+   */
+  private static final class AccessOrderDeque {
+    private Node first;
+    private Node last;
+
+    Node peekFirst() {
+      return first;
+    }
+
+    void addLast(Node node) {
+      node.prev = last;
+      node.next = null;
+      if (last == null) {
+        first = node;
+      } else {
+        last.next = node;
+      }
+      last = node;
+    }
+
+    void remove(Node node) {
+      if (node.prev == null) {
+        first = node.next;
+      } else {
+        node.prev.next = node.next;
+      }
+      if (node.next == null) {
+        last = node.prev;
+      } else {
+        node.next.prev = node.prev;
+      }
+      node.prev = null;
+      node.next = null;
+    }
+
+    void moveToBack(Node node) {
+      if (node != last) {
+        remove(node);
+        addLast(node);
+      }
+    }
+
+    void clear() {
+      first = null;
+      last = null;
+    }
+  }
+
+  /**
+   * A bounded multi-producer, single-consumer ring buffer of read events. Offers are dropped when it is full, which only
+   * makes the recorded access history slightly less precise.
+   */
+  private static final class ReadBuffer {
+    private final AtomicLong readCounter = new AtomicLong();
+    private final AtomicLong writeCounter = new AtomicLong();
+    private final AtomicReferenceArray<Node> buffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+
+    /**
+     * Records a read.
+     *
+     * @return false if the buffer is full and should be drained
+     */
+    boolean offer(Node node) {
+      long head = readCounter.get();
+      long tail = writeCounter.get();
+      if (tail - head >= READ_BUFFER_SIZE) {
+        return false;
+      }
+      if (writeCounter.compareAndSet(tail, tail + 1)) {
+        buffer.lazySet((int) (tail & (READ_BUFFER_SIZE - 1)), node);
+      }
+      return true;
+    }
+
+    void drainTo(TinyLfuCache cache) {
+      long head = readCounter.get();
+      long tail = writeCounter.get();
+      for (; head < tail; head++) {
+        int index = (int) (head & (READ_BUFFER_SIZE - 1));
+        Node node = buffer.get(index);
+        if (node == null) {
+          // the producer has claimed the slot but not published it yet
+          break;
+        }
+        buffer.lazySet(index, null);
+        cache.onAccess(node);
+      }
+      readCounter.lazySet(head);
+    }
+  }
+
+}
@@ -0,0 +1,564 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.executor.loader.AbstractSerialStateHolder;
+import org.apache.ibatis.executor.loader.WriteReplaceInterface;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.AmbiguousMethodInvoker;
+import org.apache.ibatis.reflection.invoker.Invoker;
+
+/**
+ * A {@link CacheSerializer} that writes result objects by their properties, as found by {@link Reflector}.
+ * <p>
+ * The class of a result object is written once per serialized graph and its properties are written in a fixed order
+ * with no name or descriptor; properties of a primitive type are written without a type tag. Strings, boxed values,
+ * dates, byte arrays, object arrays, enums and the collections and maps of {@code java.util} are written natively.
+ * Anything else, including classes with their own serialization methods and lazy loading proxies, is written with Java
+ * serialization. The user bean behind a lazy loading proxy is itself written with this serializer.
+ * <p>
+ * A result class is written by properties if it has a no-argument constructor, so its instances must not keep state
+ * that is not reachable through a getter and a setter or a field. Shared and cyclic references are preserved.
+ *
+ * @since 3.5.6
+ */
+public class SchemaCacheSerializer implements CacheSerializer {
+
+  private static final byte NULL = 0;
+  private static final byte REFERENCE = 1;
+  private static final byte STRING = 2;
+  private static final byte INTEGER = 3;
+  private static final byte LONG = 4;
+  private static final byte SHORT = 5;
+  private static final byte BYTE = 6;
+  private static final byte BOOLEAN = 7;
+  private static final byte CHARACTER = 8;
+  private static final byte FLOAT = 9;
+  private static final byte DOUBLE = 10;
+  private static final byte BIG_DECIMAL = 11;
+  private static final byte BIG_INTEGER = 12;
+  private static final byte DATE = 13;
+  private static final byte SQL_DATE = 14;
+  private static final byte SQL_TIME = 15;
+  private static final byte SQL_TIMESTAMP = 16;
+  private static final byte BYTE_ARRAY = 17;
+  private static final byte OBJECT_ARRAY = 18;
+  private static final byte ENUM = 19;
+  private static final byte COLLECTION = 20;
+  private static final byte MAP = 21;
+  private static final byte BEAN = 22;
+  private static final byte JAVA = 23;
+
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+  private static final ClassLayout OTHER = new ClassLayout(null, null);
+  private static final ClassLayout CONTAINER = new ClassLayout(null, null);
+  private static final List<String> SERIALIZATION_METHODS = Arrays.asList("writeReplace", "readResolve", "writeObject",
+      "readObject");
+
+  private final ReflectorFactory reflectorFactory = new DefaultReflectorFactory();
+  private final ObjectFactory objectFactory = new DefaultObjectFactory();
+  private final CacheSerializer fallback = new JavaCacheSerializer();
+  private final Map<Class<?>, ClassLayout> layouts = new ConcurrentHashMap<>();
+
+  @Override
+  public byte[] serialize(Object object) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      new Writer(new DataOutputStream(bytes)).writeValue(object);
+      return bytes.toByteArray();
+    } catch (IOException | ReflectiveOperationException e) {
+      throw new CacheException("Error serializing object.  Cause: " + e, e);
+    }
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) {
+    try {
+      return new Reader(new DataInputStream(new ByteArrayInputStream(bytes))).readValue();
+    } catch (IOException | ReflectiveOperationException | ClassCastException e) {
+      throw new CacheException("Error deserializing object.  Cause: " + e, e);
+    }
+  }
+
+  private ClassLayout layoutOf(Class<?> type) {
+    return layouts.computeIfAbsent(type, this::createLayout);
+  }
+
+  private ClassLayout createLayout(Class<?> type) {
+    String name = type.getName();
+    if (Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+      return name.startsWith("java.util.") && hasPublicDefaultConstructor(type) ? CONTAINER : OTHER;
+    }
+    if (name.startsWith("java.") || name.startsWith("javax.") || type.isArray() || type.isEnum()
+        || Modifier.isAbstract(type.getModifiers()) || WriteReplaceInterface.class.isAssignableFrom(type)
+        || Externalizable.class.isAssignableFrom(type) || declaresSerializationMethod(type)) {
+      return OTHER;
+    }
+    Reflector reflector;
+    try {
+      reflector = reflectorFactory.findForClass(type);
+    } catch (RuntimeException e) {
+      return OTHER;
+    }
+    if (!reflector.hasDefaultConstructor()) {
+      return OTHER;
+    }
+    List<String> names = new ArrayList<>();
+    for (String property : reflector.getGetablePropertyNames()) {
+      if (reflector.hasSetter(property) && reflector.getSetterType(property).equals(reflector.getGetterType(property))) {
+        if (reflector.getGetInvoker(property) instanceof AmbiguousMethodInvoker
+            || reflector.getSetInvoker(property) instanceof AmbiguousMethodInvoker) {
+          return OTHER;
+        }
+        names.add(property);
+      }
+    }
+    names.sort(null);
+    return new ClassLayout(reflector, names);
+  }
+
+  private static boolean hasPublicDefaultConstructor(Class<?> type) {
+    try {
+      return Modifier.isPublic(type.getModifiers()) && type.getConstructor() != null;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private static boolean declaresSerializationMethod(Class<?> type) {
+    for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+      for (Method method : current.getDeclaredMethods()) {
+        if (SERIALIZATION_METHODS.contains(method.getName())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean hasComparator(Object container) {
+    return container instanceof SortedMap && ((SortedMap<?, ?>) container).comparator() != null
+        || container instanceof SortedSet && ((SortedSet<?>) container).comparator() != null;
+  }
+
+  /**
+   * The properties of a result class in the order they are written.
+   */
+  private static class ClassLayout {
+    private final String[] properties;
+    private final Class<?>[] types;
+    private final Invoker[] getters;
+    private final Invoker[] setters;
+    private final int hash;
+
+    ClassLayout(Reflector reflector, List<String> names) {
+      int count = names == null ? 0 : names.size();
+      properties = new String[count];
+      types = new Class<?>[count];
+      getters = new Invoker[count];
+      setters = new Invoker[count];
+      int h = 0;
+      for (int i = 0; i < count; i++) {
+        properties[i] = names.get(i);
+        types[i] = reflector.getGetterType(properties[i]);
+        getters[i] = reflector.getGetInvoker(properties[i]);
+        setters[i] = reflector.getSetInvoker(properties[i]);
+        h = 31 * (31 * h + properties[i].hashCode()) + types[i].getName().hashCode();
+      }
+      hash = h;
+    }
+  }
+
+  private class Writer {
+    private final DataOutputStream out;
+    private final Map<Object, Integer> handles = new IdentityHashMap<>();
+    private final Map<Class<?>, Integer> classes = new IdentityHashMap<>();
+
+    Writer(DataOutputStream out) {
+      this.out = out;
+    }
+
+    void writeValue(Object value) throws IOException, ReflectiveOperationException {
+      if (value == null) {
+        out.writeByte(NULL);
+        return;
+      }
+      Integer handle = handles.get(value);
+      if (handle != null) {
+        out.writeByte(REFERENCE);
+        out.writeInt(handle);
+        return;
+      }
+      Class<?> type = value.getClass();
+      if (type == String.class) {
+        out.writeByte(STRING);
+        writeString((String) value);
+      } else if (type == Integer.class) {
+        out.writeByte(INTEGER);
+        out.writeInt((Integer) value);
+      } else if (type == Long.class) {
+        out.writeByte(LONG);
+        out.writeLong((Long) value);
+      } else if (type == Short.class) {
+        out.writeByte(SHORT);
+        out.writeShort((Short) value);
+      } else if (type == Byte.class) {
+        out.writeByte(BYTE);
+        out.writeByte((Byte) value);
+      } else if (type == Boolean.class) {
+        out.writeByte(BOOLEAN);
+        out.writeBoolean((Boolean) value);
+      } else if (type == Character.class) {
+        out.writeByte(CHARACTER);
+        out.writeChar((Character) value);
+      } else if (type == Float.class) {
+        out.writeByte(FLOAT);
+        out.writeFloat((Float) value);
+      } else if (type == Double.class) {
+        out.writeByte(DOUBLE);
+        out.writeDouble((Double) value);
+      } else if (type == BigDecimal.class) {
+        out.writeByte(BIG_DECIMAL);
+        out.writeInt(((BigDecimal) value).scale());
+        writeBytes(((BigDecimal) value).unscaledValue().toByteArray());
+      } else if (type == BigInteger.class) {
+        out.writeByte(BIG_INTEGER);
+        writeBytes(((BigInteger) value).toByteArray());
+      } else if (type == Date.class) {
+        out.writeByte(DATE);
+        out.writeLong(((Date) value).getTime());
+      } else if (type == java.sql.Date.class) {
+        out.writeByte(SQL_DATE);
+        out.writeLong(((Date) value).getTime());
+      } else if (type == Time.class) {
+        out.writeByte(SQL_TIME);
+        out.writeLong(((Date) value).getTime());
+      } else if (type == Timestamp.class) {
+        out.writeByte(SQL_TIMESTAMP);
+        out.writeLong(((Timestamp) value).getTime());
+        out.writeInt(((Timestamp) value).getNanos());
+      } else if (type == byte[].class) {
+        out.writeByte(BYTE_ARRAY);
+        writeBytes((byte[]) value);
+      } else if (value instanceof Object[]) {
+        writeArray((Object[]) value);
+      } else if (value instanceof Enum) {
+        out.writeByte(ENUM);
+        writeClass(((Enum<?>) value).getDeclaringClass());
+        writeString(((Enum<?>) value).name());
+      } else {
+        writeObject(value, type);
+      }
+    }
+
+    private void writeArray(Object[] array) throws IOException, ReflectiveOperationException {
+      handles.put(array, handles.size());
+      out.writeByte(OBJECT_ARRAY);
+      writeClass(array.getClass().getComponentType());
+      out.writeInt(array.length);
+      for (Object element : array) {
+        writeValue(element);
+      }
+    }
+
+    private void writeObject(Object value, Class<?> type) throws IOException, ReflectiveOperationException {
+      ClassLayout layout = layoutOf(type);
+      if (layout == CONTAINER && !hasComparator(value)) {
+        handles.put(value, handles.size());
+        if (value instanceof Collection) {
+          Collection<?> collection = (Collection<?>) value;
+          out.writeByte(COLLECTION);
+          writeClass(type);
+          out.writeInt(collection.size());
+          for (Object element : collection) {
+            writeValue(element);
+          }
+        } else {
+          Map<?, ?> map = (Map<?, ?>) value;
+          out.writeByte(MAP);
+          writeClass(type);
+          out.writeInt(map.size());
+          for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeValue(entry.getKey());
+            writeValue(entry.getValue());
+          }
+        }
+      } else if (layout != CONTAINER && layout != OTHER) {
+        handles.put(value, handles.size());
+        out.writeByte(BEAN);
+        if (writeClass(type)) {
+          out.writeInt(layout.hash);
+        }
+        for (int i = 0; i < layout.getters.length; i++) {
+          writeProperty(layout.types[i], layout.getters[i].invoke(value, NO_ARGUMENTS));
+        }
+      } else {
+        out.writeByte(JAVA);
+        CacheSerializer previous = AbstractSerialStateHolder.useUserBeanSerializer(SchemaCacheSerializer.this);
+        try {
+          writeBytes(fallback.serialize(value));
+        } finally {
+          AbstractSerialStateHolder.useUserBeanSerializer(previous);
+        }
+      }
+    }
+
+    private void writeProperty(Class<?> type, Object value) throws IOException, ReflectiveOperationException {
+      if (type == int.class) {
+        out.writeInt((Integer) value);
+      } else if (type == long.class) {
+        out.writeLong((Long) value);
+      } else if (type == boolean.class) {
+        out.writeBoolean((Boolean) value);
+      } else if (type == double.class) {
+        out.writeDouble((Double) value);
+      } else if (type == float.class) {
+        out.writeFloat((Float) value);
+      } else if (type == short.class) {
+        out.writeShort((Short) value);
+      } else if (type == byte.class) {
+        out.writeByte((Byte) value);
+      } else if (type == char.class) {
+        out.writeChar((Character) value);
+      } else {
+        writeValue(value);
+      }
+    }
+
+    /**
+     * Writes the name of a class the first time it is used and its index afterwards.
+     *
+     * @return true if the name was written
+     */
+    private boolean writeClass(Class<?> type) throws IOException {
+      Integer index = classes.get(type);
+      if (index != null) {
+        out.writeInt(index);
+        return false;
+      }
+      classes.put(type, classes.size());
+      out.writeInt(-1);
+      writeString(type.getName());
+      return true;
+    }
+
+    private void writeString(String value) throws IOException {
+      writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] value) throws IOException {
+      out.writeInt(value.length);
+      out.write(value);
+    }
+  }
+
+  private class Reader {
+    private final DataInputStream in;
+    private final List<Object> handles = new ArrayList<>();
+    private final List<Class<?>> classes = new ArrayList<>();
+    private boolean classDefined;
+
+    Reader(DataInputStream in) {
+      this.in = in;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    Object readValue() throws IOException, ReflectiveOperationException {
+      byte tag = in.readByte();
+      switch (tag) {
+        case NULL:
+          return null;
+        case REFERENCE:
+          return handles.get(in.readInt());
+        case STRING:
+          return readString();
+        case INTEGER:
+          return in.readInt();
+        case LONG:
+          return in.readLong();
+        case SHORT:
+          return in.readShort();
+        case BYTE:
+          return in.readByte();
+        case BOOLEAN:
+          return in.readBoolean();
+        case CHARACTER:
+          return in.readChar();
+        case FLOAT:
+          return in.readFloat();
+        case DOUBLE:
+          return in.readDouble();
+        case BIG_DECIMAL:
+          int scale = in.readInt();
+          return new BigDecimal(new BigInteger(readBytes()), scale);
+        case BIG_INTEGER:
+          return new BigInteger(readBytes());
+        case DATE:
+          return new Date(in.readLong());
+        case SQL_DATE:
+          return new java.sql.Date(in.readLong());
+        case SQL_TIME:
+          return new Time(in.readLong());
+        case SQL_TIMESTAMP:
+          Timestamp timestamp = new Timestamp(in.readLong());
+          timestamp.setNanos(in.readInt());
+          return timestamp;
+        case BYTE_ARRAY:
+          return readBytes();
+        case OBJECT_ARRAY:
+          return readArray();
+        case ENUM:
+          return Enum.valueOf((Class<? extends Enum>) readClass(), readString());
+        case COLLECTION:
+          return readCollection();
+        case MAP:
+          return readMap();
+        case BEAN:
+          return readBean();
+        case JAVA:
+          CacheSerializer previous = AbstractSerialStateHolder.useUserBeanSerializer(SchemaCacheSerializer.this);
+          try {
+            return fallback.deserialize(readBytes());
+          } finally {
+            AbstractSerialStateHolder.useUserBeanSerializer(previous);
+          }
+        default:
+          throw new CacheException("Unknown type tag " + tag + " in serialized cache entry.");
+      }
+    }
+
+    private Object[] readArray() throws IOException, ReflectiveOperationException {
+      Class<?> componentType = readClass();
+      Object[] array = (Object[]) java.lang.reflect.Array.newInstance(componentType, in.readInt());
+      handles.add(array);
+      for (int i = 0; i < array.length; i++) {
+        array[i] = readValue();
+      }
+      return array;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<Object> readCollection() throws IOException, ReflectiveOperationException {
+      Collection<Object> collection = (Collection<Object>) objectFactory.create(readClass());
+      handles.add(collection);
+      for (int size = in.readInt(); size > 0; size--) {
+        collection.add(readValue());
+      }
+      return collection;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Object, Object> readMap() throws IOException, ReflectiveOperationException {
+      Map<Object, Object> map = (Map<Object, Object>) objectFactory.create(readClass());
+      handles.add(map);
+      for (int size = in.readInt(); size > 0; size--) {
+        Object key = readValue();
+        map.put(key, readValue());
+      }
+      return map;
+    }
+
+    private Object readBean() throws IOException, ReflectiveOperationException {
+      Class<?> type = readClass();
+      ClassLayout layout = layoutOf(type);
+      if (classDefined && in.readInt() != layout.hash) {
+        throw new CacheException("The properties of " + type + " changed since it was serialized.");
+      }
+      Object bean = objectFactory.create(type);
+      handles.add(bean);
+      for (int i = 0; i < layout.setters.length; i++) {
+        layout.setters[i].invoke(bean, new Object[] { readProperty(layout.types[i]) });
+      }
+      return bean;
+    }
+
+    private Object readProperty(Class<?> type) throws IOException, ReflectiveOperationException {
+      if (type == int.class) {
+        return in.readInt();
+      } else if (type == long.class) {
+        return in.readLong();
+      } else if (type == boolean.class) {
+        return in.readBoolean();
+      } else if (type == double.class) {
+        return in.readDouble();
+      } else if (type == float.class) {
+        return in.readFloat();
+      } else if (type == short.class) {
+        return in.readShort();
+      } else if (type == byte.class) {
+        return in.readByte();
+      } else if (type == char.class) {
+        return in.readChar();
+      }
+      return readValue();
+    }
+
+    private Class<?> readClass() throws IOException, ClassNotFoundException {
+      int index = in.readInt();
+      classDefined = index < 0;
+      if (!classDefined) {
+        return classes.get(index);
+      }
+      String className = readString();
+      AbstractSerialStateHolder.checkDeserializationAllowed(className);
+      Class<?> type = Resources.classForName(className);
+      classes.add(type);
+      return type;
+    }
+
+    private String readString() throws IOException {
+      return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes() throws IOException {
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      return bytes;
+    }
+  }
+
+}
@@ -0,0 +1,108 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+/**
+ * Interfaces of a backpressure-aware stream of query results.
+ * <p>
+ * They have the same shape and contract as {@code java.util.concurrent.Flow} and the Reactive Streams API, which are
+ * not available on the Java version MyBatis is built for. Adapting a publisher to either of them is a matter of
+ * delegating each method.
+ *
+ * @since 3.5.6
+ */
+public final class Flow {
+
+  private Flow() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * A producer of items that emits them to a subscriber as requested.
+   *
+   * @param <T>
+   *          the item type
+   */
+  @FunctionalInterface
+  public interface Publisher<T> {
+
+    /**
+     * Adds a subscriber. {@link Subscriber#onSubscribe(Subscription)} is called before any other signal.
+     *
+     * @param subscriber
+     *          the subscriber
+     */
+    void subscribe(Subscriber<? super T> subscriber);
+  }
+
+  /**
+   * A receiver of items. Signals are never sent concurrently.
+   *
+   * @param <T>
+   *          the item type
+   */
+  public interface Subscriber<T> {
+
+    /**
+     * Called once before any other method, with the subscription used to request items.
+     *
+     * @param subscription
+     *          the subscription
+     */
+    void onSubscribe(Subscription subscription);
+
+    /**
+     * Called with the next item, never more often than requested.
+     *
+     * @param item
+     *          the item
+     */
+    void onNext(T item);
+
+    /**
+     * Called once when the publisher failed. No other signal follows.
+     *
+     * @param throwable
+     *          the cause
+     */
+    void onError(Throwable throwable);
+
+    /**
+     * Called once when all items have been emitted. No other signal follows.
+     */
+    void onComplete();
+  }
+
+  /**
+   * The link between a publisher and a subscriber.
+   */
+  public interface Subscription {
+
+    /**
+     * Adds to the number of items the subscriber is ready to receive. {@link Long#MAX_VALUE} means unbounded.
+     *
+     * @param n
+     *          the number of items, must be positive
+     */
+    void request(long n);
+
+    /**
+     * Stops the emission of items and releases the resources held by the publisher.
+     */
+    void cancel();
+  }
+
+}
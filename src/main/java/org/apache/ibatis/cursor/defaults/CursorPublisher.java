@@ -0,0 +1,207 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.Flow;
+
+/**
+ * A publisher that emits the items of a {@link Cursor} as they are requested by its subscriber.
+ * <p>
+ * The cursor is opened when the first item is requested, and rows are read from the result set only to satisfy the
+ * outstanding demand: no item is fetched ahead and no thread is started. Items are fetched and emitted by the thread
+ * that calls {@link Flow.Subscription#request(long)}, so a subscriber that must not block should request from a thread
+ * that may wait for the database. The cursor, and the statement behind it, is closed on completion, on error, including
+ * an exception thrown by {@code onNext}, and on cancellation.
+ * <p>
+ * Like the cursor it wraps, this publisher can be subscribed only once, and the session that opens the cursor must stay
+ * open until the subscription ends.
+ *
+ * @param <T>
+ *          the item type
+ * @since 3.5.6
+ */
+public class CursorPublisher<T> implements Flow.Publisher<T> {
+
+  private final Supplier<Cursor<T>> cursorSupplier;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  /**
+   * @param cursorSupplier
+   *          opens the cursor, called at most once
+   */
+  public CursorPublisher(Supplier<Cursor<T>> cursorSupplier) {
+    this.cursorSupplier = cursorSupplier;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super T> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("The subscriber must not be null");
+    }
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(CancelledSubscription.INSTANCE);
+      subscriber.onError(new IllegalStateException("A cursor publisher can be subscribed only once"));
+      return;
+    }
+    subscriber.onSubscribe(new CursorSubscription<>(cursorSupplier, subscriber));
+  }
+
+  private static class CursorSubscription<T> implements Flow.Subscription {
+
+    private final Supplier<Cursor<T>> cursorSupplier;
+    private final Flow.Subscriber<? super T> subscriber;
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile IllegalArgumentException invalidRequest;
+
+    // only accessed by the thread draining
+    private Cursor<T> cursor;
+    private Iterator<T> iterator;
+    private boolean done;
+
+    CursorSubscription(Supplier<Cursor<T>> cursorSupplier, Flow.Subscriber<? super T> subscriber) {
+      this.cursorSupplier = cursorSupplier;
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException("The number of requested items must be positive but was " + n);
+      } else {
+        requested.accumulateAndGet(n, (current, added) -> {
+          long sum = current + added;
+          return sum < 0 ? Long.MAX_VALUE : sum;
+        });
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      drain();
+    }
+
+    /**
+     * Only one thread emits at a time. A request made while items are emitted, including one made by the subscriber
+     * from {@code onNext}, is served by the emitting thread once the current loop ends instead of recursing.
+     */
+    private void drain() {
+      if (pendingDrains.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        if (!done) {
+          emit();
+        }
+        missed = pendingDrains.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void emit() {
+      long demand = requested.get();
+      long emitted = 0;
+      while (true) {
+        if (cancelled) {
+          close();
+          return;
+        }
+        if (invalidRequest != null) {
+          close();
+          subscriber.onError(invalidRequest);
+          return;
+        }
+        if (emitted == demand) {
+          break;
+        }
+        T item;
+        try {
+          if (iterator == null) {
+            cursor = cursorSupplier.get();
+            iterator = cursor.iterator();
+          }
+          if (!iterator.hasNext()) {
+            close();
+            subscriber.onComplete();
+            return;
+          }
+          item = iterator.next();
+        } catch (RuntimeException e) {
+          close();
+          subscriber.onError(e);
+          return;
+        }
+        try {
+          subscriber.onNext(item);
+        } catch (RuntimeException e) {
+          // the subscriber failed, the subscription ends so that the cursor is not left open
+          close();
+          subscriber.onError(e);
+          return;
+        }
+        emitted++;
+      }
+      if (cursor != null && cursor.isConsumed() && !cancelled) {
+        // the cursor already knows there is nothing left, no need to wait for more demand
+        close();
+        subscriber.onComplete();
+        return;
+      }
+      if (emitted != 0 && demand != Long.MAX_VALUE) {
+        requested.addAndGet(-emitted);
+      }
+    }
+
+    private void close() {
+      done = true;
+      if (cursor != null) {
+        try {
+          cursor.close();
+        } catch (IOException e) {
+          // ignore
+        }
+        cursor = null;
+        iterator = null;
+      }
+    }
+  }
+
+  private enum CancelledSubscription implements Flow.Subscription {
+    INSTANCE;
+
+    @Override
+    public void request(long n) {
+      // NOP
+    }
+
+    @Override
+    public void cancel() {
+      // NOP
+    }
+  }
+
+}
@@ -0,0 +1,280 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The lock-free connection container behind {@link PoolMode#CONCURRENT}.
+ * <p>
+ * Every physical connection is held by an {@link Entry} whose state is switched with compare-and-set, so checkout and
+ * return never take a shared lock. A thread first retries the entries it returned most recently, then scans the shared
+ * list. A thread that has to wait registers itself as a waiter and a returning thread hands its entry directly to one
+ * waiter instead of waking every blocked thread.
+ */
+class ConcurrentConnectionBag {
+
+  static final int STATE_NOT_IN_USE = 0;
+  static final int STATE_IN_USE = 1;
+  static final int STATE_REMOVED = -1;
+
+  private static final int MAX_THREAD_LOCAL_ENTRIES = 16;
+
+  private final CopyOnWriteArrayList<Entry> sharedList = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<List<WeakReference<Entry>>> threadList = ThreadLocal.withInitial(ArrayList::new);
+  private final SynchronousQueue<Entry> handoffQueue = new SynchronousQueue<>(true);
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final AtomicInteger reservedCount = new AtomicInteger();
+  private final AtomicInteger idleCount = new AtomicInteger();
+
+  /**
+   * Claims an idle entry without blocking.
+   *
+   * @return the claimed entry, or null if every entry is in use
+   */
+  Entry borrow() {
+    List<WeakReference<Entry>> list = threadList.get();
+    for (int i = list.size() - 1; i >= 0; i--) {
+      Entry entry = list.remove(i).get();
+      if (entry != null && claim(entry)) {
+        return entry;
+      }
+    }
+    return scan();
+  }
+
+  /**
+   * Waits until another thread returns an entry or the timeout elapses.
+   *
+   * @param timeout
+   *          the maximum time to wait
+   * @param unit
+   *          the unit of the timeout
+   * @return the claimed entry, or null if the timeout elapsed
+   * @throws InterruptedException
+   *           if the waiting thread is interrupted
+   */
+  Entry await(long timeout, TimeUnit unit) throws InterruptedException {
+    waiters.incrementAndGet();
+    try {
+      // an entry may have been returned before this thread was registered as a waiter
+      Entry entry = scan();
+      if (entry != null) {
+        return entry;
+      }
+      long remaining = unit.toNanos(timeout);
+      while (remaining > 0) {
+        long start = System.nanoTime();
+        entry = handoffQueue.poll(remaining, TimeUnit.NANOSECONDS);
+        if (entry == null || claim(entry)) {
+          return entry;
+        }
+        remaining -= System.nanoTime() - start;
+      }
+      return null;
+    } finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  /**
+   * Returns a borrowed entry, handing it to a waiting thread if there is one.
+   *
+   * @param entry
+   *          the entry to return
+   */
+  void requite(Entry entry) {
+    if (!entry.state.compareAndSet(STATE_IN_USE, STATE_NOT_IN_USE)) {
+      return;
+    }
+    idleCount.incrementAndGet();
+    for (int i = 0; waiters.get() > 0; i++) {
+      if (entry.state.get() != STATE_NOT_IN_USE || handoffQueue.offer(entry)) {
+        return;
+      } else if ((i & 0xff) == 0xff) {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+      } else {
+        Thread.yield();
+      }
+    }
+    List<WeakReference<Entry>> list = threadList.get();
+    if (list.size() < MAX_THREAD_LOCAL_ENTRIES) {
+      list.add(new WeakReference<>(entry));
+    }
+  }
+
+  /**
+   * Reserves a slot for a new physical connection.
+   *
+   * @param maximum
+   *          the maximum number of connections the bag may hold
+   * @return true if a slot was reserved and the caller must either {@link #add(Connection)} or {@link #cancelReservation()}
+   */
+  boolean reserve(int maximum) {
+    for (;;) {
+      int count = reservedCount.get();
+      if (count >= maximum) {
+        return false;
+      }
+      if (reservedCount.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+  }
+
+  void cancelReservation() {
+    reservedCount.decrementAndGet();
+  }
+
+  /**
+   * Adds a new physical connection into a previously reserved slot. The entry is returned already in use.
+   *
+   * @param realConnection
+   *          the new physical connection
+   * @return the new entry
+   */
+  Entry add(Connection realConnection) {
+    Entry entry = new Entry(realConnection);
+    sharedList.add(entry);
+    return entry;
+  }
+
+  /**
+   * Removes an entry from the bag. The caller is responsible for closing the physical connection.
+   *
+   * @param entry
+   *          the entry to remove
+   * @return true if this call removed the entry
+   */
+  boolean remove(Entry entry) {
+    int previous = entry.state.getAndSet(STATE_REMOVED);
+    if (previous == STATE_REMOVED) {
+      return false;
+    }
+    if (previous == STATE_NOT_IN_USE) {
+      idleCount.decrementAndGet();
+    }
+    sharedList.remove(entry);
+    reservedCount.decrementAndGet();
+    return true;
+  }
+
+  List<Entry> entries() {
+    return new ArrayList<>(sharedList);
+  }
+
+  int getIdleCount() {
+    return idleCount.get();
+  }
+
+  int getActiveCount() {
+    return sharedList.size() - idleCount.get();
+  }
+
+  private Entry scan() {
+    for (Entry entry : sharedList) {
+      if (claim(entry)) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Claims a specific entry if it is idle.
+   *
+   * @param entry
+   *          the entry to claim
+   * @return true if the entry was idle and now belongs to the caller
+   */
+  boolean claim(Entry entry) {
+    if (entry.state.compareAndSet(STATE_NOT_IN_USE, STATE_IN_USE)) {
+      idleCount.decrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * A physical connection and the timestamps that survive from one checkout to the next.
+   */
+  static class Entry {
+
+    private final Connection realConnection;
+    private final AtomicInteger state = new AtomicInteger(STATE_IN_USE);
+    private final AtomicReference<PooledConnection> borrowed = new AtomicReference<>();
+    private final long createdTimestamp;
+    private volatile long lastUsedTimestamp;
+
+    Entry(Connection realConnection) {
+      this.realConnection = realConnection;
+      this.createdTimestamp = System.currentTimeMillis();
+      this.lastUsedTimestamp = createdTimestamp;
+    }
+
+    Connection getRealConnection() {
+      return realConnection;
+    }
+
+    long getCreatedTimestamp() {
+      return createdTimestamp;
+    }
+
+    long getLastUsedTimestamp() {
+      return lastUsedTimestamp;
+    }
+
+    void setLastUsedTimestamp(long lastUsedTimestamp) {
+      this.lastUsedTimestamp = lastUsedTimestamp;
+    }
+
+    boolean isInUse() {
+      return state.get() == STATE_IN_USE;
+    }
+
+    PooledConnection getBorrowed() {
+      return borrowed.get();
+    }
+
+    void setBorrowed(PooledConnection conn) {
+      borrowed.set(conn);
+    }
+
+    /**
+     * Replaces the current borrower, used when an overdue connection is claimed by another thread.
+     */
+    boolean replaceBorrowed(PooledConnection expected, PooledConnection conn) {
+      return borrowed.compareAndSet(expected, conn);
+    }
+
+    /**
+     * Detaches the borrower on return; fails if the connection was claimed by another thread in the meantime.
+     */
+    boolean releaseBorrowed(PooledConnection conn) {
+      return borrowed.compareAndSet(conn, null);
+    }
+  }
+
+}
@@ -0,0 +1,68 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Periodically runs {@link PooledDataSource#housekeep()} on a daemon thread.
+ * <p>
+ * Only a weak reference to the data source is held, so an abandoned pool can still be collected; the housekeeper stops
+ * itself once that happens.
+ */
+class PoolHousekeeper implements Runnable {
+
+  private static final Log log = LogFactory.getLog(PoolHousekeeper.class);
+
+  private final WeakReference<PooledDataSource> dataSource;
+  private final ScheduledExecutorService scheduler;
+
+  PoolHousekeeper(PooledDataSource dataSource, long period) {
+    this.dataSource = new WeakReference<>(dataSource);
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "mybatis-pool-housekeeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.scheduler.scheduleWithFixedDelay(this, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void run() {
+    PooledDataSource ds = dataSource.get();
+    if (ds == null) {
+      shutdown();
+      return;
+    }
+    try {
+      ds.housekeep();
+    } catch (RuntimeException e) {
+      // an exception would cancel every subsequent run
+      log.warn("Pool housekeeping failed: " + e.getMessage());
+    }
+  }
+
+  void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+}
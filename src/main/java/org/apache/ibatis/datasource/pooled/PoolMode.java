@@ -0,0 +1,33 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+/**
+ * The strategy {@link PooledDataSource} uses to hand out and take back connections.
+ *
+ * @since 3.5.6
+ */
+public enum PoolMode {
+  /**
+   * Every checkout and return is serialized on the pool state lock (the default).
+   */
+  SYNCHRONIZED,
+  /**
+   * Connections are claimed with compare-and-set from a concurrent bag, returned connections are handed directly to
+   * one waiting thread, and statistics are kept in striped counters.
+   */
+  CONCURRENT
+}
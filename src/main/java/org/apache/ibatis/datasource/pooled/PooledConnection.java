@@ -39,7 +39,8 @@ class PooledConnection implements InvocationHandler {
   private long createdTimestamp;
   private long lastUsedTimestamp;
   private int connectionTypeCode;
-  private boolean valid;
+  private volatile boolean valid;
+  private ConcurrentConnectionBag.Entry bagEntry;
 
   /**
    * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in.
@@ -75,6 +76,19 @@ class PooledConnection implements InvocationHandler {
     return valid && realConnection != null && dataSource.pingConnection(this);
   }
 
+  /**
+   * Getter for the bag entry this connection was borrowed from when the pool runs in {@link PoolMode#CONCURRENT}.
+   *
+   * @return The bag entry, or null
+   */
+  ConcurrentConnectionBag.Entry getBagEntry() {
+    return bagEntry;
+  }
+
+  void setBagEntry(ConcurrentConnectionBag.Entry bagEntry) {
+    this.bagEntry = bagEntry;
+  }
+
   /**
    * Getter for the *real* connection that this wraps.
    *
@@ -22,7 +22,11 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
@@ -33,6 +37,7 @@ import org.apache.ibatis.logging.LogFactory;
 
 /**
  * This is a simple, synchronous, thread-safe database connection pool.
+ * Setting {@link PoolMode#CONCURRENT} switches it to a lock-free checkout path.
  *
  * @author Clinton Begin
  */
@@ -53,8 +58,21 @@ public class PooledDataSource implements DataSource {
   protected String poolPingQuery = "NO PING QUERY SET";
   protected boolean poolPingEnabled;
   protected int poolPingConnectionsNotUsedFor;
+  protected PoolMode poolMode = PoolMode.SYNCHRONIZED;
+  protected int poolMinimumIdleConnections;
+  protected int poolMaximumLifetime;
+  protected int poolMaximumIdleTime;
+  protected int poolHousekeepingPeriod;
 
-  private int expectedConnectionTypeCode;
+  private volatile int expectedConnectionTypeCode;
+
+  // non-null only in PoolMode.CONCURRENT
+  volatile ConcurrentConnectionBag bag;
+
+  private volatile PoolHousekeeper housekeeper;
+
+  // idle connections the housekeeper is running the ping query against, guarded by state.lock
+  private final List<PooledConnection> validatingConnections = new ArrayList<>();
 
   public PooledDataSource() {
     dataSource = new UnpooledDataSource();
@@ -86,11 +104,18 @@ public class PooledDataSource implements DataSource {
 
   @Override
   public Connection getConnection() throws SQLException {
-    return popConnection(dataSource.getUsername(), dataSource.getPassword()).getProxyConnection();
+    return getConnection(dataSource.getUsername(), dataSource.getPassword());
   }
 
   @Override
   public Connection getConnection(String username, String password) throws SQLException {
+    if (housekeeper == null && poolHousekeepingPeriod > 0) {
+      startHousekeeper();
+    }
+    ConcurrentConnectionBag bag = this.bag;
+    if (bag != null) {
+      return popConnection(bag, username, password).getProxyConnection();
+    }
     return popConnection(username, password).getProxyConnection();
   }
 
@@ -254,6 +279,88 @@ public class PooledDataSource implements DataSource {
     forceCloseAll();
   }
 
+  /**
+   * The strategy used to check out and return connections.
+   *
+   * @param poolMode
+   *          {@link PoolMode#SYNCHRONIZED} (the default) or {@link PoolMode#CONCURRENT}
+   * @since 3.5.6
+   */
+  public void setPoolMode(PoolMode poolMode) {
+    forceCloseAll();
+    this.poolMode = poolMode == null ? PoolMode.SYNCHRONIZED : poolMode;
+    this.bag = this.poolMode == PoolMode.CONCURRENT ? new ConcurrentConnectionBag() : null;
+  }
+
+  /**
+   * The number of idle connections the housekeeper keeps open, bounded by the maximum number of active and idle
+   * connections.
+   *
+   * @param poolMinimumIdleConnections
+   *          The minimum number of idle connections
+   * @since 3.5.6
+   */
+  public void setPoolMinimumIdleConnections(int poolMinimumIdleConnections) {
+    this.poolMinimumIdleConnections = poolMinimumIdleConnections;
+  }
+
+  /**
+   * The age after which the housekeeper closes an idle connection. 0 (the default) means no limit.
+   *
+   * @param milliseconds
+   *          the maximum age of a connection in milliseconds
+   * @since 3.5.6
+   */
+  public void setPoolMaximumLifetime(int milliseconds) {
+    this.poolMaximumLifetime = milliseconds;
+  }
+
+  /**
+   * The time after which the housekeeper closes a connection that has not been used, as long as more than the minimum
+   * number of idle connections remain. 0 (the default) means no limit.
+   *
+   * @param milliseconds
+   *          the maximum idle time of a connection in milliseconds
+   * @since 3.5.6
+   */
+  public void setPoolMaximumIdleTime(int milliseconds) {
+    this.poolMaximumIdleTime = milliseconds;
+  }
+
+  /**
+   * How often the housekeeper runs. 0 (the default) disables it.
+   * <p>
+   * While the housekeeper runs, the ping query is executed against idle connections on the housekeeper thread
+   * instead of on the thread that checks out a connection. The housekeeper is started by the first checkout.
+   *
+   * @param milliseconds
+   *          the delay between two housekeeping runs in milliseconds
+   * @since 3.5.6
+   */
+  public void setPoolHousekeepingPeriod(int milliseconds) {
+    state.lock.lock();
+    try {
+      this.poolHousekeepingPeriod = milliseconds;
+      if (housekeeper != null) {
+        housekeeper.shutdown();
+        housekeeper = null;
+      }
+    } finally {
+      state.lock.unlock();
+    }
+  }
+
+  private void startHousekeeper() {
+    state.lock.lock();
+    try {
+      if (housekeeper == null && poolHousekeepingPeriod > 0) {
+        housekeeper = new PoolHousekeeper(this, poolHousekeepingPeriod);
+      }
+    } finally {
+      state.lock.unlock();
+    }
+  }
+
   public String getDriver() {
     return dataSource.getDriver();
   }
@@ -324,11 +431,32 @@ public class PooledDataSource implements DataSource {
     return poolPingConnectionsNotUsedFor;
   }
 
+  public PoolMode getPoolMode() {
+    return poolMode;
+  }
+
+  public int getPoolMinimumIdleConnections() {
+    return poolMinimumIdleConnections;
+  }
+
+  public int getPoolMaximumLifetime() {
+    return poolMaximumLifetime;
+  }
+
+  public int getPoolMaximumIdleTime() {
+    return poolMaximumIdleTime;
+  }
+
+  public int getPoolHousekeepingPeriod() {
+    return poolHousekeepingPeriod;
+  }
+
   /**
    * Closes all active and idle connections in the pool.
    */
   public void forceCloseAll() {
-    synchronized (state) {
+    state.lock.lock();
+    try {
       expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
       for (int i = state.activeConnections.size(); i > 0; i--) {
         try {
@@ -344,6 +472,11 @@ public class PooledDataSource implements DataSource {
           // ignore
         }
       }
+      for (PooledConnection conn : validatingConnections) {
+        // closed by the housekeeper once its ping query completes
+        conn.invalidate();
+      }
+      validatingConnections.clear();
       for (int i = state.idleConnections.size(); i > 0; i--) {
         try {
           PooledConnection conn = state.idleConnections.remove(i - 1);
@@ -358,6 +491,20 @@ public class PooledDataSource implements DataSource {
           // ignore
         }
       }
+    } finally {
+      state.lock.unlock();
+    }
+    ConcurrentConnectionBag bag = this.bag;
+    if (bag != null) {
+      for (ConcurrentConnectionBag.Entry entry : bag.entries()) {
+        if (bag.remove(entry)) {
+          PooledConnection conn = entry.getBorrowed();
+          if (conn != null) {
+            conn.invalidate();
+          }
+          closeQuietly(entry.getRealConnection());
+        }
+      }
     }
     if (log.isDebugEnabled()) {
       log.debug("PooledDataSource forcefully closed/removed all connections.");
@@ -373,8 +520,14 @@ public class PooledDataSource implements DataSource {
   }
 
   protected void pushConnection(PooledConnection conn) throws SQLException {
+    ConcurrentConnectionBag.Entry entry = conn.getBagEntry();
+    if (entry != null) {
+      pushConnection(bag, entry, conn);
+      return;
+    }
 
-    synchronized (state) {
+    state.lock.lock();
+    try {
       state.activeConnections.remove(conn);
       if (conn.isValid()) {
         if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
@@ -390,7 +543,7 @@ public class PooledDataSource implements DataSource {
           if (log.isDebugEnabled()) {
             log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
           }
-          state.notifyAll();
+          state.connectionAvailable.signalAll();
         } else {
           state.accumulatedCheckoutTime += conn.getCheckoutTime();
           if (!conn.getRealConnection().getAutoCommit()) {
@@ -408,6 +561,8 @@ public class PooledDataSource implements DataSource {
         }
         state.badConnectionCount++;
       }
+    } finally {
+      state.lock.unlock();
     }
   }
 
@@ -418,7 +573,8 @@ public class PooledDataSource implements DataSource {
     int localBadConnectionCount = 0;
 
     while (conn == null) {
-      synchronized (state) {
+      state.lock.lock();
+      try {
         if (!state.idleConnections.isEmpty()) {
           // Pool has available connection
           conn = state.idleConnections.remove(0);
@@ -427,7 +583,7 @@ public class PooledDataSource implements DataSource {
           }
         } else {
           // Pool does not have available connection
-          if (state.activeConnections.size() < poolMaximumActiveConnections) {
+          if (state.activeConnections.size() + validatingConnections.size() < poolMaximumActiveConnections) {
             // Can create new connection
             conn = new PooledConnection(dataSource.getConnection(), this);
             if (log.isDebugEnabled()) {
@@ -476,7 +632,11 @@ public class PooledDataSource implements DataSource {
                   log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
                 }
                 long wt = System.currentTimeMillis();
-                state.wait(poolTimeToWait);
+                if (poolTimeToWait > 0) {
+                  state.connectionAvailable.await(poolTimeToWait, TimeUnit.MILLISECONDS);
+                } else {
+                  state.connectionAvailable.await();
+                }
                 state.accumulatedWaitTime += System.currentTimeMillis() - wt;
               } catch (InterruptedException e) {
                 break;
@@ -511,6 +671,8 @@ public class PooledDataSource implements DataSource {
             }
           }
         }
+      } finally {
+        state.lock.unlock();
       }
 
     }
@@ -525,6 +687,360 @@ public class PooledDataSource implements DataSource {
     return conn;
   }
 
+  private void pushConnection(ConcurrentConnectionBag bag, ConcurrentConnectionBag.Entry entry, PooledConnection conn) throws SQLException {
+    if (entry.releaseBorrowed(conn) && conn.isValid()) {
+      state.concurrentAccumulatedCheckoutTime.add(conn.getCheckoutTime());
+      try {
+        if (!conn.getRealConnection().getAutoCommit()) {
+          conn.getRealConnection().rollback();
+        }
+        conn.invalidate();
+        if (bag != null && bag.getIdleCount() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
+          entry.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+          bag.requite(entry);
+          if (log.isDebugEnabled()) {
+            log.debug("Returned connection " + conn.getRealHashCode() + " to pool.");
+          }
+        } else {
+          if (bag != null) {
+            bag.remove(entry);
+          }
+          conn.getRealConnection().close();
+          if (log.isDebugEnabled()) {
+            log.debug("Closed connection " + conn.getRealHashCode() + ".");
+          }
+        }
+      } catch (SQLException | RuntimeException e) {
+        // the entry has no borrower any more, so nothing else would ever free its slot
+        conn.invalidate();
+        if (bag == null || bag.remove(entry)) {
+          closeQuietly(entry.getRealConnection());
+        }
+        state.concurrentBadConnectionCount.increment();
+        throw e;
+      }
+    } else {
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      if (bag != null && entry.getBorrowed() == null && bag.remove(entry)) {
+        closeQuietly(entry.getRealConnection());
+      }
+      state.concurrentBadConnectionCount.increment();
+    }
+  }
+
+  private PooledConnection popConnection(ConcurrentConnectionBag bag, String username, String password) throws SQLException {
+    boolean countedWait = false;
+    long t = System.currentTimeMillis();
+    int localBadConnectionCount = 0;
+
+    while (true) {
+      PooledConnection conn = null;
+      ConcurrentConnectionBag.Entry entry = bag.borrow();
+      if (entry != null) {
+        // Pool has available connection
+        conn = wrapConnection(entry);
+        if (log.isDebugEnabled()) {
+          log.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
+        }
+      } else if (bag.reserve(poolMaximumActiveConnections)) {
+        // Can create new connection
+        Connection realConnection;
+        try {
+          realConnection = dataSource.getConnection();
+        } catch (SQLException | RuntimeException e) {
+          bag.cancelReservation();
+          throw e;
+        }
+        entry = bag.add(realConnection);
+        conn = wrapConnection(entry);
+        if (log.isDebugEnabled()) {
+          log.debug("Created connection " + conn.getRealHashCode() + ".");
+        }
+      } else {
+        conn = claimOverdueConnection(bag);
+        if (conn != null) {
+          entry = conn.getBagEntry();
+        } else {
+          // Must wait
+          if (!countedWait) {
+            state.concurrentHadToWaitCount.increment();
+            countedWait = true;
+          }
+          if (log.isDebugEnabled()) {
+            log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+          }
+          long wt = System.currentTimeMillis();
+          try {
+            entry = bag.await(poolTimeToWait, TimeUnit.MILLISECONDS);
+          } catch (InterruptedException e) {
+            break;
+          } finally {
+            state.concurrentAccumulatedWaitTime.add(System.currentTimeMillis() - wt);
+          }
+          if (entry != null) {
+            conn = wrapConnection(entry);
+          }
+        }
+      }
+      if (conn != null) {
+        // ping to server and check the connection is valid or not
+        if (conn.isValid()) {
+          if (!conn.getRealConnection().getAutoCommit()) {
+            conn.getRealConnection().rollback();
+          }
+          conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
+          conn.setCheckoutTimestamp(System.currentTimeMillis());
+          conn.setLastUsedTimestamp(System.currentTimeMillis());
+          state.concurrentRequestCount.increment();
+          state.concurrentAccumulatedRequestTime.add(System.currentTimeMillis() - t);
+          return conn;
+        }
+        if (log.isDebugEnabled()) {
+          log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
+        }
+        if (bag.remove(entry)) {
+          closeQuietly(entry.getRealConnection());
+        }
+        state.concurrentBadConnectionCount.increment();
+        localBadConnectionCount++;
+        if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
+          if (log.isDebugEnabled()) {
+            log.debug("PooledDataSource: Could not get a good connection to the database.");
+          }
+          throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
+        }
+      }
+    }
+
+    if (log.isDebugEnabled()) {
+      log.debug("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+    }
+    throw new SQLException("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+  }
+
+  private PooledConnection claimOverdueConnection(ConcurrentConnectionBag bag) {
+    for (ConcurrentConnectionBag.Entry entry : bag.entries()) {
+      PooledConnection oldestActiveConnection = entry.getBorrowed();
+      if (!entry.isInUse() || oldestActiveConnection == null) {
+        continue;
+      }
+      long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
+      if (longestCheckoutTime <= poolMaximumCheckoutTime) {
+        continue;
+      }
+      PooledConnection conn = new PooledConnection(entry.getRealConnection(), this);
+      conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
+      conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
+      conn.setCheckoutTimestamp(System.currentTimeMillis());
+      conn.setBagEntry(entry);
+      if (!entry.replaceBorrowed(oldestActiveConnection, conn)) {
+        // returned or claimed by another thread in the meantime
+        continue;
+      }
+      // Can claim overdue connection
+      oldestActiveConnection.invalidate();
+      state.concurrentClaimedOverdueConnectionCount.increment();
+      state.concurrentAccumulatedCheckoutTimeOfOverdueConnections.add(longestCheckoutTime);
+      state.concurrentAccumulatedCheckoutTime.add(longestCheckoutTime);
+      try {
+        if (!entry.getRealConnection().getAutoCommit()) {
+          entry.getRealConnection().rollback();
+        }
+      } catch (SQLException e) {
+        // same as the synchronized pool: the ping on checkout decides whether the connection is still usable
+        log.debug("Bad connection. Could not roll back");
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
+      }
+      return conn;
+    }
+    return null;
+  }
+
+  private PooledConnection wrapConnection(ConcurrentConnectionBag.Entry entry) {
+    PooledConnection conn = new PooledConnection(entry.getRealConnection(), this);
+    conn.setCreatedTimestamp(entry.getCreatedTimestamp());
+    conn.setLastUsedTimestamp(entry.getLastUsedTimestamp());
+    // stamped before it is published so that it cannot be mistaken for an overdue connection
+    conn.setCheckoutTimestamp(System.currentTimeMillis());
+    conn.setBagEntry(entry);
+    entry.setBorrowed(conn);
+    return conn;
+  }
+
+  /**
+   * Closes idle connections that outlived {@link #poolMaximumLifetime} or {@link #poolMaximumIdleTime}, runs the ping
+   * query against the remaining idle connections and opens new connections until
+   * {@link #poolMinimumIdleConnections} are idle. Called by the housekeeper thread.
+   */
+  void housekeep() {
+    ConcurrentConnectionBag bag = this.bag;
+    if (bag != null) {
+      housekeep(bag);
+    } else {
+      housekeepIdleConnections();
+    }
+  }
+
+  private void housekeepIdleConnections() {
+    List<PooledConnection> expiredConnections = new ArrayList<>();
+    List<PooledConnection> uncheckedConnections = new ArrayList<>();
+    state.lock.lock();
+    try {
+      int idleCount = state.idleConnections.size();
+      for (Iterator<PooledConnection> iterator = state.idleConnections.iterator(); iterator.hasNext();) {
+        PooledConnection conn = iterator.next();
+        if (isExpired(conn.getAge(), conn.getTimeElapsedSinceLastUse(), idleCount)) {
+          iterator.remove();
+          expiredConnections.add(conn);
+          idleCount--;
+        } else if (isPingRequired(conn.getTimeElapsedSinceLastUse())) {
+          // validated outside of the lock so that checkouts are not blocked by the ping query
+          iterator.remove();
+          uncheckedConnections.add(conn);
+          validatingConnections.add(conn);
+        }
+      }
+    } finally {
+      state.lock.unlock();
+    }
+    for (PooledConnection conn : expiredConnections) {
+      conn.invalidate();
+      closeQuietly(conn.getRealConnection());
+      if (log.isDebugEnabled()) {
+        log.debug("Closed expired connection " + conn.getRealHashCode() + ".");
+      }
+    }
+    for (PooledConnection conn : uncheckedConnections) {
+      boolean valid = executePingQuery(conn.getRealConnection());
+      state.lock.lock();
+      try {
+        // not listed anymore once forceCloseAll closed the pool meanwhile
+        if (validatingConnections.remove(conn)) {
+          if (!valid) {
+            state.badConnectionCount++;
+          } else if (state.idleConnections.size() < poolMaximumIdleConnections
+              && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
+            state.idleConnections.add(conn);
+            state.connectionAvailable.signalAll();
+            continue;
+          }
+          // a thread waiting for a connection may create one now
+          state.connectionAvailable.signalAll();
+        }
+      } finally {
+        state.lock.unlock();
+      }
+      conn.invalidate();
+      closeQuietly(conn.getRealConnection());
+    }
+    while (true) {
+      state.lock.lock();
+      try {
+        if (!needsIdleConnection(state.idleConnections.size(), state.activeConnections.size())) {
+          return;
+        }
+      } finally {
+        state.lock.unlock();
+      }
+      final int connectionTypeCode = expectedConnectionTypeCode;
+      PooledConnection conn;
+      try {
+        conn = new PooledConnection(dataSource.getConnection(), this);
+      } catch (SQLException e) {
+        log.warn("Could not open an idle connection: " + e.getMessage());
+        return;
+      }
+      conn.setConnectionTypeCode(connectionTypeCode);
+      state.lock.lock();
+      try {
+        if (connectionTypeCode == expectedConnectionTypeCode
+            && needsIdleConnection(state.idleConnections.size(), state.activeConnections.size())) {
+          state.idleConnections.add(conn);
+          state.connectionAvailable.signalAll();
+          if (log.isDebugEnabled()) {
+            log.debug("Created idle connection " + conn.getRealHashCode() + ".");
+          }
+          continue;
+        }
+      } finally {
+        state.lock.unlock();
+      }
+      closeQuietly(conn.getRealConnection());
+      return;
+    }
+  }
+
+  private void housekeep(ConcurrentConnectionBag bag) {
+    int idleCount = bag.getIdleCount();
+    long now = System.currentTimeMillis();
+    for (ConcurrentConnectionBag.Entry entry : bag.entries()) {
+      if (!bag.claim(entry)) {
+        continue;
+      }
+      long age = now - entry.getCreatedTimestamp();
+      long idleTime = now - entry.getLastUsedTimestamp();
+      if (isExpired(age, idleTime, idleCount)) {
+        bag.remove(entry);
+        closeQuietly(entry.getRealConnection());
+        idleCount--;
+        if (log.isDebugEnabled()) {
+          log.debug("Closed expired connection " + entry.getRealConnection().hashCode() + ".");
+        }
+      } else if (isPingRequired(idleTime) && !executePingQuery(entry.getRealConnection())) {
+        bag.remove(entry);
+        closeQuietly(entry.getRealConnection());
+        idleCount--;
+        state.concurrentBadConnectionCount.increment();
+      } else {
+        bag.requite(entry);
+      }
+    }
+    while (bag.getIdleCount() < Math.min(poolMinimumIdleConnections, poolMaximumIdleConnections)
+        && bag.reserve(poolMaximumActiveConnections)) {
+      Connection realConnection;
+      try {
+        realConnection = dataSource.getConnection();
+      } catch (SQLException e) {
+        bag.cancelReservation();
+        log.warn("Could not open an idle connection: " + e.getMessage());
+        return;
+      }
+      bag.requite(bag.add(realConnection));
+      if (log.isDebugEnabled()) {
+        log.debug("Created idle connection " + realConnection.hashCode() + ".");
+      }
+    }
+  }
+
+  private boolean isExpired(long age, long idleTime, int idleCount) {
+    return (poolMaximumLifetime > 0 && age > poolMaximumLifetime)
+        || (poolMaximumIdleTime > 0 && idleTime > poolMaximumIdleTime && idleCount > poolMinimumIdleConnections);
+  }
+
+  private boolean needsIdleConnection(int idleCount, int activeCount) {
+    return idleCount < Math.min(poolMinimumIdleConnections, poolMaximumIdleConnections)
+        && idleCount + activeCount < poolMaximumActiveConnections;
+  }
+
+  private void closeQuietly(Connection realConn) {
+    try {
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+    } catch (Exception e) {
+      // ignore, the connection is closed anyway
+    }
+    try {
+      realConn.close();
+    } catch (Exception e) {
+      // ignore
+    }
+  }
+
   /**
    * Method to check to see if a connection is still usable
    *
@@ -544,34 +1060,42 @@ public class PooledDataSource implements DataSource {
       result = false;
     }
 
-    if (result && poolPingEnabled && poolPingConnectionsNotUsedFor >= 0
-        && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor) {
+    if (result && poolHousekeepingPeriod <= 0 && isPingRequired(conn.getTimeElapsedSinceLastUse())) {
+      result = executePingQuery(conn.getRealConnection());
+    }
+    return result;
+  }
+
+  private boolean isPingRequired(long timeElapsedSinceLastUse) {
+    return poolPingEnabled && poolPingConnectionsNotUsedFor >= 0 && timeElapsedSinceLastUse > poolPingConnectionsNotUsedFor;
+  }
+
+  private boolean executePingQuery(Connection realConn) {
+    boolean result;
+    try {
+      if (log.isDebugEnabled()) {
+        log.debug("Testing connection " + realConn.hashCode() + " ...");
+      }
+      try (Statement statement = realConn.createStatement()) {
+        statement.executeQuery(poolPingQuery).close();
+      }
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+      result = true;
+      if (log.isDebugEnabled()) {
+        log.debug("Connection " + realConn.hashCode() + " is GOOD!");
+      }
+    } catch (Exception e) {
+      log.warn("Execution of ping query '" + poolPingQuery + "' failed: " + e.getMessage());
       try {
-        if (log.isDebugEnabled()) {
-          log.debug("Testing connection " + conn.getRealHashCode() + " ...");
-        }
-        Connection realConn = conn.getRealConnection();
-        try (Statement statement = realConn.createStatement()) {
-          statement.executeQuery(poolPingQuery).close();
-        }
-        if (!realConn.getAutoCommit()) {
-          realConn.rollback();
-        }
-        result = true;
-        if (log.isDebugEnabled()) {
-          log.debug("Connection " + conn.getRealHashCode() + " is GOOD!");
-        }
-      } catch (Exception e) {
-        log.warn("Execution of ping query '" + poolPingQuery + "' failed: " + e.getMessage());
-        try {
-          conn.getRealConnection().close();
-        } catch (Exception e2) {
-          // ignore
-        }
-        result = false;
-        if (log.isDebugEnabled()) {
-          log.debug("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
-        }
+        realConn.close();
+      } catch (Exception e2) {
+        // ignore
+      }
+      result = false;
+      if (log.isDebugEnabled()) {
+        log.debug("Connection " + realConn.hashCode() + " is BAD: " + e.getMessage());
       }
     }
     return result;
@@ -596,6 +1120,7 @@ public class PooledDataSource implements DataSource {
 
   @Override
   protected void finalize() throws Throwable {
+    setPoolHousekeepingPeriod(0);
     forceCloseAll();
     super.finalize();
   }
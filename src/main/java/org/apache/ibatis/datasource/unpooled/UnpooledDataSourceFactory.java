@@ -15,6 +15,7 @@
  */
 package org.apache.ibatis.datasource.unpooled;
 
+import java.util.Locale;
 import java.util.Properties;
 
 import javax.sql.DataSource;
@@ -92,8 +93,15 @@ public class UnpooledDataSourceFactory implements DataSourceFactory {
       convertedValue = Long.valueOf(value);
     } else if (targetType == Boolean.class || targetType == boolean.class) {
       convertedValue = Boolean.valueOf(value);
+    } else if (targetType.isEnum()) {
+      convertedValue = convertEnumValue(targetType, value);
     }
     return convertedValue;
   }
 
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private Object convertEnumValue(Class<?> targetType, String value) {
+    return Enum.valueOf((Class<? extends Enum>) targetType, value.toUpperCase(Locale.ENGLISH));
+  }
+
 }
@@ -21,34 +21,81 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.apache.ibatis.cache.ResultSizeEstimator;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.jdbc.ConnectionLogger;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
 
 /**
+ * Executes updates as JDBC batches.
+ * <p>
+ * By default a statement is reused while the same SQL is executed again and again, and a new one is started each time
+ * the SQL changes. With {@link Configuration#isBatchGroupBySql()} an insert marked with
+ * {@link MappedStatement#isGroupBySql()} joins the pending batch of its SQL even when other marked inserts were batched
+ * in between; every other statement keeps its place and no row batched after it is moved before it. With
+ * {@link Configuration#getBatchFlushRows()} or {@link Configuration#getBatchFlushBytes()} pending batches are executed
+ * once they reach the threshold, their results are returned by the next flush.
+ * <p>
+ * With {@link Configuration#getBatchFlushParallelism()} the inserts of statements marked with
+ * {@link MappedStatement#isParallelFlush()} are spread over several lanes, all the batches of a statement on the same
+ * lane: the first lane is the session connection, each other lane is a transaction of its own opened from the
+ * environment. Other statements stay on the session connection, and the batches started before an update or a delete
+ * are executed before it on every lane. On flush the lanes are executed concurrently. The lanes are committed or rolled
+ * back after the session connection, there is no two-phase commit. When the transaction factory hands out the session
+ * connection again, as a managed one bound to the thread does, all the batches stay on the session connection.
+ *
  * @author Jeff Butler
  */
 public class BatchExecutor extends BaseExecutor {
 
   public static final int BATCH_UPDATE_RETURN_VALUE = Integer.MIN_VALUE + 1002;
 
+  private static final ResultSizeEstimator PARAMETER_SIZE_ESTIMATOR = new ResultSizeEstimator();
+
   private final List<Statement> statementList = new ArrayList<>();
   private final List<BatchResult> batchResultList = new ArrayList<>();
+  private final Map<StatementKey, Integer> statementIndexes = new HashMap<>();
+  private final List<BatchResult> executedResultList = new ArrayList<>();
+  private final List<Integer> statementLanes = new ArrayList<>();
+  private final List<Transaction> laneTransactions = new ArrayList<>();
+  private final Map<MappedStatement, Integer> parallelStatementLanes = new HashMap<>();
+  private final boolean groupBySql;
+  private final Integer flushRows;
+  private final Long flushBytes;
+  private int flushParallelism;
   private String currentSql;
   private MappedStatement currentStatement;
+  private int pendingRows;
+  private long pendingBytes;
+  private boolean pendingParallel;
+  private boolean pendingBarrier;
 
   public BatchExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
+    this.groupBySql = configuration.isBatchGroupBySql();
+    this.flushRows = configuration.getBatchFlushRows();
+    this.flushBytes = configuration.getBatchFlushBytes();
+    Integer parallelism = configuration.getBatchFlushParallelism();
+    this.flushParallelism = parallelism == null || configuration.getEnvironment() == null ? 1 : parallelism;
   }
 
   @Override
@@ -58,26 +105,122 @@ public class BatchExecutor extends BaseExecutor {
     final BoundSql boundSql = handler.getBoundSql();
     final String sql = boundSql.getSql();
     final Statement stmt;
-    if (sql.equals(currentSql) && ms.equals(currentStatement)) {
-      int last = statementList.size() - 1;
-      stmt = statementList.get(last);
+    final int index = pendingIndexOf(ms, sql);
+    if (index >= 0) {
+      stmt = statementList.get(index);
       applyTransactionTimeout(stmt);
       handler.parameterize(stmt);// fix Issues 322
-      BatchResult batchResult = batchResultList.get(last);
+      BatchResult batchResult = batchResultList.get(index);
       batchResult.addParameterObject(parameterObject);
     } else {
-      Connection connection = getConnection(ms.getStatementLog());
+      final int lane = isParallelFlush(ms) ? laneOf(ms) : 0;
+      final boolean barrier = ms.getSqlCommandType() != SqlCommandType.INSERT;
+      if (lane != 0 ? pendingBarrier : barrier && pendingParallel) {
+        // no batch of any lane may be executed on the other side of an update or a delete
+        executeBatches(executedResultList);
+      }
+      Connection connection = getLaneConnection(lane, ms.getStatementLog());
       stmt = handler.prepare(connection, transaction.getTimeout());
       handler.parameterize(stmt);    // fix Issues 322
       currentSql = sql;
       currentStatement = ms;
+      if (groupBySql) {
+        if (isGroupedBySql(ms)) {
+          statementIndexes.put(new StatementKey(ms, sql), statementList.size());
+        } else {
+          // the rows batched after a statement that keeps its place must not join a batch executed before it
+          statementIndexes.clear();
+        }
+      }
       statementList.add(stmt);
+      statementLanes.add(lane);
+      pendingParallel |= lane != 0;
+      pendingBarrier |= barrier;
       batchResultList.add(new BatchResult(ms, sql, parameterObject));
     }
     handler.batch(stmt);
+    pendingRows++;
+    if (flushBytes != null) {
+      pendingBytes += PARAMETER_SIZE_ESTIMATOR.estimate(parameterObject);
+    }
+    if (isFlushThresholdReached()) {
+      executeBatches(executedResultList);
+    }
     return BATCH_UPDATE_RETURN_VALUE;
   }
 
+  /**
+   * Returns the index of the pending statement a row for this SQL can be added to, or -1 if a new one is needed.
+   */
+  private int pendingIndexOf(MappedStatement ms, String sql) {
+    if (sql.equals(currentSql) && ms.equals(currentStatement)) {
+      return statementList.size() - 1;
+    }
+    if (groupBySql && isGroupedBySql(ms)) {
+      Integer index = statementIndexes.get(new StatementKey(ms, sql));
+      if (index != null) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Whether the rows of a statement may join an earlier batch of the same SQL. Only inserts that opted in qualify.
+   */
+  private boolean isGroupedBySql(MappedStatement ms) {
+    return ms.isGroupBySql() && ms.getSqlCommandType() == SqlCommandType.INSERT;
+  }
+
+  private boolean isFlushThresholdReached() {
+    return (flushRows != null && pendingRows >= flushRows) || (flushBytes != null && pendingBytes >= flushBytes);
+  }
+
+  /**
+   * Whether the batches of a statement may be executed on a lane of their own. Only inserts that opted in qualify, and
+   * not those whose keys are generated by a query of this executor.
+   */
+  private boolean isParallelFlush(MappedStatement ms) {
+    if (flushParallelism <= 1 || !ms.isParallelFlush() || ms.getSqlCommandType() != SqlCommandType.INSERT) {
+      return false;
+    }
+    Class<?> keyGeneratorType = ms.getKeyGenerator().getClass();
+    return NoKeyGenerator.class.equals(keyGeneratorType) || Jdbc3KeyGenerator.class.equals(keyGeneratorType);
+  }
+
+  /**
+   * Chooses the lane of a statement the first time it is batched, and opens the transaction of that lane. The statements
+   * take the lanes in turn, starting after the session connection. Falls back to the session connection for good when
+   * the transaction factory returns the session connection for a new transaction.
+   */
+  private int laneOf(MappedStatement ms) throws SQLException {
+    final int lane = parallelStatementLanes.computeIfAbsent(ms, k -> (parallelStatementLanes.size() + 1) % flushParallelism);
+    final Environment environment = configuration.getEnvironment();
+    while (laneTransactions.size() < lane) {
+      Transaction laneTransaction = environment.getTransactionFactory().newTransaction(environment.getDataSource(), null,
+          transaction.getConnection().getAutoCommit());
+      if (laneTransaction.getConnection() == transaction.getConnection()) {
+        // not closed, that would close the session connection
+        flushParallelism = 1;
+        return 0;
+      }
+      laneTransactions.add(laneTransaction);
+    }
+    return lane;
+  }
+
+  private Connection getLaneConnection(int lane, Log statementLog) throws SQLException {
+    if (lane == 0) {
+      return getConnection(statementLog);
+    }
+    Connection connection = laneTransactions.get(lane - 1).getConnection();
+    if (statementLog.isDebugEnabled()) {
+      return ConnectionLogger.newInstance(connection, statementLog, queryStack);
+    } else {
+      return connection;
+    }
+  }
+
   @Override
   public <E> List<E> doQuery(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql)
       throws SQLException {
@@ -111,53 +254,226 @@ public class BatchExecutor extends BaseExecutor {
   @Override
   public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
     try {
-      List<BatchResult> results = new ArrayList<>();
       if (isRollback) {
         return Collections.emptyList();
       }
-      for (int i = 0, n = statementList.size(); i < n; i++) {
-        Statement stmt = statementList.get(i);
-        applyTransactionTimeout(stmt);
-        BatchResult batchResult = batchResultList.get(i);
-        try {
-          batchResult.setUpdateCounts(stmt.executeBatch());
-          MappedStatement ms = batchResult.getMappedStatement();
-          List<Object> parameterObjects = batchResult.getParameterObjects();
-          KeyGenerator keyGenerator = ms.getKeyGenerator();
-          if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
-            Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
-            jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
-          } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
-            for (Object parameter : parameterObjects) {
-              keyGenerator.processAfter(this, ms, stmt, parameter);
-            }
-          }
-          // Close statement to close cursor #1109
-          closeStatement(stmt);
-        } catch (BatchUpdateException e) {
-          StringBuilder message = new StringBuilder();
-          message.append(batchResult.getMappedStatement().getId())
-              .append(" (batch index #")
-              .append(i + 1)
-              .append(")")
-              .append(" failed.");
-          if (i > 0) {
-            message.append(" ")
-                .append(i)
-                .append(" prior sub executor(s) completed successfully, but will be rolled back.");
+      List<BatchResult> results = new ArrayList<>(executedResultList);
+      executeBatches(results);
+      return results;
+    } finally {
+      for (Statement stmt : statementList) {
+        closeStatement(stmt);
+      }
+      resetPendingBatches();
+      executedResultList.clear();
+    }
+  }
+
+  /**
+   * Executes the pending batches in the order they were started and appends their results.
+   */
+  private void executeBatches(List<BatchResult> results) throws SQLException {
+    try {
+      if (laneTransactions.isEmpty()) {
+        for (int i = 0, n = statementList.size(); i < n; i++) {
+          BatchResult batchResult = batchResultList.get(i);
+          try {
+            executeBatch(i);
+          } catch (BatchUpdateException e) {
+            throw batchFailure(batchResult, results.size() + 1, results, e);
           }
-          throw new BatchExecutorException(message.toString(), e, results, batchResult);
+          results.add(batchResult);
         }
-        results.add(batchResult);
+      } else {
+        executeLanes(results);
       }
-      return results;
     } finally {
       for (Statement stmt : statementList) {
         closeStatement(stmt);
       }
-      currentSql = null;
-      statementList.clear();
-      batchResultList.clear();
+      resetPendingBatches();
+    }
+  }
+
+  /**
+   * Executes the batches of each lane on its own connection, the lanes concurrently. A lane stops at its first
+   * failure, the others run to completion.
+   */
+  private void executeLanes(List<BatchResult> results) throws SQLException {
+    final int executed = results.size();
+    final Exception[] failures = new Exception[statementList.size()];
+    List<CompletableFuture<Void>> lanes = new ArrayList<>();
+    for (int lane = 1; lane <= laneTransactions.size(); lane++) {
+      final int current = lane;
+      lanes.add(CompletableFuture.runAsync(() -> executeLane(current, failures), FlushThreads.POOL));
+    }
+    executeLane(0, failures);
+    for (CompletableFuture<Void> lane : lanes) {
+      lane.join();
+    }
+    BatchResult failedResult = null;
+    Exception failure = null;
+    int failedIndex = 0;
+    for (int i = 0; i < failures.length; i++) {
+      BatchResult batchResult = batchResultList.get(i);
+      if (failures[i] != null && failure == null) {
+        failedResult = batchResult;
+        failure = failures[i];
+        failedIndex = executed + i + 1;
+      } else if (batchResult.getUpdateCounts() != null) {
+        results.add(batchResult);
+      }
+    }
+    if (failure instanceof BatchUpdateException) {
+      throw batchFailure(failedResult, failedIndex, results, (BatchUpdateException) failure);
+    } else if (failure instanceof SQLException) {
+      throw (SQLException) failure;
+    } else if (failure != null) {
+      throw (RuntimeException) failure;
+    }
+  }
+
+  private void executeLane(int lane, Exception[] failures) {
+    for (int i = 0, n = statementList.size(); i < n; i++) {
+      if (statementLanes.get(i) == lane) {
+        try {
+          executeBatch(i);
+        } catch (SQLException | RuntimeException e) {
+          failures[i] = e;
+          return;
+        }
+      }
+    }
+  }
+
+  private void executeBatch(int index) throws SQLException {
+    Statement stmt = statementList.get(index);
+    applyTransactionTimeout(stmt);
+    BatchResult batchResult = batchResultList.get(index);
+    long start = System.nanoTime();
+    batchResult.setUpdateCounts(stmt.executeBatch());
+    MappedStatement ms = batchResult.getMappedStatement();
+    List<Object> parameterObjects = batchResult.getParameterObjects();
+    KeyGenerator keyGenerator = ms.getKeyGenerator();
+    if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
+      Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
+      jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
+    } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
+      for (Object parameter : parameterObjects) {
+        keyGenerator.processAfter(this, ms, stmt, parameter);
+      }
+    }
+    batchResult.setElapsedNanos(System.nanoTime() - start);
+    // Close statement to close cursor #1109
+    closeStatement(stmt);
+  }
+
+  private BatchExecutorException batchFailure(BatchResult batchResult, int batchIndex, List<BatchResult> completed,
+      BatchUpdateException e) {
+    StringBuilder message = new StringBuilder();
+    message.append(batchResult.getMappedStatement().getId())
+        .append(" (batch index #")
+        .append(batchIndex)
+        .append(")")
+        .append(" failed.");
+    if (!completed.isEmpty()) {
+      message.append(" ")
+          .append(completed.size())
+          .append(" prior sub executor(s) completed successfully, but will be rolled back.");
+    }
+    return new BatchExecutorException(message.toString(), e, new ArrayList<>(completed), batchResult);
+  }
+
+  @Override
+  public void commit(boolean required) throws SQLException {
+    super.commit(required);
+    if (required) {
+      for (Transaction laneTransaction : laneTransactions) {
+        laneTransaction.commit();
+      }
+    }
+  }
+
+  @Override
+  public void rollback(boolean required) throws SQLException {
+    try {
+      super.rollback(required);
+    } finally {
+      if (required) {
+        for (Transaction laneTransaction : laneTransactions) {
+          laneTransaction.rollback();
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close(boolean forceRollback) {
+    try {
+      super.close(forceRollback);
+    } finally {
+      for (Transaction laneTransaction : laneTransactions) {
+        try {
+          laneTransaction.close();
+        } catch (SQLException e) {
+          // Ignore. There's nothing that can be done at this point.
+        }
+      }
+      laneTransactions.clear();
+    }
+  }
+
+  private void resetPendingBatches() {
+    currentSql = null;
+    currentStatement = null;
+    statementList.clear();
+    statementLanes.clear();
+    batchResultList.clear();
+    statementIndexes.clear();
+    pendingRows = 0;
+    pendingBytes = 0;
+    pendingParallel = false;
+    pendingBarrier = false;
+  }
+
+  /**
+   * Runs the lanes of a parallel flush. The threads are daemons and are released after a minute without work.
+   */
+  private static final class FlushThreads {
+    private static final ExecutorService POOL = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "mybatis-batch-flush");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Identifies the pending batch of a statement when batches are grouped by SQL.
+   */
+  private static final class StatementKey {
+    private final MappedStatement mappedStatement;
+    private final String sql;
+
+    StatementKey(MappedStatement mappedStatement, String sql) {
+      this.mappedStatement = mappedStatement;
+      this.sql = sql;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof StatementKey)) {
+        return false;
+      }
+      StatementKey that = (StatementKey) o;
+      return mappedStatement.equals(that.mappedStatement) && sql.equals(that.sql);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * mappedStatement.hashCode() + sql.hashCode();
     }
   }
 
@@ -30,6 +30,7 @@ public class BatchResult {
   private final List<Object> parameterObjects;
 
   private int[] updateCounts;
+  private long elapsedNanos;
 
   public BatchResult(MappedStatement mappedStatement, String sql) {
     super();
@@ -68,6 +69,20 @@ public class BatchResult {
     this.updateCounts = updateCounts;
   }
 
+  /**
+   * Gets the time spent executing this batch, including the retrieval of generated keys.
+   *
+   * @return the elapsed time in nanoseconds, 0 if the batch has not been executed
+   * @since 3.5.6
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  public void setElapsedNanos(long elapsedNanos) {
+    this.elapsedNanos = elapsedNanos;
+  }
+
   public void addParameterObject(Object parameterObject) {
     this.parameterObjects.add(parameterObject);
   }
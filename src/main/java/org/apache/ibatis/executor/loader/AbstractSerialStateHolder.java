@@ -27,12 +27,16 @@ import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
 import java.io.ObjectStreamException;
+import java.io.Serializable;
 import java.io.StreamCorruptedException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheSerializer;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 
 /**
@@ -43,6 +47,19 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
 
   private static final long serialVersionUID = 8940388717901644661L;
   private static final ThreadLocal<ObjectOutputStream> stream = new ThreadLocal<>();
+  private static final ThreadLocal<CacheSerializer> userBeanSerializer = new ThreadLocal<>();
+  private static final Map<String, Class<? extends CacheSerializer>> userBeanSerializerTypes = new ConcurrentHashMap<>();
+  private static final List<String> deserializationBlacklist = Arrays.asList(
+      "org.apache.commons.beanutils.BeanComparator",
+      "org.apache.commons.collections.functors.InvokerTransformer",
+      "org.apache.commons.collections.functors.InstantiateTransformer",
+      "org.apache.commons.collections4.functors.InvokerTransformer",
+      "org.apache.commons.collections4.functors.InstantiateTransformer",
+      "org.codehaus.groovy.runtime.ConvertedClosure",
+      "org.codehaus.groovy.runtime.MethodClosure",
+      "org.springframework.beans.factory.ObjectFactory",
+      "org.springframework.transaction.jta.JtaTransactionManager",
+      "com.sun.org.apache.xalan.internal.xsltc.trax.TemplatesImpl");
   private byte[] userBeanBytes = new byte[0];
   private Object userBean;
   private Map<String, ResultLoaderMap.LoadPair> unloadedProperties;
@@ -66,6 +83,45 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
     this.constructorArgs = constructorArgs.toArray(new Object[0]);
   }
 
+  /**
+   * Makes the proxies serialized by the current thread write their user bean with a {@link CacheSerializer} instead of
+   * Java serialization. Used by cache serializers that fall back to Java serialization for proxies. Only the types of
+   * serializers passed here are instantiated to read a user bean back.
+   *
+   * @param serializer
+   *          the serializer, which must have a no-argument constructor, or null to use Java serialization
+   * @return the serializer previously used by the current thread, or null
+   * @since 3.5.6
+   */
+  public static CacheSerializer useUserBeanSerializer(CacheSerializer serializer) {
+    CacheSerializer previous = userBeanSerializer.get();
+    if (serializer == null) {
+      userBeanSerializer.remove();
+    } else {
+      userBeanSerializerTypes.putIfAbsent(serializer.getClass().getName(), serializer.getClass());
+      userBeanSerializer.set(serializer);
+    }
+    return previous;
+  }
+
+  /**
+   * Rejects the classes known to be exploitable by deserialization, for the serializers that instantiate classes named
+   * in their input.
+   *
+   * @param className
+   *          the name of the class to deserialize
+   * @throws InvalidClassException
+   *           if the class must not be deserialized
+   * @since 3.5.6
+   */
+  public static void checkDeserializationAllowed(String className) throws InvalidClassException {
+    if (deserializationBlacklist.contains(className)) {
+      throw new InvalidClassException(className, "Deserialization is not allowed for security reasons. "
+          + "It is strongly recommended to configure the deserialization filter provided by JDK. "
+          + "See http://openjdk.java.net/jeps/290 for the details.");
+    }
+  }
+
   @Override
   public final void writeExternal(final ObjectOutput out) throws IOException {
     boolean firstRound = false;
@@ -77,7 +133,8 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
       stream.set(os);
     }
 
-    os.writeObject(this.userBean);
+    CacheSerializer serializer = userBeanSerializer.get();
+    os.writeObject(serializer == null ? this.userBean : new SerializedUserBean(serializer, this.userBean));
     os.writeObject(this.unloadedProperties);
     os.writeObject(this.objectFactory);
     os.writeObject(this.constructorArgTypes);
@@ -111,6 +168,9 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
     /* First run */
     try (ObjectInputStream in = new LookAheadObjectInputStream(new ByteArrayInputStream(this.userBeanBytes))) {
       this.userBean = in.readObject();
+      if (this.userBean instanceof SerializedUserBean) {
+        this.userBean = ((SerializedUserBean) this.userBean).deserialize();
+      }
       this.unloadedProperties = (Map<String, ResultLoaderMap.LoadPair>) in.readObject();
       this.objectFactory = (ObjectFactory) in.readObject();
       this.constructorArgTypes = (Class<?>[]) in.readObject();
@@ -131,18 +191,49 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
   protected abstract Object createDeserializationProxy(Object target, Map<String, ResultLoaderMap.LoadPair> unloadedProperties, ObjectFactory objectFactory,
           List<Class<?>> constructorArgTypes, List<Object> constructorArgs);
 
+  /**
+   * A user bean written with a {@link CacheSerializer}.
+   */
+  private static class SerializedUserBean implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final String serializerType;
+    private final byte[] bytes;
+
+    SerializedUserBean(CacheSerializer serializer, Object userBean) {
+      this.serializerType = serializer.getClass().getName();
+      // proxies nested in the user bean are written to the serializer's own stream
+      ObjectOutputStream enclosingStream = stream.get();
+      stream.remove();
+      try {
+        this.bytes = serializer.serialize(userBean);
+      } finally {
+        if (enclosingStream != null) {
+          stream.set(enclosingStream);
+        }
+      }
+    }
+
+    Object deserialize() throws ObjectStreamException {
+      CacheSerializer serializer = userBeanSerializer.get();
+      try {
+        if (serializer == null || !serializer.getClass().getName().equals(serializerType)) {
+          // the name comes from the stream, so only a serializer type this JVM has used is instantiated
+          Class<? extends CacheSerializer> type = userBeanSerializerTypes.get(serializerType);
+          if (type == null) {
+            throw new InvalidClassException(serializerType, "Not a serializer used to write user beans.");
+          }
+          serializer = type.getConstructor().newInstance();
+        }
+        return serializer.deserialize(bytes);
+      } catch (ReflectiveOperationException e) {
+        throw (ObjectStreamException) new InvalidClassException(serializerType, e.getLocalizedMessage()).initCause(e);
+      } catch (CacheException e) {
+        throw (ObjectStreamException) new StreamCorruptedException().initCause(e);
+      }
+    }
+  }
+
   private static class LookAheadObjectInputStream extends ObjectInputStream {
-    private static final List<String> blacklist = Arrays.asList(
-        "org.apache.commons.beanutils.BeanComparator",
-        "org.apache.commons.collections.functors.InvokerTransformer",
-        "org.apache.commons.collections.functors.InstantiateTransformer",
-        "org.apache.commons.collections4.functors.InvokerTransformer",
-        "org.apache.commons.collections4.functors.InstantiateTransformer",
-        "org.codehaus.groovy.runtime.ConvertedClosure",
-        "org.codehaus.groovy.runtime.MethodClosure",
-        "org.springframework.beans.factory.ObjectFactory",
-        "org.springframework.transaction.jta.JtaTransactionManager",
-        "com.sun.org.apache.xalan.internal.xsltc.trax.TemplatesImpl");
 
     public LookAheadObjectInputStream(InputStream in) throws IOException {
       super(in);
@@ -150,12 +241,7 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
 
     @Override
     protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
-      String className = desc.getName();
-      if (blacklist.contains(className)) {
-        throw new InvalidClassException(className, "Deserialization is not allowed for security reasons. "
-            + "It is strongly recommended to configure the deserialization filter provided by JDK. "
-            + "See http://openjdk.java.net/jeps/290 for the details.");
-      }
+      checkDeserializationAllowed(desc.getName());
       return super.resolveClass(desc);
     }
   }
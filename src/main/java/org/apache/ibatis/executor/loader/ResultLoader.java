@@ -78,7 +78,7 @@ public class ResultLoader {
       localExecutor = newExecutor();
     }
     try {
-      return localExecutor.query(mappedStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, cacheKey, boundSql);
+      return selectList(localExecutor);
     } finally {
       if (localExecutor != executor) {
         localExecutor.close(false);
@@ -86,6 +86,22 @@ public class ResultLoader {
     }
   }
 
+  /**
+   * Runs the query of this loader.
+   *
+   * @param <E>
+   *          the element type of the result list
+   * @param executor
+   *          an executor that is open on the current thread
+   * @return the rows of the result
+   * @throws SQLException
+   *           if the query fails
+   * @since 3.5.6
+   */
+  protected <E> List<E> selectList(Executor executor) throws SQLException {
+    return executor.query(mappedStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, cacheKey, boundSql);
+  }
+
   private Executor newExecutor() {
     final Environment environment = configuration.getEnvironment();
     if (environment == null) {
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BaseExecutor;
@@ -48,6 +49,7 @@ import org.apache.ibatis.session.RowBounds;
 public class ResultLoaderMap {
 
   private final Map<String, LoadPair> loaderMap = new HashMap<>();
+  private final ReentrantLock lock = new ReentrantLock();
 
   public void addLoader(String property, MetaObject metaResultObject, ResultLoader resultLoader) {
     String upperFirst = getUppercaseFirstProperty(property);
@@ -59,6 +61,17 @@ public class ResultLoaderMap {
     loaderMap.put(upperFirst, new LoadPair(property, metaResultObject, resultLoader));
   }
 
+  /**
+   * Gets the lock a lazy loading proxy holds while it loads properties.
+   * A lock rather than a monitor, so that a virtual thread running the nested query does not pin its carrier thread.
+   *
+   * @return the lock
+   * @since 3.5.6
+   */
+  public ReentrantLock getLock() {
+    return lock;
+  }
+
   public final Map<String, LoadPair> getProperties() {
     return new HashMap<>(this.loaderMap);
   }
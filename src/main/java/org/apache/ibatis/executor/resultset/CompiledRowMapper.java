@@ -0,0 +1,242 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.AmbiguousMethodInvoker;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.LambdaSetInvoker;
+import org.apache.ibatis.reflection.property.PropertyNamer;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Maps a row of a simple result map whose columns, type handlers and property writers were resolved once for a column
+ * layout.
+ * <p>
+ * Columns are read by index and properties are written by a {@link LambdaSetInvoker}, bound by
+ * {@code LambdaMetafactory} for public setters or by a method handle for other setters and fields. No
+ * {@code MetaObject} is created per row.
+ * Row mappers are kept by the {@link org.apache.ibatis.session.Configuration} and shared by all executions.
+ *
+ * @since 3.5.6
+ */
+public final class CompiledRowMapper {
+
+  /**
+   * Marks a result map and column layout that has to be mapped by {@link DefaultResultSetHandler} itself.
+   */
+  static final CompiledRowMapper UNSUPPORTED = new CompiledRowMapper(null, null, new ArrayList<>(), false);
+
+  private final Class<?> type;
+  private final ObjectFactory objectFactory;
+  private final int[] columns;
+  private final TypeHandler<?>[] typeHandlers;
+  private final String[] properties;
+  private final BiConsumer<Object, Object>[] writers;
+  private final boolean[] setNulls;
+  private final boolean returnInstanceForEmptyRow;
+
+  @SuppressWarnings("unchecked")
+  private CompiledRowMapper(Class<?> type, ObjectFactory objectFactory, List<ColumnMapping> mappings, boolean returnInstanceForEmptyRow) {
+    this.type = type;
+    this.objectFactory = objectFactory;
+    this.returnInstanceForEmptyRow = returnInstanceForEmptyRow;
+    int size = mappings.size();
+    this.columns = new int[size];
+    this.typeHandlers = new TypeHandler<?>[size];
+    this.properties = new String[size];
+    this.writers = new BiConsumer[size];
+    this.setNulls = new boolean[size];
+    for (int i = 0; i < size; i++) {
+      ColumnMapping mapping = mappings.get(i);
+      columns[i] = mapping.column;
+      typeHandlers[i] = mapping.typeHandler;
+      properties[i] = mapping.property;
+      writers[i] = mapping.writer;
+      setNulls[i] = mapping.setNull;
+    }
+  }
+
+  /**
+   * Returns the key of the row mapper of a result map for the columns of a result set. The type handlers resolved for a
+   * column depend on its JDBC type and class.
+   */
+  static String keyOf(ResultMap resultMap, ResultSetWrapper rsw) {
+    StringBuilder layout = new StringBuilder(resultMap.getId()).append('|');
+    List<String> columnNames = rsw.getColumnNames();
+    List<String> classNames = rsw.getClassNames();
+    for (int i = 0; i < columnNames.size(); i++) {
+      layout.append(columnNames.get(i)).append(':').append(rsw.getJdbcTypes().get(i)).append(':').append(classNames.get(i)).append(',');
+    }
+    return layout.toString();
+  }
+
+  Object map(ResultSet rs) throws SQLException {
+    final Object rowValue = objectFactory.create(type);
+    boolean foundValues = false;
+    for (int i = 0; i < columns.length; i++) {
+      final Object value = typeHandlers[i].getResult(rs, columns[i]);
+      if (value != null) {
+        foundValues = true;
+      }
+      if (value != null || setNulls[i]) {
+        try {
+          writers[i].accept(rowValue, value);
+        } catch (RuntimeException e) {
+          throw new ReflectionException("Could not set property '" + properties[i] + "' of '" + type + "' with value '" + value + "' Cause: " + e.toString(), e);
+        }
+      }
+    }
+    return foundValues || returnInstanceForEmptyRow ? rowValue : null;
+  }
+
+  static class Builder {
+    private final Reflector reflector;
+    private final ObjectFactory objectFactory;
+    private final boolean returnInstanceForEmptyRow;
+    private final List<ColumnMapping> mappings = new ArrayList<>();
+
+    Builder(Reflector reflector, ObjectFactory objectFactory, boolean returnInstanceForEmptyRow) {
+      this.reflector = reflector;
+      this.objectFactory = objectFactory;
+      this.returnInstanceForEmptyRow = returnInstanceForEmptyRow;
+    }
+
+    /**
+     * Adds a column written to a property.
+     *
+     * @param column
+     *          the column index, starting at 1
+     * @param setNull
+     *          whether the property is set when the column is null
+     */
+    Builder addColumn(int column, TypeHandler<?> typeHandler, String property, boolean setNull) {
+      mappings.add(new ColumnMapping(column, typeHandler, property, writerFor(reflector, property), setNull));
+      return this;
+    }
+
+    CompiledRowMapper build() {
+      return new CompiledRowMapper(reflector.getType(), objectFactory, mappings, returnInstanceForEmptyRow);
+    }
+  }
+
+  private static class ColumnMapping {
+    private final int column;
+    private final TypeHandler<?> typeHandler;
+    private final String property;
+    private final BiConsumer<Object, Object> writer;
+    private final boolean setNull;
+
+    ColumnMapping(int column, TypeHandler<?> typeHandler, String property, BiConsumer<Object, Object> writer, boolean setNull) {
+      this.column = column;
+      this.typeHandler = typeHandler;
+      this.property = property;
+      this.writer = writer;
+      this.setNull = setNull;
+    }
+  }
+
+  //
+  // PROPERTY WRITERS
+  //
+
+  static BiConsumer<Object, Object> writerFor(Reflector reflector, String property) {
+    Invoker invoker = reflector.getSetInvoker(property);
+    if (!(invoker instanceof LambdaSetInvoker) && !(invoker instanceof AmbiguousMethodInvoker)) {
+      final Class<?> type = reflector.getType();
+      try {
+        Method setter = findSetter(type, property, reflector.getSetterType(property));
+        if (setter != null) {
+          invoker = new LambdaSetInvoker(setter);
+        } else {
+          Field field = findField(type, property);
+          if (field != null && !Modifier.isFinal(field.getModifiers())) {
+            invoker = new LambdaSetInvoker(field);
+          }
+        }
+      } catch (ReflectionException e) {
+        // e.g. a security manager hiding the member, the invoker of the reflector still works
+      }
+    }
+    return invoker instanceof LambdaSetInvoker ? lambdaWriter((LambdaSetInvoker) invoker) : invokerWriter(invoker);
+  }
+
+  private static BiConsumer<Object, Object> lambdaWriter(LambdaSetInvoker invoker) {
+    return (target, value) -> {
+      try {
+        invoker.set(target, value);
+      } catch (InvocationTargetException e) {
+        Throwable cause = e.getTargetException();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new ReflectionException(cause);
+      }
+    };
+  }
+
+  private static BiConsumer<Object, Object> invokerWriter(Invoker invoker) {
+    return (target, value) -> {
+      try {
+        invoker.invoke(target, new Object[] { value });
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new ReflectionException(e);
+      }
+    };
+  }
+
+  private static Method findSetter(Class<?> type, String property, Class<?> propertyType) {
+    for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+      for (Method method : current.getDeclaredMethods()) {
+        if (!method.isBridge() && !Modifier.isStatic(method.getModifiers()) && method.getParameterCount() == 1
+            && PropertyNamer.isSetter(method.getName()) && property.equals(PropertyNamer.methodToProperty(method.getName()))
+            && method.getParameterTypes()[0] == propertyType) {
+          return method;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static Field findField(Class<?> type, String property) {
+    for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (field.getName().equals(property) && !Modifier.isStatic(field.getModifiers())) {
+          return field;
+        }
+      }
+    }
+    return null;
+  }
+
+}
@@ -16,13 +16,16 @@
 package org.apache.ibatis.executor.resultset;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
 import java.sql.CallableStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -53,12 +56,17 @@ import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.ByteTypeHandler;
+import org.apache.ibatis.type.IntegerTypeHandler;
 import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.LongTypeHandler;
+import org.apache.ibatis.type.ShortTypeHandler;
 import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
@@ -84,14 +92,23 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final ReflectorFactory reflectorFactory;
 
   // nested resultmaps
-  private final Map<CacheKey, Object> nestedResultObjects = new HashMap<>();
+  private final RowKeyTable nestedResultObjects = new RowKeyTable();
+  private final Map<ResultMap, SingleIdRowKeys> singleIdRowKeys = new HashMap<>();
+  private final CacheKey probeRowKey = new CacheKey();
   private final Map<String, Object> ancestorObjects = new HashMap<>();
   private Object previousRowValue;
+  private boolean cursorResults;
+  private final Map<ResultMap, Boolean> inferredResultOrders = new HashMap<>();
 
   // multiple resultsets
   private final Map<String, ResultMapping> nextResultMaps = new HashMap<>();
   private final Map<CacheKey, List<PendingRelation>> pendingRelations = new HashMap<>();
 
+  // batched nested selects
+  private final Map<ResultMapping, Boolean> batchableNestedQueries = new HashMap<>();
+  private final Map<ResultMapping, NestedQueryBatch> nestedQueryBatches = new LinkedHashMap<>();
+  private final Map<ResultMapping, LazyLoadBatch> lazyLoadBatches = new HashMap<>();
+
   // Cached Automappings
   private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
 
@@ -103,6 +120,20 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     public ResultMapping propertyMapping;
   }
 
+  /**
+   * The row keys of a result map whose only id is an integral column, by the value of the id.
+   */
+  private static class SingleIdRowKeys {
+    private final String column;
+    private final Class<?> type;
+    private final LongObjectMap<CacheKey> rowKeys = new LongObjectMap<>();
+
+    SingleIdRowKeys(String column, Class<?> type) {
+      this.column = column;
+      this.type = type;
+    }
+  }
+
   private static class UnMappedColumnAutoMapping {
     private final String column;
     private final String property;
@@ -140,16 +171,18 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     final Object parameterObject = parameterHandler.getParameterObject();
     final MetaObject metaParam = configuration.newMetaObject(parameterObject);
     final List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    int position = 1;
     for (int i = 0; i < parameterMappings.size(); i++) {
       final ParameterMapping parameterMapping = parameterMappings.get(i);
       if (parameterMapping.getMode() == ParameterMode.OUT || parameterMapping.getMode() == ParameterMode.INOUT) {
         if (ResultSet.class.equals(parameterMapping.getJavaType())) {
-          handleRefCursorOutputParameter((ResultSet) cs.getObject(i + 1), parameterMapping, metaParam);
+          handleRefCursorOutputParameter((ResultSet) cs.getObject(position), parameterMapping, metaParam);
         } else {
           final TypeHandler<?> typeHandler = parameterMapping.getTypeHandler();
-          metaParam.setValue(parameterMapping.getProperty(), typeHandler.getResult(cs, i + 1));
+          metaParam.setValue(parameterMapping.getProperty(), typeHandler.getResult(cs, position));
         }
       }
+      position += parameterMapping.getJdbcParameterCount();
     }
   }
 
@@ -164,6 +197,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       if (this.resultHandler == null) {
         final DefaultResultHandler resultHandler = new DefaultResultHandler(objectFactory);
         handleRowValues(rsw, resultMap, resultHandler, new RowBounds(), null);
+        executeNestedQueryBatches();
         metaParam.setValue(parameterMapping.getProperty(), resultHandler.getResultList());
       } else {
         handleRowValues(rsw, resultMap, resultHandler, new RowBounds(), null);
@@ -218,6 +252,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   @Override
   public <E> Cursor<E> handleCursorResultSets(Statement stmt) throws SQLException {
     ErrorContext.instance().activity("handling cursor results").object(mappedStatement.getId());
+    cursorResults = true;
 
     ResultSetWrapper rsw = getFirstResultSet(stmt);
 
@@ -282,6 +317,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   private void cleanUpAfterHandlingResultSet() {
     nestedResultObjects.clear();
+    singleIdRowKeys.clear();
   }
 
   private void validateResultMapsCount(ResultSetWrapper rsw, int resultMapCount) {
@@ -295,10 +331,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     try {
       if (parentMapping != null) {
         handleRowValues(rsw, resultMap, null, RowBounds.DEFAULT, parentMapping);
+        executeNestedQueryBatches();
       } else {
         if (resultHandler == null) {
           DefaultResultHandler defaultResultHandler = new DefaultResultHandler(objectFactory);
           handleRowValues(rsw, resultMap, defaultResultHandler, rowBounds, null);
+          executeNestedQueryBatches();
           multipleResults.add(defaultResultHandler.getResultList());
         } else {
           handleRowValues(rsw, resultMap, resultHandler, rowBounds, null);
@@ -322,7 +360,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   public void handleRowValues(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler, RowBounds rowBounds, ResultMapping parentMapping) throws SQLException {
     if (resultMap.hasNestedResultMaps()) {
       ensureNoRowBounds();
-      checkResultHandler();
+      if (!isInferredResultOrdered(resultMap, parentMapping)) {
+        checkResultHandler();
+      }
       handleRowValuesForNestedResultMap(rsw, resultMap, resultHandler, rowBounds, parentMapping);
     } else {
       handleRowValuesForSimpleResultMap(rsw, resultMap, resultHandler, rowBounds, parentMapping);
@@ -344,14 +384,35 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
+  /**
+   * Whether the rows of a statement that is not declared {@code resultOrdered} can still be streamed parent by parent,
+   * because they are consumed by a cursor or a result handler and the SQL is sorted by the ids of the result map.
+   */
+  private boolean isInferredResultOrdered(ResultMap resultMap, ResultMapping parentMapping) {
+    if (!configuration.isInferResultOrdered() || mappedStatement.isResultOrdered() || parentMapping != null
+        || resultHandler == null && !cursorResults) {
+      return false;
+    }
+    return inferredResultOrders.computeIfAbsent(resultMap, rm -> {
+      List<ResultMapping> idMappings = rm.getIdResultMappings();
+      if (idMappings.isEmpty() || idMappings.stream().anyMatch(m -> m.getColumn() == null)) {
+        return false;
+      }
+      List<String> sortColumns = OrderByClause.leadingColumnsOf(boundSql.getSql());
+      return sortColumns.size() >= idMappings.size() && idMappings.stream()
+          .allMatch(m -> sortColumns.subList(0, idMappings.size()).contains(m.getColumn().toUpperCase(Locale.ENGLISH)));
+    });
+  }
+
   private void handleRowValuesForSimpleResultMap(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler, RowBounds rowBounds, ResultMapping parentMapping)
       throws SQLException {
     DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
     ResultSet resultSet = rsw.getResultSet();
+    Map<ResultMap, CompiledRowMapper> rowMappers = configuration.isUseCompiledRowMappers() ? new HashMap<>() : null;
     skipRows(resultSet, rowBounds);
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
       ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
-      Object rowValue = getRowValue(rsw, discriminatedResultMap, null);
+      Object rowValue = rowMappers == null ? getRowValue(rsw, discriminatedResultMap, null) : getCompiledRowValue(rsw, discriminatedResultMap, rowMappers);
       storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
     }
   }
@@ -359,6 +420,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private void storeObject(ResultHandler<?> resultHandler, DefaultResultContext<Object> resultContext, Object rowValue, ResultMapping parentMapping, ResultSet rs) throws SQLException {
     if (parentMapping != null) {
       linkToParents(rs, parentMapping, rowValue);
+    } else if (resultHandler instanceof NestedQueryBatch) {
+      ((NestedQueryBatch) resultHandler).link(rs, rowValue);
     } else {
       callResultHandler(resultHandler, resultContext, rowValue);
     }
@@ -408,6 +471,93 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return rowValue;
   }
 
+  //
+  // GET VALUE FROM ROW WITH A COMPILED ROW MAPPER
+  //
+
+  private Object getCompiledRowValue(ResultSetWrapper rsw, ResultMap resultMap, Map<ResultMap, CompiledRowMapper> rowMappers) throws SQLException {
+    CompiledRowMapper rowMapper = rowMappers.get(resultMap);
+    if (rowMapper == null) {
+      final String key = CompiledRowMapper.keyOf(resultMap, rsw);
+      rowMapper = configuration.getCompiledRowMappers().get(key);
+      if (rowMapper == null) {
+        rowMapper = compileRowMapper(rsw, resultMap);
+        configuration.getCompiledRowMappers().put(key, rowMapper);
+      }
+      rowMappers.put(resultMap, rowMapper);
+    }
+    if (rowMapper == CompiledRowMapper.UNSUPPORTED) {
+      return getRowValue(rsw, resultMap, null);
+    }
+    return rowMapper.map(rsw.getResultSet());
+  }
+
+  private CompiledRowMapper compileRowMapper(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+    if (!isCompilable(rsw, resultMap)) {
+      return CompiledRowMapper.UNSUPPORTED;
+    }
+    final Class<?> resultType = resultMap.getType();
+    final MetaClass metaType = MetaClass.forClass(resultType, reflectorFactory);
+    final boolean callSettersOnNulls = configuration.isCallSettersOnNulls();
+    final CompiledRowMapper.Builder builder = new CompiledRowMapper.Builder(reflectorFactory.findForClass(resultType),
+        objectFactory, configuration.isReturnInstanceForEmptyRow());
+    if (shouldApplyAutomaticMappings(resultMap, false)) {
+      final MetaObject metaObject = configuration.newMetaObject(objectFactory.create(resultType));
+      for (UnMappedColumnAutoMapping mapping : createAutomaticMappings(rsw, resultMap, metaObject, null)) {
+        builder.addColumn(columnIndexOf(rsw, mapping.column), mapping.typeHandler, mapping.property, callSettersOnNulls && !mapping.primitive);
+      }
+    }
+    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, null);
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      final String column = propertyMapping.getColumn();
+      final String property = propertyMapping.getProperty();
+      if (column == null || property == null || !mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
+        continue;
+      }
+      if (!metaType.hasSetter(property)) {
+        return CompiledRowMapper.UNSUPPORTED;
+      }
+      builder.addColumn(columnIndexOf(rsw, column), propertyMapping.getTypeHandler(), property,
+          callSettersOnNulls && !metaType.getSetterType(property).isPrimitive());
+    }
+    return builder.build();
+  }
+
+  /**
+   * A row can be compiled when it is written to a bean by its setters or fields, with no constructor mapping, nested
+   * mapping or nested query.
+   */
+  private boolean isCompilable(ResultSetWrapper rsw, ResultMap resultMap) {
+    final Class<?> resultType = resultMap.getType();
+    if (!resultMap.getConstructorResultMappings().isEmpty() || resultMap.hasNestedResultMaps() || resultMap.hasNestedQueries()
+        || resultType.isInterface() || Modifier.isAbstract(resultType.getModifiers())
+        || Map.class.isAssignableFrom(resultType) || Collection.class.isAssignableFrom(resultType)
+        || hasTypeHandlerForResultObject(rsw, resultType)
+        || !MetaClass.forClass(resultType, reflectorFactory).hasDefaultConstructor()
+        || !(configuration.getObjectWrapperFactory() instanceof DefaultObjectWrapperFactory)) {
+      return false;
+    }
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      final String property = propertyMapping.getProperty();
+      if (propertyMapping.getNestedQueryId() != null || propertyMapping.getNestedResultMapId() != null
+          || propertyMapping.getResultSet() != null || propertyMapping.isCompositeResult()
+          || (property != null && (property.indexOf('.') >= 0 || property.indexOf('[') >= 0))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int columnIndexOf(ResultSetWrapper rsw, String column) {
+    final List<String> columnNames = rsw.getColumnNames();
+    for (int i = 0; i < columnNames.size(); i++) {
+      if (columnNames.get(i).equalsIgnoreCase(column)) {
+        return i + 1;
+      }
+    }
+    throw new ExecutorException("Column '" + column + "' was not found in the result set.");
+  }
+
   //
   // GET VALUE FROM ROW FOR NESTED RESULT MAP
   //
@@ -763,9 +913,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     final String nestedQueryId = constructorMapping.getNestedQueryId();
     final MappedStatement nestedQuery = configuration.getMappedStatement(nestedQueryId);
     final Class<?> nestedQueryParameterType = nestedQuery.getParameterMap().getType();
-    final Object nestedQueryParameterObject = prepareParameterForNestedQuery(rs, constructorMapping, nestedQueryParameterType, columnPrefix);
+    Object nestedQueryParameterObject = prepareParameterForNestedQuery(rs, constructorMapping, nestedQueryParameterType, columnPrefix);
     Object value = null;
     if (nestedQueryParameterObject != null) {
+      if (isBatchedNestedQuery(constructorMapping, nestedQuery)) {
+        nestedQueryParameterObject = NestedQueryBatch.keyParameter(nestedQueryParameterObject);
+      }
       final BoundSql nestedBoundSql = nestedQuery.getBoundSql(nestedQueryParameterObject);
       final CacheKey key = executor.createCacheKey(nestedQuery, nestedQueryParameterObject, RowBounds.DEFAULT, nestedBoundSql);
       final Class<?> targetType = constructorMapping.getJavaType();
@@ -781,15 +934,31 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     final String property = propertyMapping.getProperty();
     final MappedStatement nestedQuery = configuration.getMappedStatement(nestedQueryId);
     final Class<?> nestedQueryParameterType = nestedQuery.getParameterMap().getType();
-    final Object nestedQueryParameterObject = prepareParameterForNestedQuery(rs, propertyMapping, nestedQueryParameterType, columnPrefix);
+    Object nestedQueryParameterObject = prepareParameterForNestedQuery(rs, propertyMapping, nestedQueryParameterType, columnPrefix);
     Object value = null;
     if (nestedQueryParameterObject != null) {
+      final Object keyValue = nestedQueryParameterObject;
+      final boolean batched = isBatchedNestedQuery(propertyMapping, nestedQuery);
+      if (batched) {
+        nestedQueryParameterObject = NestedQueryBatch.keyParameter(keyValue);
+      }
       final BoundSql nestedBoundSql = nestedQuery.getBoundSql(nestedQueryParameterObject);
       final CacheKey key = executor.createCacheKey(nestedQuery, nestedQueryParameterObject, RowBounds.DEFAULT, nestedBoundSql);
       final Class<?> targetType = propertyMapping.getJavaType();
       if (executor.isCached(nestedQuery, key)) {
         executor.deferLoad(nestedQuery, metaResultObject, property, key, targetType);
         value = DEFERRED;
+      } else if (batched && resultHandler == null && !cursorResults) {
+        if (propertyMapping.isLazy()) {
+          final LazyLoadBatch batch = lazyLoadBatches.computeIfAbsent(propertyMapping,
+              rm -> new LazyLoadBatch(configuration, nestedQuery, rm, configuration.getNestedSelectBatchSize()));
+          final String keyString = rs.getString(prependPrefix(propertyMapping.getColumn(), columnPrefix));
+          lazyLoader.addLoader(property, metaResultObject, batch.newLoader(executor, nestedQueryParameterObject, key, nestedBoundSql,
+              keyString, keyValue, lazyLoader, metaResultObject));
+        } else {
+          addToNestedQueryBatch(rs, metaResultObject, propertyMapping, nestedQuery, keyValue, columnPrefix);
+        }
+        value = DEFERRED;
       } else {
         final ResultLoader resultLoader = new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
         if (propertyMapping.isLazy()) {
@@ -803,6 +972,31 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return value;
   }
 
+  /**
+   * Whether a nested select receives a list of keys, so that its loads can be run in batches.
+   */
+  private boolean isBatchedNestedQuery(ResultMapping resultMapping, MappedStatement nestedQuery) {
+    if (configuration.getNestedSelectBatchSize() == null) {
+      return false;
+    }
+    return batchableNestedQueries.computeIfAbsent(resultMapping, rm -> NestedQueryBatch.isBatchable(rm, nestedQuery));
+  }
+
+  private void addToNestedQueryBatch(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, MappedStatement nestedQuery,
+      Object keyValue, String columnPrefix) throws SQLException {
+    final NestedQueryBatch batch = nestedQueryBatches.computeIfAbsent(propertyMapping, rm -> new NestedQueryBatch(nestedQuery, rm));
+    batch.add(rs.getString(prependPrefix(propertyMapping.getColumn(), columnPrefix)), keyValue, metaResultObject);
+    if (batch.size() >= configuration.getNestedSelectBatchSize()) {
+      batch.execute(executor, configuration);
+    }
+  }
+
+  private void executeNestedQueryBatches() throws SQLException {
+    for (NestedQueryBatch batch : nestedQueryBatches.values()) {
+      batch.execute(executor, configuration);
+    }
+  }
+
   private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
     if (resultMapping.isCompositeResult()) {
       return prepareCompositeKeyParameter(rs, resultMapping, parameterType, columnPrefix);
@@ -893,15 +1087,17 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     final DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
     ResultSet resultSet = rsw.getResultSet();
     skipRows(resultSet, rowBounds);
+    final boolean resultOrdered = mappedStatement.isResultOrdered() || isInferredResultOrdered(resultMap, parentMapping);
     Object rowValue = previousRowValue;
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
       final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
-      final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
+      final CacheKey rowKey = findRowKey(discriminatedResultMap, rsw);
       Object partialObject = nestedResultObjects.get(rowKey);
       // issue #577 && #542
-      if (mappedStatement.isResultOrdered()) {
+      if (resultOrdered) {
         if (partialObject == null && rowValue != null) {
           nestedResultObjects.clear();
+          singleIdRowKeys.values().forEach(keys -> keys.rowKeys.clear());
           storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
         }
         rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, null, partialObject);
@@ -912,7 +1108,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
       }
     }
-    if (rowValue != null && mappedStatement.isResultOrdered() && shouldProcessMoreRows(resultContext, rowBounds)) {
+    if (rowValue != null && resultOrdered && shouldProcessMoreRows(resultContext, rowBounds)) {
       storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
       previousRowValue = null;
     } else if (rowValue != null) {
@@ -943,8 +1139,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
               continue;
             }
           }
-          final CacheKey rowKey = createRowKey(nestedResultMap, rsw, columnPrefix);
-          final CacheKey combinedKey = combineKeys(rowKey, parentRowKey);
+          final CacheKey combinedKey = findCombinedKey(nestedResultMap, rsw, columnPrefix, parentRowKey);
           Object rowValue = nestedResultObjects.get(combinedKey);
           boolean knownValue = rowValue != null;
           instantiateCollectionPropertyIfAppropriate(resultMapping, metaObject); // mandatory
@@ -1005,8 +1200,109 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // UNIQUE RESULT KEY
   //
 
+  /**
+   * Returns the key of the row of a top level result map. A known row is found by its id without creating a key, or
+   * through a reusable probe key, and the stored key is returned.
+   */
+  private CacheKey findRowKey(ResultMap resultMap, ResultSetWrapper rsw) throws SQLException {
+    SingleIdRowKeys singleIdKeys = singleIdRowKeys.get(resultMap);
+    if (singleIdKeys == null && !singleIdRowKeys.containsKey(resultMap)) {
+      singleIdKeys = createSingleIdRowKeys(resultMap, rsw);
+      singleIdRowKeys.put(resultMap, singleIdKeys);
+    }
+    if (singleIdKeys != null) {
+      final long id = getIntegralId(rsw.getResultSet(), singleIdKeys);
+      if (!rsw.getResultSet().wasNull()) {
+        CacheKey rowKey = singleIdKeys.rowKeys.get(id);
+        if (rowKey == null) {
+          rowKey = createRowKey(resultMap, rsw, null);
+          CacheKey storedKey = nestedResultObjects.findKey(rowKey);
+          rowKey = storedKey != null ? storedKey : rowKey;
+          singleIdKeys.rowKeys.put(id, rowKey);
+        }
+        return rowKey;
+      }
+    }
+    probeRowKey.reset();
+    if (!updateRowKey(probeRowKey, resultMap, rsw, null)) {
+      return CacheKey.NULL_CACHE_KEY;
+    }
+    return storedOrNewKey(probeRowKey);
+  }
+
+  /**
+   * Returns the key of the row of a nested result map combined with the key of its parent row, without creating a key
+   * for a known row.
+   */
+  private CacheKey findCombinedKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix, CacheKey parentRowKey) throws SQLException {
+    probeRowKey.reset();
+    if (!updateRowKey(probeRowKey, resultMap, rsw, columnPrefix) || parentRowKey.getUpdateCount() <= 1) {
+      return CacheKey.NULL_CACHE_KEY;
+    }
+    probeRowKey.update(parentRowKey);
+    return storedOrNewKey(probeRowKey);
+  }
+
+  private CacheKey storedOrNewKey(CacheKey probeKey) {
+    CacheKey storedKey = nestedResultObjects.findKey(probeKey);
+    if (storedKey != null) {
+      return storedKey;
+    }
+    try {
+      return probeKey.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new ExecutorException("Error cloning cache key.  Cause: " + e, e);
+    }
+  }
+
+  /**
+   * Returns the row keys by id of a result map whose only id is a column read by a standard integral type handler, or
+   * null.
+   */
+  private SingleIdRowKeys createSingleIdRowKeys(ResultMap resultMap, ResultSetWrapper rsw) throws SQLException {
+    List<ResultMapping> idMappings = resultMap.getIdResultMappings();
+    if (idMappings.size() != 1 || !idMappings.get(0).isSimple() || idMappings.get(0).getColumn() == null
+        || idMappings.get(0).getTypeHandler() == null) {
+      return null;
+    }
+    ResultMapping idMapping = idMappings.get(0);
+    String column = idMapping.getColumn();
+    Class<?> typeHandlerType = idMapping.getTypeHandler().getClass();
+    if (!rsw.getMappedColumnNames(resultMap, null).contains(column.toUpperCase(Locale.ENGLISH))) {
+      return null;
+    } else if (typeHandlerType == LongTypeHandler.class) {
+      return new SingleIdRowKeys(column, long.class);
+    } else if (typeHandlerType == IntegerTypeHandler.class) {
+      return new SingleIdRowKeys(column, int.class);
+    } else if (typeHandlerType == ShortTypeHandler.class) {
+      return new SingleIdRowKeys(column, short.class);
+    } else if (typeHandlerType == ByteTypeHandler.class) {
+      return new SingleIdRowKeys(column, byte.class);
+    }
+    return null;
+  }
+
+  /**
+   * Reads an id as its type handler does, so that two rows have the same id exactly when their row keys are equal.
+   */
+  private long getIntegralId(ResultSet rs, SingleIdRowKeys singleIdKeys) throws SQLException {
+    if (singleIdKeys.type == long.class) {
+      return rs.getLong(singleIdKeys.column);
+    } else if (singleIdKeys.type == int.class) {
+      return rs.getInt(singleIdKeys.column);
+    } else if (singleIdKeys.type == short.class) {
+      return rs.getShort(singleIdKeys.column);
+    }
+    return rs.getByte(singleIdKeys.column);
+  }
+
   private CacheKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
-    final CacheKey cacheKey = new CacheKey();
+    List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
+    final CacheKey cacheKey = new CacheKey(1 + 2 * (resultMappings.isEmpty() ? rsw.getColumnNames().size() : resultMappings.size()));
+    return updateRowKey(cacheKey, resultMap, rsw, columnPrefix) ? cacheKey : CacheKey.NULL_CACHE_KEY;
+  }
+
+  private boolean updateRowKey(CacheKey cacheKey, ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
     cacheKey.update(resultMap.getId());
     List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
     if (resultMappings.isEmpty()) {
@@ -1018,24 +1314,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     } else {
       createRowKeyForMappedProperties(resultMap, rsw, cacheKey, resultMappings, columnPrefix);
     }
-    if (cacheKey.getUpdateCount() < 2) {
-      return CacheKey.NULL_CACHE_KEY;
-    }
-    return cacheKey;
-  }
-
-  private CacheKey combineKeys(CacheKey rowKey, CacheKey parentRowKey) {
-    if (rowKey.getUpdateCount() > 1 && parentRowKey.getUpdateCount() > 1) {
-      CacheKey combinedKey;
-      try {
-        combinedKey = rowKey.clone();
-      } catch (CloneNotSupportedException e) {
-        throw new ExecutorException("Error cloning cache key.  Cause: " + e, e);
-      }
-      combinedKey.update(parentRowKey);
-      return combinedKey;
-    }
-    return CacheKey.NULL_CACHE_KEY;
+    return cacheKey.getUpdateCount() >= 2;
   }
 
   private List<ResultMapping> getResultMappingsForRowKey(ResultMap resultMap) {
@@ -0,0 +1,166 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.ref.WeakReference;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ResultExtractor;
+import org.apache.ibatis.executor.loader.ResultLoader;
+import org.apache.ibatis.executor.loader.ResultLoaderMap;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * The lazy loads of a nested select for the objects of one result set.
+ * <p>
+ * When the property of one object is loaded, the same property of up to {@code batchSize} objects that have not
+ * loaded it yet is loaded by the same query, see {@link NestedQueryBatch}. A sibling whose lazy loader is in use by
+ * another thread is skipped and loads the property on its own when it is accessed. Siblings are held weakly, so that an
+ * object kept by the application does not keep the rest of its result set reachable through the batch.
+ */
+final class LazyLoadBatch {
+
+  private final Configuration configuration;
+  private final MappedStatement nestedQuery;
+  private final ResultMapping propertyMapping;
+  private final int batchSize;
+  private final ResultExtractor resultExtractor;
+  private final Map<String, List<WeakReference<Loader>>> pendingLoaders = new LinkedHashMap<>();
+  private final ReentrantLock lock = new ReentrantLock();
+
+  LazyLoadBatch(Configuration configuration, MappedStatement nestedQuery, ResultMapping propertyMapping, int batchSize) {
+    this.configuration = configuration;
+    this.nestedQuery = nestedQuery;
+    this.propertyMapping = propertyMapping;
+    this.batchSize = batchSize;
+    this.resultExtractor = new ResultExtractor(configuration, configuration.getObjectFactory());
+  }
+
+  /**
+   * Creates the loader of the property of one object and adds it to the batch.
+   */
+  ResultLoader newLoader(Executor executor, Object parameterObject, CacheKey cacheKey, BoundSql boundSql, String keyString,
+      Object key, ResultLoaderMap lazyLoader, MetaObject metaResultObject) {
+    Loader loader = new Loader(executor, parameterObject, cacheKey, boundSql, keyString, key, lazyLoader, metaResultObject);
+    lock.lock();
+    try {
+      pendingLoaders.computeIfAbsent(keyString, k -> new ArrayList<>(1)).add(new WeakReference<>(loader));
+    } finally {
+      lock.unlock();
+    }
+    return loader;
+  }
+
+  private List<Object> load(Loader trigger, Executor executor) throws SQLException {
+    final List<Loader> loaders = new ArrayList<>();
+    final NestedQueryBatch batch = new NestedQueryBatch(nestedQuery, propertyMapping);
+    batch.add(trigger.keyString, trigger.key, null);
+    lock.lock();
+    try {
+      List<WeakReference<Loader>> own = pendingLoaders.remove(trigger.keyString);
+      if (own != null) {
+        takeLoaders(own, loaders);
+      }
+      for (Iterator<List<WeakReference<Loader>>> pending = pendingLoaders.values().iterator(); pending.hasNext() && batch.size() < batchSize;) {
+        Loader sibling = takeLoaders(pending.next(), loaders);
+        pending.remove();
+        if (sibling != null) {
+          batch.add(sibling.keyString, sibling.key, null);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    batch.query(executor);
+    for (Loader loader : loaders) {
+      if (loader != trigger) {
+        loader.complete(batch.getChildren(loader.keyString));
+      }
+    }
+    return batch.getChildren(trigger.keyString);
+  }
+
+  /**
+   * Adds the loaders whose objects are still reachable and returns the first of them, or null if all were collected.
+   */
+  private Loader takeLoaders(List<WeakReference<Loader>> siblings, List<Loader> loaders) {
+    Loader first = null;
+    for (WeakReference<Loader> sibling : siblings) {
+      Loader loader = sibling.get();
+      if (loader != null) {
+        loaders.add(loader);
+        if (first == null) {
+          first = loader;
+        }
+      }
+    }
+    return first;
+  }
+
+  private class Loader extends ResultLoader {
+
+    private final String keyString;
+    private final Object key;
+    private final ResultLoaderMap lazyLoader;
+    private final MetaObject metaResultObject;
+
+    Loader(Executor executor, Object parameterObject, CacheKey cacheKey, BoundSql boundSql, String keyString, Object key,
+        ResultLoaderMap lazyLoader, MetaObject metaResultObject) {
+      super(LazyLoadBatch.this.configuration, executor, nestedQuery, parameterObject, propertyMapping.getJavaType(), cacheKey, boundSql);
+      this.keyString = keyString;
+      this.key = key;
+      this.lazyLoader = lazyLoader;
+      this.metaResultObject = metaResultObject;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected <E> List<E> selectList(Executor executor) throws SQLException {
+      return (List<E>) load(this, executor);
+    }
+
+    /**
+     * Sets the property of a sibling, unless it has been set or is being loaded meanwhile.
+     */
+    void complete(List<Object> children) {
+      if (!lazyLoader.getLock().tryLock()) {
+        return;
+      }
+      try {
+        final String property = propertyMapping.getProperty();
+        if (lazyLoader.hasLoader(property)) {
+          lazyLoader.remove(property);
+          metaResultObject.setValue(property, resultExtractor.extractObjectFromList(children, targetType));
+        }
+      } finally {
+        lazyLoader.getLock().unlock();
+      }
+    }
+  }
+
+}
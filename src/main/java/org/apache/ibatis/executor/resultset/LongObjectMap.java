@@ -0,0 +1,106 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing map from primitive {@code long} keys to non-null values, without an entry object or a boxed key
+ * per mapping.
+ */
+final class LongObjectMap<V> {
+
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final int MAXIMUM_RETAINED_CAPACITY = 1024;
+
+  private long[] keys;
+  private Object[] values;
+  private int mask;
+  private int size;
+
+  LongObjectMap() {
+    allocate(DEFAULT_CAPACITY);
+  }
+
+  @SuppressWarnings("unchecked")
+  V get(long key) {
+    for (int i = indexFor(key);; i = (i + 1) & mask) {
+      Object value = values[i];
+      if (value == null || keys[i] == key) {
+        return (V) value;
+      }
+    }
+  }
+
+  void put(long key, V value) {
+    int i = indexFor(key);
+    while (values[i] != null && keys[i] != key) {
+      i = (i + 1) & mask;
+    }
+    if (values[i] == null) {
+      size++;
+    }
+    keys[i] = key;
+    values[i] = value;
+    if (size * 2 > values.length) {
+      rehash(values.length * 2);
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  void clear() {
+    if (size == 0) {
+      return;
+    }
+    if (values.length > MAXIMUM_RETAINED_CAPACITY) {
+      allocate(DEFAULT_CAPACITY);
+    } else {
+      Arrays.fill(values, null);
+    }
+    size = 0;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+    for (int j = 0; j < oldValues.length; j++) {
+      if (oldValues[j] != null) {
+        int i = indexFor(oldKeys[j]);
+        while (values[i] != null) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+  }
+
+  private int indexFor(long key) {
+    long h = key * 0x9e3779b97f4a7c15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+
+}
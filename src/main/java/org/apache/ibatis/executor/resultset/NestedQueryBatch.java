@@ -0,0 +1,168 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.ResultExtractor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * The pending loads of a nested select that are run as one query for many parents.
+ * <p>
+ * The nested statement receives the list of keys, and the rows it returns are linked back to their parents by the
+ * value of the {@code foreignColumn} of the mapping. The rows are handed to {@link #link(ResultSet, Object)} while the
+ * result set is still on them, so this handler must only be used by a statement without nested result maps.
+ */
+final class NestedQueryBatch implements ResultHandler<Object> {
+
+  private final MappedStatement nestedQuery;
+  private final ResultMapping propertyMapping;
+  private final Map<String, PendingKey> pendingKeys = new LinkedHashMap<>();
+
+  NestedQueryBatch(MappedStatement nestedQuery, ResultMapping propertyMapping) {
+    this.nestedQuery = nestedQuery;
+    this.propertyMapping = propertyMapping;
+  }
+
+  /**
+   * Whether a nested select can be loaded in batches: its key is a single column matched by a single
+   * {@code foreignColumn}, and its statement maps each row on its own.
+   */
+  static boolean isBatchable(ResultMapping propertyMapping, MappedStatement nestedQuery) {
+    String foreignColumn = propertyMapping.getForeignColumn();
+    return foreignColumn != null && foreignColumn.indexOf(',') < 0 && !propertyMapping.isCompositeResult()
+        && nestedQuery.getResultSets() == null
+        && nestedQuery.getResultMaps().stream().noneMatch(resultMap -> resultMap.hasNestedResultMaps());
+  }
+
+  /**
+   * Wraps keys into the parameter object that a batched nested select receives.
+   */
+  static Object keysParameter(List<Object> keys) {
+    return ParamNameResolver.wrapToMapIfCollection(keys, null);
+  }
+
+  static Object keyParameter(Object key) {
+    return keysParameter(Collections.singletonList(key));
+  }
+
+  /**
+   * Adds a key to load, and the parent to set its result on, which may be null.
+   */
+  void add(String keyString, Object key, MetaObject target) {
+    PendingKey pendingKey = pendingKeys.computeIfAbsent(keyString, k -> new PendingKey(key));
+    if (target != null) {
+      pendingKey.targets.add(target);
+    }
+  }
+
+  int size() {
+    return pendingKeys.size();
+  }
+
+  /**
+   * Runs the nested select for all the pending keys and sets the results on their parents.
+   */
+  void execute(Executor executor, Configuration configuration) throws SQLException {
+    if (pendingKeys.isEmpty()) {
+      return;
+    }
+    query(executor);
+    final ResultExtractor resultExtractor = new ResultExtractor(configuration, configuration.getObjectFactory());
+    final String property = propertyMapping.getProperty();
+    final Class<?> targetType = propertyMapping.getJavaType();
+    for (PendingKey pendingKey : pendingKeys.values()) {
+      final Object value = resultExtractor.extractObjectFromList(pendingKey.children, targetType);
+      for (MetaObject target : pendingKey.targets) {
+        if (value != null || configuration.isCallSettersOnNulls() && !target.getSetterType(property).isPrimitive()) {
+          target.setValue(property, value);
+        }
+      }
+    }
+    pendingKeys.clear();
+  }
+
+  /**
+   * Runs the nested select for all the pending keys and collects the rows of each key.
+   */
+  void query(Executor executor) throws SQLException {
+    List<Object> keys = new ArrayList<>(pendingKeys.size());
+    for (PendingKey pendingKey : pendingKeys.values()) {
+      keys.add(pendingKey.key);
+    }
+    final Object parameterObject = keysParameter(keys);
+    final BoundSql boundSql = nestedQuery.getBoundSql(parameterObject);
+    final CacheKey key = executor.createCacheKey(nestedQuery, parameterObject, RowBounds.DEFAULT, boundSql);
+    // the local cache keeps an empty list for a query with a result handler, which must not be found by the
+    // nested select of a parent with the same key
+    key.update(NestedQueryBatch.class.getName());
+    executor.query(nestedQuery, parameterObject, RowBounds.DEFAULT, this, key, boundSql);
+  }
+
+  /**
+   * Returns the rows the last query returned for a key.
+   */
+  List<Object> getChildren(String keyString) {
+    PendingKey pendingKey = pendingKeys.get(keyString);
+    return pendingKey == null ? new ArrayList<>() : pendingKey.children;
+  }
+
+  /**
+   * Adds a row of the nested select to the parents whose key matches its {@code foreignColumn}.
+   */
+  void link(ResultSet rs, Object rowValue) throws SQLException {
+    final String keyString = rs.getString(propertyMapping.getForeignColumn());
+    final PendingKey pendingKey = keyString == null ? null : pendingKeys.get(keyString);
+    if (pendingKey != null) {
+      pendingKey.children.add(rowValue);
+    }
+  }
+
+  @Override
+  public void handleResult(ResultContext<?> resultContext) {
+    throw new ExecutorException("The rows of the batched nested select '" + nestedQuery.getId()
+        + "' must be linked while their result set is open.");
+  }
+
+  private static class PendingKey {
+    private final Object key;
+    private final List<MetaObject> targets = new ArrayList<>(1);
+    private final List<Object> children = new ArrayList<>();
+
+    PendingKey(Object key) {
+      this.key = key;
+    }
+  }
+
+}
@@ -0,0 +1,158 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads the sort columns of the outermost {@code ORDER BY} of a select statement.
+ * <p>
+ * Only plain, unqualified column names or aliases are returned, in upper case. The first sort expression that is not
+ * one (a qualified column, a function, a position) ends the list, so the result is always a prefix of the actual sort
+ * order and can be trusted to infer that rows come ordered by those columns.
+ */
+final class OrderByClause {
+
+  private OrderByClause() {
+    // Prevent Instantiation of Static Class
+  }
+
+  /**
+   * Returns the leading sort columns of a statement, or an empty list.
+   *
+   * @param sql
+   *          a select statement
+   * @return the upper cased names of the leading plain sort columns
+   */
+  static List<String> leadingColumnsOf(String sql) {
+    int start = findOrderBy(sql);
+    if (start < 0) {
+      return Collections.emptyList();
+    }
+    List<String> columns = new ArrayList<>();
+    int depth = 0;
+    int itemStart = start;
+    for (int i = start; i <= sql.length(); i++) {
+      boolean end = i == sql.length() || depth == 0 && isEndOfSortOrder(sql, i);
+      char c = end ? ',' : sql.charAt(i);
+      if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth < 0) {
+        break;
+      } else if (c == ',' && depth == 0) {
+        String column = plainColumnOf(sql.substring(itemStart, i));
+        if (column == null) {
+          break;
+        }
+        columns.add(column);
+        itemStart = i + 1;
+      }
+      if (end) {
+        break;
+      }
+    }
+    return columns;
+  }
+
+  /**
+   * Returns the index after the last {@code ORDER BY} outside of parentheses and quotes, or -1.
+   */
+  private static int findOrderBy(String sql) {
+    int result = -1;
+    int depth = 0;
+    char quote = 0;
+    for (int i = 0; i < sql.length(); i++) {
+      char c = sql.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"' || c == '`') {
+        quote = c;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (depth == 0 && isKeywordAt(sql, i, "ORDER")) {
+        int j = skipWhitespace(sql, i + 5);
+        if (j > i + 5 && isKeywordAt(sql, j, "BY")) {
+          result = j + 2;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the column of a sort item like {@code blog_id desc}, or null if the item is any other expression or is
+   * followed by a clause ending the sort order.
+   */
+  private static String plainColumnOf(String item) {
+    String[] tokens = item.trim().split("\\s+");
+    if (tokens.length == 0 || tokens.length > 4) {
+      return null;
+    }
+    String column = tokens[0];
+    for (int i = 1; i < tokens.length; i++) {
+      String token = tokens[i].toUpperCase(Locale.ENGLISH);
+      if (!("ASC".equals(token) || "DESC".equals(token) || "NULLS".equals(token) || "FIRST".equals(token)
+          || "LAST".equals(token))) {
+        return null;
+      }
+    }
+    if (column.length() > 2 && (column.charAt(0) == '"' || column.charAt(0) == '`')
+        && column.charAt(column.length() - 1) == column.charAt(0)) {
+      column = column.substring(1, column.length() - 1);
+    }
+    if (column.isEmpty() || Character.isDigit(column.charAt(0))) {
+      return null;
+    }
+    for (int i = 0; i < column.length(); i++) {
+      char c = column.charAt(i);
+      if (!(Character.isLetterOrDigit(c) || c == '_' || c == '$')) {
+        return null;
+      }
+    }
+    return column.toUpperCase(Locale.ENGLISH);
+  }
+
+  private static boolean isEndOfSortOrder(String sql, int index) {
+    return isKeywordAt(sql, index, "LIMIT") || isKeywordAt(sql, index, "OFFSET") || isKeywordAt(sql, index, "FETCH")
+        || isKeywordAt(sql, index, "FOR");
+  }
+
+  private static boolean isKeywordAt(String sql, int index, String keyword) {
+    int end = index + keyword.length();
+    return end <= sql.length() && sql.regionMatches(true, index, keyword, 0, keyword.length())
+        && (index == 0 || !isIdentifierPart(sql.charAt(index - 1)))
+        && (end == sql.length() || !isIdentifierPart(sql.charAt(end)));
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.';
+  }
+
+  private static int skipWhitespace(String sql, int index) {
+    while (index < sql.length() && Character.isWhitespace(sql.charAt(index))) {
+      index++;
+    }
+    return index;
+  }
+
+}
@@ -0,0 +1,121 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Arrays;
+
+import org.apache.ibatis.cache.CacheKey;
+
+/**
+ * The objects of nested result maps by row key, in an open addressing table.
+ * <p>
+ * Unlike a {@code HashMap}, the table allocates no entry per object and gives access to the stored key, so that a
+ * reusable probe key can be swapped for the stored one once a row is known.
+ */
+final class RowKeyTable {
+
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final int MAXIMUM_RETAINED_CAPACITY = 1024;
+
+  private CacheKey[] keys;
+  private Object[] values;
+  private int mask;
+  private int size;
+
+  RowKeyTable() {
+    allocate(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Returns the stored key equal to a key, or null.
+   */
+  CacheKey findKey(CacheKey key) {
+    int i = indexOf(key);
+    return i < 0 ? null : keys[i];
+  }
+
+  Object get(CacheKey key) {
+    int i = indexOf(key);
+    return i < 0 ? null : values[i];
+  }
+
+  void put(CacheKey key, Object value) {
+    int i = slotFor(key);
+    while (keys[i] != null && !keys[i].equals(key)) {
+      i = (i + 1) & mask;
+    }
+    if (keys[i] == null) {
+      size++;
+    }
+    keys[i] = key;
+    values[i] = value;
+    if (size * 2 > keys.length) {
+      rehash(keys.length * 2);
+    }
+  }
+
+  void clear() {
+    if (size == 0) {
+      return;
+    }
+    if (keys.length > MAXIMUM_RETAINED_CAPACITY) {
+      allocate(DEFAULT_CAPACITY);
+    } else {
+      Arrays.fill(keys, null);
+      Arrays.fill(values, null);
+    }
+    size = 0;
+  }
+
+  private int indexOf(CacheKey key) {
+    for (int i = slotFor(key);; i = (i + 1) & mask) {
+      CacheKey stored = keys[i];
+      if (stored == null) {
+        return -1;
+      } else if (stored == key || stored.equals(key)) {
+        return i;
+      }
+    }
+  }
+
+  private void rehash(int capacity) {
+    CacheKey[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldKeys[j] != null) {
+        int i = slotFor(oldKeys[j]);
+        while (keys[i] != null) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new CacheKey[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+  }
+
+  private int slotFor(CacheKey key) {
+    int h = key.hashCode() * 0x9e3779b9;
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+}
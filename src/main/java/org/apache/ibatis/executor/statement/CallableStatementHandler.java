@@ -98,6 +98,7 @@ public class CallableStatementHandler extends BaseStatementHandler {
 
   private void registerOutputParameters(CallableStatement cs) throws SQLException {
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    int position = 1;
     for (int i = 0, n = parameterMappings.size(); i < n; i++) {
       ParameterMapping parameterMapping = parameterMappings.get(i);
       if (parameterMapping.getMode() == ParameterMode.OUT || parameterMapping.getMode() == ParameterMode.INOUT) {
@@ -105,16 +106,17 @@ public class CallableStatementHandler extends BaseStatementHandler {
           throw new ExecutorException("The JDBC Type must be specified for output parameter.  Parameter: " + parameterMapping.getProperty());
         } else {
           if (parameterMapping.getNumericScale() != null && (parameterMapping.getJdbcType() == JdbcType.NUMERIC || parameterMapping.getJdbcType() == JdbcType.DECIMAL)) {
-            cs.registerOutParameter(i + 1, parameterMapping.getJdbcType().TYPE_CODE, parameterMapping.getNumericScale());
+            cs.registerOutParameter(position, parameterMapping.getJdbcType().TYPE_CODE, parameterMapping.getNumericScale());
           } else {
             if (parameterMapping.getJdbcTypeName() == null) {
-              cs.registerOutParameter(i + 1, parameterMapping.getJdbcType().TYPE_CODE);
+              cs.registerOutParameter(position, parameterMapping.getJdbcType().TYPE_CODE);
             } else {
-              cs.registerOutParameter(i + 1, parameterMapping.getJdbcType().TYPE_CODE, parameterMapping.getJdbcTypeName());
+              cs.registerOutParameter(position, parameterMapping.getJdbcType().TYPE_CODE, parameterMapping.getJdbcTypeName());
             }
           }
         }
       }
+      position += parameterMapping.getJdbcParameterCount();
     }
   }
 
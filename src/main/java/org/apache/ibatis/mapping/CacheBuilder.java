@@ -24,13 +24,17 @@ import java.util.Properties;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.cache.CacheWeigher;
 import org.apache.ibatis.cache.decorators.BlockingCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.impl.TinyLfuCache;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
 
@@ -42,6 +46,9 @@ public class CacheBuilder {
   private Class<? extends Cache> implementation;
   private final List<Class<? extends Cache>> decorators;
   private Integer size;
+  private Long maxBytes;
+  private Class<? extends CacheWeigher> weigher;
+  private Class<? extends CacheSerializer> serializer;
   private Long clearInterval;
   private boolean readWrite;
   private Properties properties;
@@ -69,6 +76,21 @@ public class CacheBuilder {
     return this;
   }
 
+  public CacheBuilder maxBytes(Long maxBytes) {
+    this.maxBytes = maxBytes;
+    return this;
+  }
+
+  public CacheBuilder weigher(Class<? extends CacheWeigher> weigher) {
+    this.weigher = weigher;
+    return this;
+  }
+
+  public CacheBuilder serializer(Class<? extends CacheSerializer> serializer) {
+    this.serializer = serializer;
+    return this;
+  }
+
   public CacheBuilder clearInterval(Long clearInterval) {
     this.clearInterval = clearInterval;
     return this;
@@ -100,6 +122,9 @@ public class CacheBuilder {
         setCacheProperties(cache);
       }
       cache = setStandardDecorators(cache);
+    } else if (TinyLfuCache.class.equals(cache.getClass()) || OffHeapCache.class.equals(cache.getClass())) {
+      // evicts on its own and is thread-safe, so neither an eviction decorator nor SynchronizedCache is applied
+      cache = setStandardDecorators(cache, false);
     } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
       cache = new LoggingCache(cache);
     }
@@ -116,20 +141,35 @@ public class CacheBuilder {
   }
 
   private Cache setStandardDecorators(Cache cache) {
+    return setStandardDecorators(cache, true);
+  }
+
+  private Cache setStandardDecorators(Cache cache, boolean synchronize) {
     try {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
       if (size != null && metaCache.hasSetter("size")) {
         metaCache.setValue("size", size);
       }
+      if (maxBytes != null && maxBytes > 0) {
+        setMaxBytes(metaCache, cache);
+      }
+      CacheSerializer cacheSerializer = serializer == null ? null : newInstance(serializer, "cache serializer");
+      if (cacheSerializer != null && metaCache.hasSetter("serializer")) {
+        metaCache.setValue("serializer", cacheSerializer);
+      }
+      // an off-heap cache already returns copies, decided before the cache is decorated
+      boolean copiesValues = cache instanceof OffHeapCache;
       if (clearInterval != null) {
         cache = new ScheduledCache(cache);
         ((ScheduledCache) cache).setClearInterval(clearInterval);
       }
-      if (readWrite) {
-        cache = new SerializedCache(cache);
+      if (readWrite && !copiesValues) {
+        cache = cacheSerializer == null ? new SerializedCache(cache) : new SerializedCache(cache, cacheSerializer);
       }
       cache = new LoggingCache(cache);
-      cache = new SynchronizedCache(cache);
+      if (synchronize) {
+        cache = new SynchronizedCache(cache);
+      }
       if (blocking) {
         cache = new BlockingCache(cache);
       }
@@ -139,6 +179,25 @@ public class CacheBuilder {
     }
   }
 
+  private void setMaxBytes(MetaObject metaCache, Cache cache) {
+    if (!metaCache.hasSetter("maxBytes")) {
+      throw new CacheException("Cache '" + id + "' cannot be bounded by maxBytes because " + cache.getClass().getName()
+        + " does not support it. Use the LRU eviction policy or the TINYLFU or OFFHEAP cache type.");
+    }
+    if (weigher != null && metaCache.hasSetter("weigher")) {
+      metaCache.setValue("weigher", newInstance(weigher, "cache weigher"));
+    }
+    metaCache.setValue("maxBytes", maxBytes);
+  }
+
+  private <T> T newInstance(Class<T> type, String description) {
+    try {
+      return type.getConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new CacheException("Could not instantiate " + description + " (" + type + "). Cause: " + e, e);
+    }
+  }
+
   private void setCacheProperties(Cache cache) {
     if (properties != null) {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
@@ -20,6 +20,7 @@ import java.util.Collections;
 import java.util.List;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.Fingerprint;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
@@ -48,6 +49,8 @@ public final class MappedStatement {
   private boolean flushCacheRequired;
   private boolean useCache;
   private boolean resultOrdered;
+  private boolean parallelFlush;
+  private boolean groupBySql;
   private SqlCommandType sqlCommandType;
   private KeyGenerator keyGenerator;
   private String[] keyProperties;
@@ -57,6 +60,7 @@ public final class MappedStatement {
   private Log statementLog;
   private LanguageDriver lang;
   private String[] resultSets;
+  private volatile SqlFingerprint lastSqlFingerprint;
 
   MappedStatement() {
     // constructor disabled
@@ -145,6 +149,34 @@ public final class MappedStatement {
       return this;
     }
 
+    /**
+     * Sets whether the batches of this statement may be executed on a connection of their own, concurrently with the
+     * other batches of the session.
+     *
+     * @param parallelFlush
+     *          true if the batches of this statement are independent of the other batches
+     * @return the builder
+     * @since 3.5.6
+     */
+    public Builder parallelFlush(boolean parallelFlush) {
+      mappedStatement.parallelFlush = parallelFlush;
+      return this;
+    }
+
+    /**
+     * Sets whether the rows of this statement may join the pending batch of the same SQL when other statements were
+     * batched in between.
+     *
+     * @param groupBySql
+     *          true if the rows of this statement may be moved ahead of the statements batched after its first row
+     * @return the builder
+     * @since 3.5.6
+     */
+    public Builder groupBySql(boolean groupBySql) {
+      mappedStatement.groupBySql = groupBySql;
+      return this;
+    }
+
     public Builder keyGenerator(KeyGenerator keyGenerator) {
       mappedStatement.keyGenerator = keyGenerator;
       return this;
@@ -267,6 +299,29 @@ public final class MappedStatement {
     return resultOrdered;
   }
 
+  /**
+   * Whether the batches of this statement may be executed concurrently with the other batches of the session.
+   *
+   * @return true if the batch executor may execute the batches of this statement on a connection of their own
+   * @since 3.5.6
+   * @see org.apache.ibatis.session.Configuration#getBatchFlushParallelism()
+   */
+  public boolean isParallelFlush() {
+    return parallelFlush;
+  }
+
+  /**
+   * Whether the rows of this statement may join the pending batch of the same SQL when other statements were batched
+   * in between.
+   *
+   * @return true if the batch executor may group the rows of this statement by SQL
+   * @since 3.5.6
+   * @see org.apache.ibatis.session.Configuration#isBatchGroupBySql()
+   */
+  public boolean isGroupBySql() {
+    return groupBySql;
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
@@ -323,6 +378,34 @@ public final class MappedStatement {
     return boundSql;
   }
 
+  /**
+   * Returns the fingerprint of a SQL statement of this mapped statement. The fingerprint of the last statement is
+   * kept, so a static statement, whose bound SQL is always the same string, is only hashed once.
+   *
+   * @param sql
+   *          the SQL of a bound SQL of this mapped statement
+   * @return the fingerprint
+   * @since 3.5.6
+   */
+  public Fingerprint getSqlFingerprint(String sql) {
+    SqlFingerprint last = lastSqlFingerprint;
+    if (last == null || last.sql != sql) {
+      last = new SqlFingerprint(sql, Fingerprint.of(sql));
+      lastSqlFingerprint = last;
+    }
+    return last.fingerprint;
+  }
+
+  private static class SqlFingerprint {
+    private final String sql;
+    private final Fingerprint fingerprint;
+
+    SqlFingerprint(String sql, Fingerprint fingerprint) {
+      this.sql = sql;
+      this.fingerprint = fingerprint;
+    }
+  }
+
   private static String[] delimitedStringToArray(String in) {
     if (in == null || in.trim().length() == 0) {
       return null;
@@ -38,6 +38,7 @@ public class ParameterMapping {
   private String resultMapId;
   private String jdbcTypeName;
   private String expression;
+  private Integer expandedItems;
 
   private ParameterMapping() {
   }
@@ -99,6 +100,19 @@ public class ParameterMapping {
       return this;
     }
 
+    /**
+     * Sets the number of items of an array parameter, each item being set as a JDBC parameter of its own.
+     *
+     * @param expandedItems
+     *          the number of items
+     * @return this builder
+     * @since 3.5.6
+     */
+    public Builder expandedItems(Integer expandedItems) {
+      parameterMapping.expandedItems = expandedItems;
+      return this;
+    }
+
     public ParameterMapping build() {
       resolveTypeHandler();
       validate();
@@ -207,6 +221,27 @@ public class ParameterMapping {
     return expression;
   }
 
+  /**
+   * Used when setting parameters to the PreparedStatement. The value of an expanded parameter is an array, and its
+   * items are set to consecutive JDBC parameters with the type handler of this mapping.
+   *
+   * @return the number of items, or null if the parameter is not expanded
+   * @since 3.5.6
+   */
+  public Integer getExpandedItems() {
+    return expandedItems;
+  }
+
+  /**
+   * Returns the number of JDBC parameters set for this mapping.
+   *
+   * @return the number of items of an expanded parameter, 1 otherwise
+   * @since 3.5.6
+   */
+  public int getJdbcParameterCount() {
+    return expandedItems == null ? 1 : expandedItems;
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder("ParameterMapping{");
@@ -220,6 +255,7 @@ public class ParameterMapping {
     sb.append(", resultMapId='").append(resultMapId).append('\'');
     sb.append(", jdbcTypeName='").append(jdbcTypeName).append('\'');
     sb.append(", expression='").append(expression).append('\'');
+    sb.append(", expandedItems=").append(expandedItems);
     sb.append('}');
     return sb.toString();
   }
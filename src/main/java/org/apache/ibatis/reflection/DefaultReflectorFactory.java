@@ -20,6 +20,7 @@ import java.util.concurrent.ConcurrentMap;
 
 public class DefaultReflectorFactory implements ReflectorFactory {
   private boolean classCacheEnabled = true;
+  private boolean lambdaInvokersEnabled;
   private final ConcurrentMap<Class<?>, Reflector> reflectorMap = new ConcurrentHashMap<>();
 
   public DefaultReflectorFactory() {
@@ -35,13 +36,26 @@ public class DefaultReflectorFactory implements ReflectorFactory {
     this.classCacheEnabled = classCacheEnabled;
   }
 
+  @Override
+  public boolean isLambdaInvokersEnabled() {
+    return lambdaInvokersEnabled;
+  }
+
+  @Override
+  public void setLambdaInvokersEnabled(boolean lambdaInvokersEnabled) {
+    if (this.lambdaInvokersEnabled != lambdaInvokersEnabled) {
+      this.lambdaInvokersEnabled = lambdaInvokersEnabled;
+      reflectorMap.clear();
+    }
+  }
+
   @Override
   public Reflector findForClass(Class<?> type) {
     if (classCacheEnabled) {
       // synchronized (type) removed see issue #461
-      return reflectorMap.computeIfAbsent(type, Reflector::new);
+      return reflectorMap.computeIfAbsent(type, t -> new Reflector(t, lambdaInvokersEnabled));
     } else {
-      return new Reflector(type);
+      return new Reflector(type, lambdaInvokersEnabled);
     }
   }
 
@@ -16,6 +16,7 @@
 package org.apache.ibatis.reflection;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
@@ -23,6 +24,7 @@ import java.util.Collection;
 
 import org.apache.ibatis.reflection.invoker.GetFieldInvoker;
 import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.LambdaGetInvoker;
 import org.apache.ibatis.reflection.invoker.MethodInvoker;
 import org.apache.ibatis.reflection.property.PropertyTokenizer;
 
@@ -125,6 +127,10 @@ public class MetaClass {
         declaredField.setAccessible(true);
         Field field = (Field) declaredField.get(invoker);
         return TypeParameterResolver.resolveFieldType(field, reflector.getType());
+      } else if (invoker instanceof LambdaGetInvoker) {
+        Member member = ((LambdaGetInvoker) invoker).getMember();
+        return member instanceof Method ? TypeParameterResolver.resolveReturnType((Method) member, reflector.getType())
+            : TypeParameterResolver.resolveFieldType((Field) member, reflector.getType());
       }
     } catch (NoSuchFieldException | IllegalAccessException e) {
       // Ignored
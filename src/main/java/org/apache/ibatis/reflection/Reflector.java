@@ -37,6 +37,8 @@ import java.util.Map.Entry;
 import org.apache.ibatis.reflection.invoker.AmbiguousMethodInvoker;
 import org.apache.ibatis.reflection.invoker.GetFieldInvoker;
 import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.LambdaGetInvoker;
+import org.apache.ibatis.reflection.invoker.LambdaSetInvoker;
 import org.apache.ibatis.reflection.invoker.MethodInvoker;
 import org.apache.ibatis.reflection.invoker.SetFieldInvoker;
 import org.apache.ibatis.reflection.property.PropertyNamer;
@@ -50,6 +52,7 @@ import org.apache.ibatis.reflection.property.PropertyNamer;
 public class Reflector {
 
   private final Class<?> type;
+  private final boolean lambdaInvokers;
   private final String[] readablePropertyNames;
   private final String[] writablePropertyNames;
   private final Map<String, Invoker> setMethods = new HashMap<>();
@@ -61,7 +64,22 @@ public class Reflector {
   private Map<String, String> caseInsensitivePropertyMap = new HashMap<>();
 
   public Reflector(Class<?> clazz) {
+    this(clazz, false);
+  }
+
+  /**
+   * Creates a reflector, optionally binding the properties to {@link LambdaGetInvoker}s and {@link LambdaSetInvoker}s
+   * instead of core reflection.
+   *
+   * @param clazz
+   *          the class
+   * @param lambdaInvokers
+   *          true to use lambda invokers where a method or field can be bound
+   * @since 3.5.6
+   */
+  public Reflector(Class<?> clazz, boolean lambdaInvokers) {
     type = clazz;
+    this.lambdaInvokers = lambdaInvokers;
     addDefaultConstructor(clazz);
     addGetMethods(clazz);
     addSetMethods(clazz);
@@ -123,11 +141,11 @@ public class Reflector {
   }
 
   private void addGetMethod(String name, Method method, boolean isAmbiguous) {
-    MethodInvoker invoker = isAmbiguous
+    Invoker invoker = isAmbiguous
         ? new AmbiguousMethodInvoker(method, MessageFormat.format(
             "Illegal overloaded getter method with ambiguous type for property ''{0}'' in class ''{1}''. This breaks the JavaBeans specification and can cause unpredictable results.",
             name, method.getDeclaringClass().getName()))
-        : new MethodInvoker(method);
+        : newGetInvoker(method);
     getMethods.put(name, invoker);
     Type returnType = TypeParameterResolver.resolveReturnType(method, type);
     getTypes.put(name, typeToClass(returnType));
@@ -195,7 +213,7 @@ public class Reflector {
   }
 
   private void addSetMethod(String name, Method method) {
-    MethodInvoker invoker = new MethodInvoker(method);
+    Invoker invoker = newSetInvoker(method);
     setMethods.put(name, invoker);
     Type[] paramTypes = TypeParameterResolver.resolveParamTypes(method, type);
     setTypes.put(name, typeToClass(paramTypes[0]));
@@ -245,7 +263,7 @@ public class Reflector {
 
   private void addSetField(Field field) {
     if (isValidPropertyName(field.getName())) {
-      setMethods.put(field.getName(), new SetFieldInvoker(field));
+      setMethods.put(field.getName(), newSetInvoker(field));
       Type fieldType = TypeParameterResolver.resolveFieldType(field, type);
       setTypes.put(field.getName(), typeToClass(fieldType));
     }
@@ -253,12 +271,56 @@ public class Reflector {
 
   private void addGetField(Field field) {
     if (isValidPropertyName(field.getName())) {
-      getMethods.put(field.getName(), new GetFieldInvoker(field));
+      getMethods.put(field.getName(), newGetInvoker(field));
       Type fieldType = TypeParameterResolver.resolveFieldType(field, type);
       getTypes.put(field.getName(), typeToClass(fieldType));
     }
   }
 
+  private Invoker newGetInvoker(Method method) {
+    if (lambdaInvokers) {
+      try {
+        return new LambdaGetInvoker(method);
+      } catch (ReflectionException e) {
+        // not accessible to method handles, use core reflection
+      }
+    }
+    return new MethodInvoker(method);
+  }
+
+  private Invoker newSetInvoker(Method method) {
+    if (lambdaInvokers) {
+      try {
+        return new LambdaSetInvoker(method);
+      } catch (ReflectionException e) {
+        // not accessible to method handles, use core reflection
+      }
+    }
+    return new MethodInvoker(method);
+  }
+
+  private Invoker newGetInvoker(Field field) {
+    if (lambdaInvokers) {
+      try {
+        return new LambdaGetInvoker(field);
+      } catch (ReflectionException e) {
+        // not accessible to method handles, use core reflection
+      }
+    }
+    return new GetFieldInvoker(field);
+  }
+
+  private Invoker newSetInvoker(Field field) {
+    if (lambdaInvokers) {
+      try {
+        return new LambdaSetInvoker(field);
+      } catch (ReflectionException e) {
+        // not accessible to method handles, use core reflection
+      }
+    }
+    return new SetFieldInvoker(field);
+  }
+
   private boolean isValidPropertyName(String name) {
     return !(name.startsWith("$") || "serialVersionUID".equals(name) || "class".equals(name));
   }
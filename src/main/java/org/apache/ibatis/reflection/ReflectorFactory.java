@@ -22,4 +22,27 @@ public interface ReflectorFactory {
   void setClassCacheEnabled(boolean classCacheEnabled);
 
   Reflector findForClass(Class<?> type);
+
+  /**
+   * Returns whether the reflectors bind properties to lambda invokers.
+   *
+   * @return true if lambda invokers are used
+   * @since 3.5.6
+   */
+  default boolean isLambdaInvokersEnabled() {
+    return false;
+  }
+
+  /**
+   * Sets whether the reflectors bind properties to {@link org.apache.ibatis.reflection.invoker.LambdaGetInvoker}s and
+   * {@link org.apache.ibatis.reflection.invoker.LambdaSetInvoker}s instead of core reflection. Factories that do not
+   * support lambda invokers ignore it.
+   *
+   * @param lambdaInvokersEnabled
+   *          true to use lambda invokers
+   * @since 3.5.6
+   */
+  default void setLambdaInvokersEnabled(boolean lambdaInvokersEnabled) {
+    // NOP
+  }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.function.Function;
+
+import org.apache.ibatis.reflection.ReflectionException;
+
+/**
+ * Reads a property through a {@link Function} spun by {@link java.lang.invoke.LambdaMetafactory} from a public getter,
+ * or through a {@link MethodHandle} bound to any other getter or field.
+ *
+ * @since 3.5.6
+ */
+public class LambdaGetInvoker implements Invoker {
+  private final Member member;
+  private final Class<?> type;
+  private final Function<Object, Object> getter;
+  private final MethodHandle handle;
+
+  /**
+   * Creates an invoker calling a getter method.
+   *
+   * @param method
+   *          the getter
+   * @throws ReflectionException
+   *           if the getter cannot be bound, callers fall back to a {@link MethodInvoker}
+   */
+  public LambdaGetInvoker(Method method) {
+    this.member = method;
+    this.type = method.getReturnType();
+    try {
+      if (method.getReturnType() != void.class && LambdaInvokers.canSpin(method)) {
+        this.getter = LambdaInvokers.spinGetter(method);
+        this.handle = null;
+      } else {
+        this.getter = null;
+        this.handle = LambdaInvokers.getterHandle(method);
+      }
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not bind getter " + method + ". Cause: " + t, t);
+    }
+  }
+
+  /**
+   * Creates an invoker reading a field.
+   *
+   * @param field
+   *          the field
+   * @throws ReflectionException
+   *           if the field cannot be bound, callers fall back to a {@link GetFieldInvoker}
+   */
+  public LambdaGetInvoker(Field field) {
+    this.member = field;
+    this.type = field.getType();
+    this.getter = null;
+    try {
+      this.handle = LambdaInvokers.getterHandle(field);
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not bind field " + field + ". Cause: " + t, t);
+    }
+  }
+
+  @Override
+  public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+    return get(target);
+  }
+
+  /**
+   * Reads the property of an object.
+   *
+   * @param target
+   *          the object
+   * @return the value
+   * @throws InvocationTargetException
+   *           wrapping any exception thrown by the getter
+   */
+  public Object get(Object target) throws InvocationTargetException {
+    try {
+      return getter != null ? getter.apply(target) : (Object) handle.invokeExact(target);
+    } catch (Throwable t) {
+      throw new InvocationTargetException(t);
+    }
+  }
+
+  /**
+   * Returns the bound method or field.
+   *
+   * @return a {@link Method} or a {@link Field}
+   */
+  public Member getMember() {
+    return member;
+  }
+
+  @Override
+  public Class<?> getType() {
+    return type;
+  }
+}
@@ -0,0 +1,122 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.apache.ibatis.reflection.Reflector;
+
+/**
+ * Spins the accessors behind {@link LambdaGetInvoker} and {@link LambdaSetInvoker}.
+ * <p>
+ * Public methods of public classes are bound by {@link LambdaMetafactory}, which the JIT inlines like a direct call.
+ * Other methods and fields are bound by a {@link MethodHandle}, after making them accessible when the security
+ * manager allows it.
+ */
+final class LambdaInvokers {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+  private LambdaInvokers() {
+    // Prevent Instantiation of Static Class
+  }
+
+  static boolean canSpin(Method method) {
+    return Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(method.getDeclaringClass().getModifiers())
+        && !Modifier.isStatic(method.getModifiers()) && isVisible(method.getDeclaringClass())
+        && isVisible(method.getReturnType()) && Arrays.stream(method.getParameterTypes()).allMatch(LambdaInvokers::isVisible);
+  }
+
+  @SuppressWarnings("unchecked")
+  static Function<Object, Object> spinGetter(Method getter) throws Throwable {
+    CallSite callSite = LambdaMetafactory.metafactory(LOOKUP, "apply", MethodType.methodType(Function.class),
+        MethodType.methodType(Object.class, Object.class), LOOKUP.unreflect(getter),
+        MethodType.methodType(getter.getReturnType(), getter.getDeclaringClass()).wrap());
+    return (Function<Object, Object>) callSite.getTarget().invoke();
+  }
+
+  @SuppressWarnings("unchecked")
+  static BiConsumer<Object, Object> spinSetter(Method setter) throws Throwable {
+    Class<?> parameterType = MethodType.methodType(setter.getParameterTypes()[0]).wrap().returnType();
+    CallSite callSite = LambdaMetafactory.metafactory(LOOKUP, "accept", MethodType.methodType(BiConsumer.class),
+        SETTER_TYPE, LOOKUP.unreflect(setter), MethodType.methodType(void.class, setter.getDeclaringClass(), parameterType));
+    return (BiConsumer<Object, Object>) callSite.getTarget().invoke();
+  }
+
+  /**
+   * Returns a method handle of type {@code (Object)Object} reading a property by a getter or a field.
+   */
+  static MethodHandle getterHandle(AccessibleObject member) throws IllegalAccessException {
+    MethodHandle handle = member instanceof Method ? LOOKUP.unreflect((Method) accessible(member))
+        : LOOKUP.unreflectGetter((Field) accessible(member));
+    if (Modifier.isStatic(((Member) member).getModifiers())) {
+      handle = MethodHandles.dropArguments(handle, 0, Object.class);
+    }
+    return handle.asType(GETTER_TYPE);
+  }
+
+  /**
+   * Returns a method handle of type {@code (Object,Object)void} writing a property by a setter or a field.
+   */
+  static MethodHandle setterHandle(AccessibleObject member) throws IllegalAccessException {
+    MethodHandle handle = member instanceof Method ? LOOKUP.unreflect((Method) accessible(member))
+        : LOOKUP.unreflectSetter((Field) accessible(member));
+    if (Modifier.isStatic(((Member) member).getModifiers())) {
+      handle = MethodHandles.dropArguments(handle, 0, Object.class);
+    }
+    return handle.asType(SETTER_TYPE);
+  }
+
+  private static AccessibleObject accessible(AccessibleObject member) {
+    if (Reflector.canControlMemberAccessible()) {
+      member.setAccessible(true);
+    }
+    return member;
+  }
+
+  /**
+   * Whether a class can be resolved from MyBatis' class loader, which defines the classes spun by
+   * {@link LambdaMetafactory}.
+   */
+  private static boolean isVisible(Class<?> type) {
+    while (type.isArray()) {
+      type = type.getComponentType();
+    }
+    if (type.isPrimitive()) {
+      return true;
+    }
+    try {
+      return Class.forName(type.getName(), false, LambdaInvokers.class.getClassLoader()) == type;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+}
@@ -0,0 +1,124 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+
+import org.apache.ibatis.reflection.ReflectionException;
+
+/**
+ * Writes a property through a {@link BiConsumer} spun by {@link java.lang.invoke.LambdaMetafactory} from a public
+ * setter, or through a {@link MethodHandle} bound to any other setter or field.
+ *
+ * @since 3.5.6
+ */
+public class LambdaSetInvoker implements Invoker {
+  private final Member member;
+  private final Class<?> type;
+  private final BiConsumer<Object, Object> setter;
+  private final MethodHandle handle;
+
+  /**
+   * Creates an invoker calling a setter method.
+   *
+   * @param method
+   *          the setter
+   * @throws ReflectionException
+   *           if the setter cannot be bound, callers fall back to a {@link MethodInvoker}
+   */
+  public LambdaSetInvoker(Method method) {
+    this.member = method;
+    this.type = method.getParameterTypes()[0];
+    try {
+      if (LambdaInvokers.canSpin(method)) {
+        this.setter = LambdaInvokers.spinSetter(method);
+        this.handle = null;
+      } else {
+        this.setter = null;
+        this.handle = LambdaInvokers.setterHandle(method);
+      }
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not bind setter " + method + ". Cause: " + t, t);
+    }
+  }
+
+  /**
+   * Creates an invoker writing a field.
+   *
+   * @param field
+   *          the field
+   * @throws ReflectionException
+   *           if the field cannot be bound, callers fall back to a {@link SetFieldInvoker}
+   */
+  public LambdaSetInvoker(Field field) {
+    this.member = field;
+    this.type = field.getType();
+    this.setter = null;
+    try {
+      this.handle = LambdaInvokers.setterHandle(field);
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not bind field " + field + ". Cause: " + t, t);
+    }
+  }
+
+  @Override
+  public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+    set(target, args[0]);
+    return null;
+  }
+
+  /**
+   * Writes the property of an object.
+   *
+   * @param target
+   *          the object
+   * @param value
+   *          the value
+   * @throws InvocationTargetException
+   *           wrapping any exception thrown by the setter, or the {@link ClassCastException} or
+   *           {@link NullPointerException} of a value that does not fit the property type
+   */
+  public void set(Object target, Object value) throws InvocationTargetException {
+    try {
+      if (setter != null) {
+        setter.accept(target, value);
+      } else {
+        handle.invokeExact(target, value);
+      }
+    } catch (Throwable t) {
+      throw new InvocationTargetException(t);
+    }
+  }
+
+  /**
+   * Returns the bound method or field.
+   *
+   * @return a {@link Method} or a {@link Field}
+   */
+  public Member getMember() {
+    return member;
+  }
+
+  @Override
+  public Class<?> getType() {
+    return type;
+  }
+}
@@ -63,6 +63,7 @@ public class DefaultParameterHandler implements ParameterHandler {
     ErrorContext.instance().activity("setting parameters").object(mappedStatement.getParameterMap().getId());
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
     if (parameterMappings != null) {
+      int position = 1;
       for (int i = 0; i < parameterMappings.size(); i++) {
         ParameterMapping parameterMapping = parameterMappings.get(i);
         if (parameterMapping.getMode() != ParameterMode.OUT) {
@@ -78,19 +79,31 @@ public class DefaultParameterHandler implements ParameterHandler {
             MetaObject metaObject = configuration.newMetaObject(parameterObject);
             value = metaObject.getValue(propertyName);
           }
-          TypeHandler typeHandler = parameterMapping.getTypeHandler();
-          JdbcType jdbcType = parameterMapping.getJdbcType();
-          if (value == null && jdbcType == null) {
-            jdbcType = configuration.getJdbcTypeForNull();
-          }
-          try {
-            typeHandler.setParameter(ps, i + 1, value, jdbcType);
-          } catch (TypeException | SQLException e) {
-            throw new TypeException("Could not set parameters for mapping: " + parameterMapping + ". Cause: " + e, e);
+          if (parameterMapping.getExpandedItems() == null) {
+            setParameter(ps, position, parameterMapping, value);
+          } else {
+            Object[] items = (Object[]) value;
+            for (int j = 0; j < parameterMapping.getExpandedItems(); j++) {
+              setParameter(ps, position + j, parameterMapping, items[j]);
+            }
           }
         }
+        position += parameterMapping.getJdbcParameterCount();
       }
     }
   }
 
+  private void setParameter(PreparedStatement ps, int position, ParameterMapping parameterMapping, Object value) {
+    TypeHandler typeHandler = parameterMapping.getTypeHandler();
+    JdbcType jdbcType = parameterMapping.getJdbcType();
+    if (value == null && jdbcType == null) {
+      jdbcType = configuration.getJdbcTypeForNull();
+    }
+    try {
+      typeHandler.setParameter(ps, position, value, jdbcType);
+    } catch (TypeException | SQLException e) {
+      throw new TypeException("Could not set parameters for mapping: " + parameterMapping + ". Cause: " + e, e);
+    }
+  }
+
 }
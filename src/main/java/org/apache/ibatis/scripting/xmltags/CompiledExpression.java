@@ -0,0 +1,509 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.scripting.xmltags.DynamicContext.ContextMap;
+
+/**
+ * An expression of the subset of OGNL that dynamic SQL commonly uses, evaluated without OGNL.
+ * <p>
+ * The subset is made of property paths, the {@code size()}, {@code isEmpty()} and {@code length()} methods,
+ * {@code null}, boolean, integer, decimal and string literals, comparisons, {@code and}, {@code or} and {@code not}.
+ * The first property of a path is read from the bindings as OGNL reads it, and the next ones through the
+ * {@link Reflector} of the object, or from a map. An expression outside the subset is not compiled, and an evaluation
+ * that meets a value whose OGNL semantics are not reproduced (for example a comparison between a string and a number,
+ * or a property of a null object) returns {@link #FALLBACK}, so that the expression is evaluated by OGNL instead.
+ */
+abstract class CompiledExpression {
+
+  /**
+   * Returned by an evaluation that must be done by OGNL.
+   */
+  static final Object FALLBACK = new Object();
+
+  private static final CompiledExpression NOT_COMPILED = new CompiledExpression() {
+    @Override
+    Object evaluate(ContextMap bindings) {
+      return FALLBACK;
+    }
+  };
+
+  private static final Set<String> OGNL_KEYWORDS = new HashSet<>(Arrays.asList("and", "or", "not", "in", "instanceof",
+      "new", "true", "false", "null", "eq", "neq", "lt", "lte", "gt", "gte", "shl", "shr", "ushr", "band", "bor", "xor"));
+
+  private static final Map<String, CompiledExpression> expressionCache = new ConcurrentHashMap<>();
+
+  /**
+   * Evaluates an expression against the bindings of a dynamic context.
+   *
+   * @return the value, or {@link #FALLBACK} if the expression must be evaluated by OGNL
+   */
+  static Object evaluate(String expression, ContextMap bindings) {
+    CompiledExpression compiled = expressionCache.computeIfAbsent(expression, CompiledExpression::compile);
+    try {
+      return compiled.evaluate(bindings);
+    } catch (RuntimeException e) {
+      // let OGNL report the error as it always has
+      return FALLBACK;
+    }
+  }
+
+  abstract Object evaluate(ContextMap bindings);
+
+  static CompiledExpression compile(String expression) {
+    List<String> tokens = tokenize(expression);
+    if (tokens == null) {
+      return NOT_COMPILED;
+    }
+    Parser parser = new Parser(tokens);
+    CompiledExpression compiled = parser.parseOr();
+    return compiled == null || !parser.atEnd() ? NOT_COMPILED : compiled;
+  }
+
+  private static List<String> tokenize(String expression) {
+    List<String> tokens = new ArrayList<>();
+    int i = 0;
+    int length = expression.length();
+    while (i < length) {
+      char c = expression.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (Character.isJavaIdentifierStart(c)) {
+        int start = i;
+        while (i < length && Character.isJavaIdentifierPart(expression.charAt(i))) {
+          i++;
+        }
+        tokens.add(expression.substring(start, i));
+      } else if (Character.isDigit(c)) {
+        int start = i;
+        while (i < length && (Character.isDigit(expression.charAt(i)) || expression.charAt(i) == '.')) {
+          i++;
+        }
+        if (i < length && Character.isJavaIdentifierPart(expression.charAt(i))) {
+          // a suffix such as 10L or 1.5B, or a hexadecimal literal
+          return null;
+        }
+        tokens.add(expression.substring(start, i));
+      } else if (c == '\'' || c == '"') {
+        int end = expression.indexOf(c, i + 1);
+        if (end < 0 || expression.substring(i, end).indexOf('\\') >= 0) {
+          return null;
+        }
+        tokens.add(expression.substring(i, end + 1));
+        i = end + 1;
+      } else if (i + 1 < length && isTwoCharOperator(expression.substring(i, i + 2))) {
+        tokens.add(expression.substring(i, i + 2));
+        i += 2;
+      } else if ("().<>!".indexOf(c) >= 0) {
+        tokens.add(String.valueOf(c));
+        i++;
+      } else {
+        return null;
+      }
+    }
+    return tokens;
+  }
+
+  private static boolean isTwoCharOperator(String s) {
+    return "==".equals(s) || "!=".equals(s) || "<=".equals(s) || ">=".equals(s) || "&&".equals(s) || "||".equals(s);
+  }
+
+  private static class Parser {
+    private final List<String> tokens;
+    private int position;
+
+    Parser(List<String> tokens) {
+      this.tokens = tokens;
+    }
+
+    boolean atEnd() {
+      return position == tokens.size();
+    }
+
+    private String peek() {
+      return position < tokens.size() ? tokens.get(position) : null;
+    }
+
+    private boolean accept(String... alternatives) {
+      String token = peek();
+      for (String alternative : alternatives) {
+        if (alternative.equals(token)) {
+          position++;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    CompiledExpression parseOr() {
+      CompiledExpression left = parseAnd();
+      while (left != null && accept("or", "||")) {
+        left = logical(left, parseAnd(), false);
+      }
+      return left;
+    }
+
+    private CompiledExpression parseAnd() {
+      CompiledExpression left = parseEquality();
+      while (left != null && accept("and", "&&")) {
+        left = logical(left, parseEquality(), true);
+      }
+      return left;
+    }
+
+    private CompiledExpression parseEquality() {
+      CompiledExpression left = parseRelational();
+      while (left != null) {
+        if (accept("==", "eq")) {
+          left = comparison(left, parseRelational(), Operator.EQ);
+        } else if (accept("!=", "neq")) {
+          left = comparison(left, parseRelational(), Operator.NE);
+        } else {
+          break;
+        }
+      }
+      return left;
+    }
+
+    private CompiledExpression parseRelational() {
+      CompiledExpression left = parseUnary();
+      while (left != null) {
+        if (accept("<", "lt")) {
+          left = comparison(left, parseUnary(), Operator.LT);
+        } else if (accept("<=", "lte")) {
+          left = comparison(left, parseUnary(), Operator.LE);
+        } else if (accept(">", "gt")) {
+          left = comparison(left, parseUnary(), Operator.GT);
+        } else if (accept(">=", "gte")) {
+          left = comparison(left, parseUnary(), Operator.GE);
+        } else {
+          break;
+        }
+      }
+      return left;
+    }
+
+    private CompiledExpression parseUnary() {
+      if (accept("!", "not")) {
+        CompiledExpression operand = parseUnary();
+        return operand == null ? null : new Not(operand);
+      }
+      return parsePrimary();
+    }
+
+    private CompiledExpression parsePrimary() {
+      String token = peek();
+      if (token == null) {
+        return null;
+      }
+      position++;
+      if ("(".equals(token)) {
+        CompiledExpression inner = parseOr();
+        return inner != null && accept(")") ? inner : null;
+      }
+      if ("null".equals(token)) {
+        return new Literal(null);
+      } else if ("true".equals(token) || "false".equals(token)) {
+        return new Literal(Boolean.valueOf(token));
+      }
+      char first = token.charAt(0);
+      if (first == '\'' || first == '"') {
+        String text = token.substring(1, token.length() - 1);
+        // OGNL reads a single quoted character as a Character
+        return first == '\'' && text.length() == 1 ? new Literal(text.charAt(0)) : new Literal(text);
+      } else if (Character.isDigit(first)) {
+        return parseNumber(token);
+      } else if (Character.isJavaIdentifierStart(first) && !OGNL_KEYWORDS.contains(token)) {
+        return parsePath(token);
+      }
+      return null;
+    }
+
+    private CompiledExpression parseNumber(String token) {
+      if (token.length() > 1 && token.charAt(0) == '0' && token.charAt(1) != '.') {
+        // octal in OGNL
+        return null;
+      }
+      try {
+        if (token.indexOf('.') >= 0) {
+          return new Literal(Double.valueOf(token));
+        }
+        return new Literal(Integer.valueOf(token));
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+
+    private CompiledExpression parsePath(String first) {
+      List<String> names = new ArrayList<>();
+      List<Boolean> calls = new ArrayList<>();
+      names.add(first);
+      calls.add(Boolean.FALSE);
+      while (accept(".")) {
+        String name = peek();
+        if (name == null || !Character.isJavaIdentifierStart(name.charAt(0)) || OGNL_KEYWORDS.contains(name)) {
+          return null;
+        }
+        position++;
+        boolean call = accept("(");
+        if (call && !(accept(")") && ("size".equals(name) || "isEmpty".equals(name) || "length".equals(name)))) {
+          return null;
+        }
+        names.add(name);
+        calls.add(call);
+      }
+      if ("(".equals(peek())) {
+        return null;
+      }
+      return new Path(names.toArray(new String[0]), calls.toArray(new Boolean[0]));
+    }
+
+    private static CompiledExpression logical(CompiledExpression left, CompiledExpression right, boolean and) {
+      return right == null ? null : new Logical(left, right, and);
+    }
+
+    private static CompiledExpression comparison(CompiledExpression left, CompiledExpression right, Operator operator) {
+      return right == null ? null : new Comparison(left, right, operator);
+    }
+  }
+
+  private static class Literal extends CompiledExpression {
+    private final Object value;
+
+    Literal(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    Object evaluate(ContextMap bindings) {
+      return value;
+    }
+  }
+
+  private static class Path extends CompiledExpression {
+    private final String[] names;
+    private final Boolean[] calls;
+
+    Path(String[] names, Boolean[] calls) {
+      this.names = names;
+      this.calls = calls;
+    }
+
+    @Override
+    Object evaluate(ContextMap bindings) {
+      Object value = DynamicContext.getContextProperty(bindings, names[0]);
+      for (int i = 1; i < names.length; i++) {
+        if (value == null) {
+          return FALLBACK;
+        }
+        value = calls[i] ? invoke(value, names[i]) : getProperty(bindings.getReflectorFactory(), value, names[i]);
+        if (value == FALLBACK) {
+          return FALLBACK;
+        }
+      }
+      return value;
+    }
+
+    private static Object invoke(Object target, String method) {
+      if ("size".equals(method)) {
+        if (target instanceof Collection) {
+          return ((Collection<?>) target).size();
+        } else if (target instanceof Map) {
+          return ((Map<?, ?>) target).size();
+        }
+      } else if ("isEmpty".equals(method)) {
+        if (target instanceof Collection) {
+          return ((Collection<?>) target).isEmpty();
+        } else if (target instanceof Map) {
+          return ((Map<?, ?>) target).isEmpty();
+        } else if (target instanceof String) {
+          return ((String) target).isEmpty();
+        }
+      } else if (target instanceof String) {
+        return ((String) target).length();
+      }
+      return FALLBACK;
+    }
+
+    private static Object getProperty(ReflectorFactory reflectorFactory, Object target, String name) {
+      if (target instanceof Map) {
+        // as OGNL's MapPropertyAccessor
+        Map<?, ?> map = (Map<?, ?>) target;
+        switch (name) {
+          case "size":
+            return map.size();
+          case "isEmpty":
+            return map.isEmpty();
+          case "keys":
+          case "keySet":
+            return map.keySet();
+          case "values":
+            return map.values();
+          default:
+            return map.get(name);
+        }
+      }
+      if (target instanceof Collection || target.getClass().isArray() || reflectorFactory == null) {
+        return FALLBACK;
+      }
+      Reflector reflector = reflectorFactory.findForClass(target.getClass());
+      if (!reflector.hasGetter(name)) {
+        return FALLBACK;
+      }
+      try {
+        return reflector.getGetInvoker(name).invoke(target, null);
+      } catch (Exception e) {
+        return FALLBACK;
+      }
+    }
+  }
+
+  private static class Not extends CompiledExpression {
+    private final CompiledExpression operand;
+
+    Not(CompiledExpression operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    Object evaluate(ContextMap bindings) {
+      Object value = operand.evaluate(bindings);
+      return value instanceof Boolean ? !(Boolean) value : FALLBACK;
+    }
+  }
+
+  /**
+   * {@code and} and {@code or} on boolean operands. Like OGNL, the right operand is only evaluated when the left one
+   * does not decide the result.
+   */
+  private static class Logical extends CompiledExpression {
+    private final CompiledExpression left;
+    private final CompiledExpression right;
+    private final boolean and;
+
+    Logical(CompiledExpression left, CompiledExpression right, boolean and) {
+      this.left = left;
+      this.right = right;
+      this.and = and;
+    }
+
+    @Override
+    Object evaluate(ContextMap bindings) {
+      Object value = left.evaluate(bindings);
+      if (!(value instanceof Boolean)) {
+        return FALLBACK;
+      }
+      if ((Boolean) value != and) {
+        return value;
+      }
+      value = right.evaluate(bindings);
+      return value instanceof Boolean ? value : FALLBACK;
+    }
+  }
+
+  private enum Operator {
+    EQ, NE, LT, LE, GT, GE
+  }
+
+  /**
+   * A comparison between values whose comparison by OGNL is unambiguous: null with anything for equality, strings,
+   * booleans for equality, and numbers that are neither {@code BigInteger} nor {@code BigDecimal}.
+   */
+  private static class Comparison extends CompiledExpression {
+    private final CompiledExpression left;
+    private final CompiledExpression right;
+    private final Operator operator;
+
+    Comparison(CompiledExpression left, CompiledExpression right, Operator operator) {
+      this.left = left;
+      this.right = right;
+      this.operator = operator;
+    }
+
+    @Override
+    Object evaluate(ContextMap bindings) {
+      Object leftValue = left.evaluate(bindings);
+      if (leftValue == FALLBACK) {
+        return FALLBACK;
+      }
+      Object rightValue = right.evaluate(bindings);
+      if (rightValue == FALLBACK) {
+        return FALLBACK;
+      }
+      if (operator == Operator.EQ || operator == Operator.NE) {
+        Boolean equal = isEqual(leftValue, rightValue);
+        return equal == null ? FALLBACK : equal == (operator == Operator.EQ);
+      }
+      Integer comparison = compare(leftValue, rightValue);
+      if (comparison == null) {
+        return FALLBACK;
+      }
+      switch (operator) {
+        case LT:
+          return comparison < 0;
+        case LE:
+          return comparison <= 0;
+        case GT:
+          return comparison > 0;
+        default:
+          return comparison >= 0;
+      }
+    }
+
+    private static Boolean isEqual(Object leftValue, Object rightValue) {
+      if (leftValue == null || rightValue == null) {
+        return leftValue == rightValue;
+      } else if (leftValue instanceof Boolean && rightValue instanceof Boolean) {
+        return leftValue.equals(rightValue);
+      }
+      Integer comparison = compare(leftValue, rightValue);
+      return comparison == null ? null : comparison == 0;
+    }
+
+    private static Integer compare(Object leftValue, Object rightValue) {
+      if (leftValue instanceof String && rightValue instanceof String) {
+        return ((String) leftValue).compareTo((String) rightValue);
+      } else if (isIntegral(leftValue) && isIntegral(rightValue)) {
+        return Long.compare(((Number) leftValue).longValue(), ((Number) rightValue).longValue());
+      } else if (isPrimitiveNumber(leftValue) && isPrimitiveNumber(rightValue)) {
+        double leftDouble = ((Number) leftValue).doubleValue();
+        double rightDouble = ((Number) rightValue).doubleValue();
+        return leftDouble == rightDouble ? 0 : leftDouble < rightDouble ? -1 : 1;
+      }
+      return null;
+    }
+
+    private static boolean isIntegral(Object value) {
+      return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    private static boolean isPrimitiveNumber(Object value) {
+      return isIntegral(value) || value instanceof Double || value instanceof Float;
+    }
+  }
+
+}
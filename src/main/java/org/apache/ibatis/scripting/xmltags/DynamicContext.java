@@ -24,6 +24,7 @@ import ognl.OgnlRuntime;
 import ognl.PropertyAccessor;
 
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -50,6 +51,9 @@ public class DynamicContext {
     } else {
       bindings = new ContextMap(null, false);
     }
+    if (configuration.isUseCompiledExpressions()) {
+      bindings.reflectorFactory = configuration.getReflectorFactory();
+    }
     bindings.put(PARAMETER_OBJECT_KEY, parameterObject);
     bindings.put(DATABASE_ID_KEY, configuration.getDatabaseId());
   }
@@ -74,10 +78,28 @@ public class DynamicContext {
     return uniqueNumber++;
   }
 
+  /**
+   * Reads a property of the bindings as OGNL reads a property of the root object.
+   */
+  static Object getContextProperty(Map map, Object name) {
+    Object result = map.get(name);
+    if (map.containsKey(name) || result != null) {
+      return result;
+    }
+
+    Object parameterObject = map.get(PARAMETER_OBJECT_KEY);
+    if (parameterObject instanceof Map) {
+      return ((Map)parameterObject).get(name);
+    }
+
+    return null;
+  }
+
   static class ContextMap extends HashMap<String, Object> {
     private static final long serialVersionUID = 2977601501966151582L;
     private final MetaObject parameterMetaObject;
     private final boolean fallbackParameterObject;
+    private transient ReflectorFactory reflectorFactory;
 
     public ContextMap(MetaObject parameterMetaObject, boolean fallbackParameterObject) {
       this.parameterMetaObject = parameterMetaObject;
@@ -102,25 +124,20 @@ public class DynamicContext {
         return parameterMetaObject.getValue(strKey);
       }
     }
+
+    /**
+     * Returns the reflector factory used by compiled expressions, or null if expressions are evaluated by OGNL only.
+     */
+    ReflectorFactory getReflectorFactory() {
+      return reflectorFactory;
+    }
   }
 
   static class ContextAccessor implements PropertyAccessor {
 
     @Override
     public Object getProperty(Map context, Object target, Object name) {
-      Map map = (Map) target;
-
-      Object result = map.get(name);
-      if (map.containsKey(name) || result != null) {
-        return result;
-      }
-
-      Object parameterObject = map.get(PARAMETER_OBJECT_KEY);
-      if (parameterObject instanceof Map) {
-        return ((Map)parameterObject).get(name);
-      }
-
-      return null;
+      return getContextProperty((Map) target, name);
     }
 
     @Override
@@ -15,9 +15,19 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.List;
+import java.util.Map;
+
 import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -27,6 +37,7 @@ public class DynamicSqlSource implements SqlSource {
 
   private final Configuration configuration;
   private final SqlNode rootSqlNode;
+  private volatile Cache parsedSqlCache;
 
   public DynamicSqlSource(Configuration configuration, SqlNode rootSqlNode) {
     this.configuration = configuration;
@@ -37,12 +48,90 @@ public class DynamicSqlSource implements SqlSource {
   public BoundSql getBoundSql(Object parameterObject) {
     DynamicContext context = new DynamicContext(configuration, parameterObject);
     rootSqlNode.apply(context);
-    SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
     Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
-    SqlSource sqlSource = sqlSourceParser.parse(context.getSql(), parameterType, context.getBindings());
+    SqlSource sqlSource = parse(context.getSql(), parameterType, context.getBindings());
     BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
     context.getBindings().forEach(boundSql::setAdditionalParameter);
     return boundSql;
   }
 
+  /**
+   * Parses the rendered SQL, or reuses the result of a previous call that rendered the same SQL for the same type of
+   * parameter. The text of the rendered SQL reflects every branch taken and the size of every collection iterated,
+   * so it identifies the shape of the statement; the parameter mappings are only reused if the additional parameters
+   * they read have the same types as when they were parsed.
+   */
+  private SqlSource parse(String sql, Class<?> parameterType, Map<String, Object> bindings) {
+    final Cache cache = getParsedSqlCache();
+    CacheKey key = null;
+    if (cache != null) {
+      key = new CacheKey();
+      key.update(parameterType);
+      key.update(sql);
+      ParsedSql parsedSql = (ParsedSql) cache.getObject(key);
+      if (parsedSql != null && parsedSql.matches(configuration.newMetaObject(bindings))) {
+        return parsedSql.sqlSource;
+      }
+    }
+    SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
+    SqlSource sqlSource = sqlSourceParser.parse(sql, parameterType, bindings);
+    if (cache != null) {
+      cache.putObject(key, new ParsedSql(sqlSource, configuration.newMetaObject(bindings)));
+    }
+    return sqlSource;
+  }
+
+  private Cache getParsedSqlCache() {
+    final Integer size = configuration.getDynamicSqlCacheSize();
+    if (size == null) {
+      return null;
+    }
+    Cache cache = parsedSqlCache;
+    if (cache == null) {
+      LruCache lruCache = new LruCache(new PerpetualCache(DynamicSqlSource.class.getName()));
+      lruCache.setSize(size);
+      cache = new SynchronizedCache(lruCache);
+      parsedSqlCache = cache;
+    }
+    return cache;
+  }
+
+  /**
+   * The SQL and parameter mappings parsed from a rendered SQL, with the types of the additional parameters they were
+   * resolved from.
+   */
+  private static class ParsedSql {
+    private final SqlSource sqlSource;
+    private final String[] properties;
+    private final Class<?>[] boundTypes;
+
+    ParsedSql(SqlSource sqlSource, MetaObject metaBindings) {
+      this.sqlSource = sqlSource;
+      List<ParameterMapping> parameterMappings = sqlSource.getBoundSql(null).getParameterMappings();
+      this.properties = new String[parameterMappings.size()];
+      this.boundTypes = new Class<?>[parameterMappings.size()];
+      for (int i = 0; i < properties.length; i++) {
+        properties[i] = parameterMappings.get(i).getProperty();
+        boundTypes[i] = boundType(metaBindings, properties[i]);
+      }
+    }
+
+    boolean matches(MetaObject metaBindings) {
+      for (int i = 0; i < properties.length; i++) {
+        if (boundTypes[i] != boundType(metaBindings, properties[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * The type a parameter mapping is resolved from when its property is an additional parameter, as in
+     * {@link SqlSourceBuilder}.
+     */
+    private static Class<?> boundType(MetaObject metaBindings, String property) {
+      return property != null && metaBindings.hasGetter(property) ? metaBindings.getGetterType(property) : null;
+    }
+  }
+
 }
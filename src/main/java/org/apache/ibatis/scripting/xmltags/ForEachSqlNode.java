@@ -15,8 +15,14 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.parsing.GenericTokenParser;
 import org.apache.ibatis.session.Configuration;
 
@@ -25,6 +31,7 @@ import org.apache.ibatis.session.Configuration;
  */
 public class ForEachSqlNode implements SqlNode {
   public static final String ITEM_PREFIX = "__frch_";
+  private static final Pattern ITEM_PARAMETER = Pattern.compile("\\s*#\\{\\s*([^.,:\\s}]+)([^}]*)}\\s*");
 
   private final ExpressionEvaluator evaluator;
   private final String collectionExpression;
@@ -35,8 +42,65 @@ public class ForEachSqlNode implements SqlNode {
   private final String item;
   private final String index;
   private final Configuration configuration;
+  private final boolean bindCollection;
+  private final Integer chunkSize;
+  private final String chunkSeparator;
+  private final Padding padding;
+
+  /**
+   * How the items of a foreach are padded so that the number of items rendered is a power of two, which limits the
+   * number of distinct statements produced for collections of different sizes.
+   *
+   * @since 3.5.6
+   */
+  public enum Padding {
+    /** The items are not padded. */
+    NONE,
+    /** The last item is repeated. */
+    LAST,
+    /** Null items are added. */
+    NULL
+  }
 
   public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator) {
+    this(configuration, contents, collectionExpression, index, item, open, close, separator, false, null, null);
+  }
+
+  /**
+   * Creates a foreach node that can bind its collection as a whole and split it into chunks.
+   *
+   * @param bindCollection
+   *          true to bind the items as one array parameter, expanded into one JDBC parameter per item, instead of
+   *          binding each item; the contents must then be a single {@code #{item}} parameter
+   * @param chunkSize
+   *          the maximum number of items between {@code open} and {@code close}, or null for no limit
+   * @param chunkSeparator
+   *          the text appended between two chunks instead of the separator, required with a chunk size
+   * @since 3.5.6
+   */
+  public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator,
+      boolean bindCollection, Integer chunkSize, String chunkSeparator) {
+    this(configuration, contents, collectionExpression, index, item, open, close, separator, bindCollection, chunkSize, chunkSeparator, Padding.NONE);
+  }
+
+  /**
+   * Creates a foreach node that can also pad its items to limit the number of distinct statements it renders.
+   *
+   * @param padding
+   *          how the items (of the last chunk) are padded up to the next power of two, not beyond the chunk size
+   * @since 3.5.6
+   * @see #ForEachSqlNode(Configuration, SqlNode, String, String, String, String, String, String, boolean, Integer, String)
+   */
+  public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator,
+      boolean bindCollection, Integer chunkSize, String chunkSeparator, Padding padding) {
+    if (bindCollection && (item == null || index != null || (separator != null && !",".equals(separator.trim())))) {
+      throw new BuilderException("A foreach binding its collection (" + collectionExpression
+          + ") must have an item, no index, and ',' as separator.");
+    }
+    if (chunkSize != null && (chunkSize < 1 || chunkSeparator == null)) {
+      throw new BuilderException("The chunkSize of a foreach (" + collectionExpression
+          + ") must be positive and requires a chunkSeparator.");
+    }
     this.evaluator = new ExpressionEvaluator();
     this.collectionExpression = collectionExpression;
     this.contents = contents;
@@ -46,19 +110,33 @@ public class ForEachSqlNode implements SqlNode {
     this.index = index;
     this.item = item;
     this.configuration = configuration;
+    this.bindCollection = bindCollection;
+    this.chunkSize = chunkSize;
+    this.chunkSeparator = chunkSeparator;
+    this.padding = padding == null ? Padding.NONE : padding;
   }
 
   @Override
   public boolean apply(DynamicContext context) {
     Map<String, Object> bindings = context.getBindings();
-    final Iterable<?> iterable = evaluator.evaluateIterable(collectionExpression, bindings);
+    Iterable<?> iterable = evaluator.evaluateIterable(collectionExpression, bindings);
     if (!iterable.iterator().hasNext()) {
       return true;
     }
+    if (padding != Padding.NONE) {
+      iterable = pad(iterable);
+    }
+    if (bindCollection) {
+      return applyCollection(context, iterable);
+    }
     boolean first = true;
     applyOpen(context);
     int i = 0;
     for (Object o : iterable) {
+      if (isChunkStart(i)) {
+        applyChunkSeparator(context);
+        first = true;
+      }
       DynamicContext oldContext = context;
       if (first || separator == null) {
         context = new PrefixedContext(context, "");
@@ -89,6 +167,77 @@ public class ForEachSqlNode implements SqlNode {
     return true;
   }
 
+  /**
+   * Binds the items of each chunk as one array and appends the contents once for it, the parameter of the contents
+   * being expanded into one JDBC parameter per item by the {@code expand} property.
+   */
+  private boolean applyCollection(DynamicContext context, Iterable<?> iterable) {
+    List<Object> values = new ArrayList<>();
+    for (Object o : iterable) {
+      values.add(o instanceof Map.Entry ? ((Map.Entry<?, ?>) o).getValue() : o);
+    }
+    applyOpen(context);
+    int size = chunkSize == null ? values.size() : chunkSize;
+    for (int start = 0; start < values.size(); start += size) {
+      if (isChunkStart(start)) {
+        applyChunkSeparator(context);
+      }
+      Object[] chunk = toArray(values.subList(start, Math.min(start + size, values.size())));
+      int uniqueNumber = context.getUniqueNumber();
+      context.bind(itemizeItem(item, uniqueNumber), chunk);
+      ExpandedDynamicContext expandedContext = new ExpandedDynamicContext(configuration, context);
+      contents.apply(expandedContext);
+      context.appendSql(expandedContext.getExpandedParameter(itemizeItem(item, uniqueNumber), chunk.length));
+    }
+    applyClose(context);
+    return true;
+  }
+
+  /**
+   * Pads the items, or the items of the last chunk, up to the next power of two.
+   */
+  private List<Object> pad(Iterable<?> iterable) {
+    List<Object> items = new ArrayList<>();
+    for (Object o : iterable) {
+      items.add(o);
+    }
+    int remainder = chunkSize == null ? items.size() : items.size() % chunkSize;
+    if (remainder > 0) {
+      int target = Integer.highestOneBit(remainder) == remainder ? remainder : Integer.highestOneBit(remainder) << 1;
+      if (chunkSize != null) {
+        target = Math.min(target, chunkSize);
+      }
+      Object filler = padding == Padding.LAST ? items.get(items.size() - 1) : null;
+      for (int i = remainder; i < target; i++) {
+        items.add(filler);
+      }
+    }
+    return items;
+  }
+
+  /**
+   * Copies the items into an array of their common class, so that their type handler can be resolved from it.
+   */
+  private static Object[] toArray(List<Object> values) {
+    Class<?> type = null;
+    for (Object value : values) {
+      if (value != null) {
+        Class<?> valueType = value instanceof Enum ? ((Enum<?>) value).getDeclaringClass() : value.getClass();
+        type = type == null || type == valueType ? valueType : Object.class;
+      }
+    }
+    Object[] array = (Object[]) Array.newInstance(type == null ? Object.class : type, values.size());
+    return values.toArray(array);
+  }
+
+  private boolean isChunkStart(int i) {
+    return chunkSize != null && i > 0 && i % chunkSize == 0;
+  }
+
+  private void applyChunkSeparator(DynamicContext context) {
+    context.appendSql(chunkSeparator);
+  }
+
   private void applyIndex(DynamicContext context, Object o, int i) {
     if (index != null) {
       context.bind(index, o);
@@ -169,6 +318,53 @@ public class ForEachSqlNode implements SqlNode {
   }
 
 
+  /**
+   * Collects the contents of a foreach binding its collection, which must be a single parameter of the item.
+   */
+  private class ExpandedDynamicContext extends DynamicContext {
+    private final DynamicContext delegate;
+    private final StringBuilder sql = new StringBuilder();
+
+    public ExpandedDynamicContext(Configuration configuration, DynamicContext delegate) {
+      super(configuration, null);
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Map<String, Object> getBindings() {
+      return delegate.getBindings();
+    }
+
+    @Override
+    public void bind(String name, Object value) {
+      delegate.bind(name, value);
+    }
+
+    @Override
+    public void appendSql(String sql) {
+      this.sql.append(sql);
+    }
+
+    @Override
+    public String getSql() {
+      return delegate.getSql();
+    }
+
+    @Override
+    public int getUniqueNumber() {
+      return delegate.getUniqueNumber();
+    }
+
+    String getExpandedParameter(String name, int items) {
+      Matcher matcher = ITEM_PARAMETER.matcher(sql);
+      if (!matcher.matches() || !matcher.group(1).equals(item) || matcher.group(2).startsWith(".")) {
+        throw new BuilderException("The contents of a foreach binding its collection (" + collectionExpression
+            + ") must be a single #{" + item + "} parameter, but was '" + sql.toString().trim() + "'.");
+      }
+      return "#{" + name + matcher.group(2) + ", expand=" + items + "}";
+    }
+  }
+
   private class PrefixedContext extends DynamicContext {
     private final DynamicContext delegate;
     private final String prefix;
@@ -22,6 +22,7 @@ import ognl.Ognl;
 import ognl.OgnlException;
 
 import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.scripting.xmltags.DynamicContext.ContextMap;
 
 /**
  * Caches OGNL parsed expressions.
@@ -41,6 +42,12 @@ public final class OgnlCache {
   }
 
   public static Object getValue(String expression, Object root) {
+    if (root instanceof ContextMap && ((ContextMap) root).getReflectorFactory() != null) {
+      Object value = CompiledExpression.evaluate(expression, (ContextMap) root);
+      if (value != CompiledExpression.FALLBACK) {
+        return value;
+      }
+    }
     try {
       Map context = Ognl.createDefaultContext(root, MEMBER_ACCESS, CLASS_RESOLVER, null);
       return Ognl.getValue(parseExpression(expression), context, root);
@@ -0,0 +1,43 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+/**
+ * Checks or escapes the values substituted for the {@code ${}} expressions of a statement.
+ * <p>
+ * A filter can, for example, accept only the column names that a statement may sort by, or quote an identifier. It is
+ * called for every substitution, so it must be thread-safe.
+ *
+ * @since 3.5.6
+ * @see org.apache.ibatis.session.Configuration#setSubstitutionFilter(SubstitutionFilter)
+ */
+@FunctionalInterface
+public interface SubstitutionFilter {
+
+  /**
+   * Returns the text to insert into the SQL for a {@code ${}} expression.
+   *
+   * @param expression
+   *          the expression between <code>${</code> and <code>}</code>
+   * @param value
+   *          the value of the expression as a string, empty if the value is null
+   * @return the text to insert
+   * @throws org.apache.ibatis.scripting.ScriptingException
+   *           if the value must not be inserted into the SQL
+   */
+  String filter(String expression, String value);
+
+}
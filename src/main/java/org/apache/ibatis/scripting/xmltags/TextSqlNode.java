@@ -15,10 +15,11 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import org.apache.ibatis.parsing.GenericTokenParser;
-import org.apache.ibatis.parsing.TokenHandler;
 import org.apache.ibatis.scripting.ScriptingException;
 import org.apache.ibatis.type.SimpleTypeRegistry;
 
@@ -26,84 +27,81 @@ import org.apache.ibatis.type.SimpleTypeRegistry;
  * @author Clinton Begin
  */
 public class TextSqlNode implements SqlNode {
-  private final String text;
-  private final Pattern injectionFilter;
+  private final SubstitutionFilter substitutionFilter;
+  // the text is split once into literals with the ${} expressions between them
+  private final String[] literals;
+  private final String[] expressions;
+  private final int literalsLength;
 
   public TextSqlNode(String text) {
-    this(text, null);
+    this(text, (SubstitutionFilter) null);
   }
 
   public TextSqlNode(String text, Pattern injectionFilter) {
-    this.text = text;
-    this.injectionFilter = injectionFilter;
+    this(text, injectionFilter == null ? null : (expression, value) -> {
+      if (!injectionFilter.matcher(value).matches()) {
+        throw new ScriptingException("Invalid input. Please conform to regex" + injectionFilter.pattern());
+      }
+      return value;
+    });
+  }
+
+  /**
+   * @since 3.5.6
+   */
+  public TextSqlNode(String text, SubstitutionFilter substitutionFilter) {
+    this.substitutionFilter = substitutionFilter;
+    List<String> tokens = new ArrayList<>();
+    // the marker stands for each expression in the parsed text, it cannot be mistaken for a character of the text
+    char marker = '\uE000';
+    while (text != null && text.indexOf(marker) >= 0) {
+      marker++;
+    }
+    String separator = String.valueOf(marker);
+    String parsed = new GenericTokenParser("${", "}", content -> {
+      tokens.add(content);
+      return separator;
+    }).parse(text);
+    this.expressions = tokens.toArray(new String[0]);
+    this.literals = new String[expressions.length + 1];
+    int start = 0;
+    for (int i = 0; i < expressions.length; i++) {
+      int end = parsed.indexOf(marker, start);
+      literals[i] = parsed.substring(start, end);
+      start = end + 1;
+    }
+    literals[expressions.length] = parsed.substring(start);
+    this.literalsLength = parsed.length() - expressions.length;
   }
 
   public boolean isDynamic() {
-    DynamicCheckerTokenParser checker = new DynamicCheckerTokenParser();
-    GenericTokenParser parser = createParser(checker);
-    parser.parse(text);
-    return checker.isDynamic();
+    return expressions.length > 0;
   }
 
   @Override
   public boolean apply(DynamicContext context) {
-    GenericTokenParser parser = createParser(new BindingTokenParser(context, injectionFilter));
-    context.appendSql(parser.parse(text));
-    return true;
-  }
-
-  private GenericTokenParser createParser(TokenHandler handler) {
-    return new GenericTokenParser("${", "}", handler);
-  }
-
-  private static class BindingTokenParser implements TokenHandler {
-
-    private DynamicContext context;
-    private Pattern injectionFilter;
-
-    public BindingTokenParser(DynamicContext context, Pattern injectionFilter) {
-      this.context = context;
-      this.injectionFilter = injectionFilter;
+    if (expressions.length == 0) {
+      context.appendSql(literals[0]);
+      return true;
     }
-
-    @Override
-    public String handleToken(String content) {
-      Object parameter = context.getBindings().get("_parameter");
-      if (parameter == null) {
-        context.getBindings().put("value", null);
-      } else if (SimpleTypeRegistry.isSimpleType(parameter.getClass())) {
-        context.getBindings().put("value", parameter);
-      }
-      Object value = OgnlCache.getValue(content, context.getBindings());
-      String srtValue = value == null ? "" : String.valueOf(value); // issue #274 return "" instead of "null"
-      checkInjection(srtValue);
-      return srtValue;
+    Object parameter = context.getBindings().get("_parameter");
+    if (parameter == null) {
+      context.getBindings().put("value", null);
+    } else if (SimpleTypeRegistry.isSimpleType(parameter.getClass())) {
+      context.getBindings().put("value", parameter);
     }
-
-    private void checkInjection(String value) {
-      if (injectionFilter != null && !injectionFilter.matcher(value).matches()) {
-        throw new ScriptingException("Invalid input. Please conform to regex" + injectionFilter.pattern());
-      }
+    StringBuilder sql = new StringBuilder(literalsLength + 16 * expressions.length);
+    for (int i = 0; i < expressions.length; i++) {
+      sql.append(literals[i]).append(substitute(expressions[i], context));
     }
+    context.appendSql(sql.append(literals[expressions.length]).toString());
+    return true;
   }
 
-  private static class DynamicCheckerTokenParser implements TokenHandler {
-
-    private boolean isDynamic;
-
-    public DynamicCheckerTokenParser() {
-      // Prevent Synthetic Access
-    }
-
-    public boolean isDynamic() {
-      return isDynamic;
-    }
-
-    @Override
-    public String handleToken(String content) {
-      this.isDynamic = true;
-      return null;
-    }
+  private String substitute(String expression, DynamicContext context) {
+    Object value = OgnlCache.getValue(expression, context.getBindings());
+    String srtValue = value == null ? "" : String.valueOf(value); // issue #274 return "" instead of "null"
+    return substitutionFilter == null ? srtValue : substitutionFilter.filter(expression, srtValue);
   }
 
 }
@@ -18,6 +18,7 @@ package org.apache.ibatis.scripting.xmltags;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.apache.ibatis.builder.BaseBuilder;
@@ -25,6 +26,7 @@ import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.scripting.defaults.RawSqlSource;
+import org.apache.ibatis.scripting.xmltags.ForEachSqlNode.Padding;
 import org.apache.ibatis.session.Configuration;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -81,7 +83,7 @@ public class XMLScriptBuilder extends BaseBuilder {
       XNode child = node.newXNode(children.item(i));
       if (child.getNode().getNodeType() == Node.CDATA_SECTION_NODE || child.getNode().getNodeType() == Node.TEXT_NODE) {
         String data = child.getStringBody("");
-        TextSqlNode textSqlNode = new TextSqlNode(data);
+        TextSqlNode textSqlNode = new TextSqlNode(data, configuration.getSubstitutionFilter());
         if (textSqlNode.isDynamic()) {
           contents.add(textSqlNode);
           isDynamic = true;
@@ -176,7 +178,12 @@ public class XMLScriptBuilder extends BaseBuilder {
       String open = nodeToHandle.getStringAttribute("open");
       String close = nodeToHandle.getStringAttribute("close");
       String separator = nodeToHandle.getStringAttribute("separator");
-      ForEachSqlNode forEachSqlNode = new ForEachSqlNode(configuration, mixedSqlNode, collection, index, item, open, close, separator);
+      boolean bindCollection = nodeToHandle.getBooleanAttribute("bindCollection", false);
+      Integer chunkSize = nodeToHandle.getIntAttribute("chunkSize");
+      String chunkSeparator = nodeToHandle.getStringAttribute("chunkSeparator");
+      Padding padding = Padding.valueOf(nodeToHandle.getStringAttribute("padding", "none").toUpperCase(Locale.ENGLISH));
+      ForEachSqlNode forEachSqlNode = new ForEachSqlNode(configuration, mixedSqlNode, collection, index, item, open, close, separator,
+          bindCollection, chunkSize, chunkSeparator, padding);
       targetContents.add(forEachSqlNode);
     }
   }
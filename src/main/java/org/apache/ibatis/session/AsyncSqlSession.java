@@ -0,0 +1,151 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Runs statements asynchronously, each one in its own {@link SqlSession}, and so with its own connection.
+ * <p>
+ * Every call opens a session, executes the statement, commits and closes the session on a thread of the executor the
+ * async session was opened with. Independent calls therefore overlap their database latency, but they do not share a
+ * transaction nor a local cache. A failed call completes its future exceptionally with the exception the equivalent
+ * {@link SqlSession} method throws, and its changes are rolled back.
+ *
+ * @since 3.5.6
+ * @see SqlSessionFactory#openAsyncSession()
+ */
+public interface AsyncSqlSession {
+
+  /**
+   * Retrieve a single row mapped from the statement key.
+   * @param <T> the returned object type
+   * @param statement Unique identifier matching the statement to use.
+   * @return Future of the mapped object
+   */
+  <T> CompletableFuture<T> selectOne(String statement);
+
+  /**
+   * Retrieve a single row mapped from the statement key and parameter.
+   * @param <T> the returned object type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Future of the mapped object
+   */
+  <T> CompletableFuture<T> selectOne(String statement, Object parameter);
+
+  /**
+   * Retrieve a list of mapped objects from the statement key.
+   * @param <E> the returned list element type
+   * @param statement Unique identifier matching the statement to use.
+   * @return Future of the list of mapped objects
+   */
+  <E> CompletableFuture<List<E>> selectList(String statement);
+
+  /**
+   * Retrieve a list of mapped objects from the statement key and parameter.
+   * @param <E> the returned list element type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Future of the list of mapped objects
+   */
+  <E> CompletableFuture<List<E>> selectList(String statement, Object parameter);
+
+  /**
+   * Retrieve a list of mapped objects from the statement key and parameter, within the specified row bounds.
+   * @param <E> the returned list element type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param rowBounds  Bounds to limit object retrieval
+   * @return Future of the list of mapped objects
+   */
+  <E> CompletableFuture<List<E>> selectList(String statement, Object parameter, RowBounds rowBounds);
+
+  /**
+   * Execute an insert statement.
+   * @param statement Unique identifier matching the statement to execute.
+   * @return Future of the number of rows affected by the insert.
+   */
+  CompletableFuture<Integer> insert(String statement);
+
+  /**
+   * Execute an insert statement with the given parameter object. Any generated
+   * autoincrement values or selectKey entries will modify the given parameter
+   * object properties. Only the number of rows affected will be returned.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Future of the number of rows affected by the insert.
+   */
+  CompletableFuture<Integer> insert(String statement, Object parameter);
+
+  /**
+   * Execute an update statement.
+   * @param statement Unique identifier matching the statement to execute.
+   * @return Future of the number of rows affected by the update.
+   */
+  CompletableFuture<Integer> update(String statement);
+
+  /**
+   * Execute an update statement.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Future of the number of rows affected by the update.
+   */
+  CompletableFuture<Integer> update(String statement, Object parameter);
+
+  /**
+   * Execute a delete statement.
+   * @param statement Unique identifier matching the statement to execute.
+   * @return Future of the number of rows affected by the delete.
+   */
+  CompletableFuture<Integer> delete(String statement);
+
+  /**
+   * Execute a delete statement.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Future of the number of rows affected by the delete.
+   */
+  CompletableFuture<Integer> delete(String statement, Object parameter);
+
+  /**
+   * Runs a unit of work in its own session, which is committed when the work returns and closed afterwards.
+   * Statements run by the work share a transaction and a local cache.
+   * @param <T> the result type
+   * @param work the work, must not use the session once it returned
+   * @return Future of the result of the work
+   */
+  <T> CompletableFuture<T> execute(Function<SqlSession, T> work);
+
+  /**
+   * Calls a mapper in its own session, which is committed when the call returns and closed afterwards.
+   * @param <M> the mapper type
+   * @param <T> the result type
+   * @param type Mapper interface class
+   * @param call the call, must not use the mapper once it returned
+   * @return Future of the result of the call
+   */
+  <M, T> CompletableFuture<T> execute(Class<M> type, Function<M, T> call);
+
+  /**
+   * Retrieves current configuration.
+   * @return Configuration
+   */
+  Configuration getConfiguration();
+
+}
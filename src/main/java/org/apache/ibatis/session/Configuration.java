@@ -17,14 +17,17 @@ package org.apache.ibatis.session;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -38,7 +41,9 @@ import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.impl.TinyLfuCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
@@ -52,6 +57,7 @@ import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.resultset.CompiledRowMapper;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
@@ -86,7 +92,9 @@ import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.scripting.LanguageDriverRegistry;
 import org.apache.ibatis.scripting.defaults.RawLanguageDriver;
+import org.apache.ibatis.scripting.xmltags.SubstitutionFilter;
 import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.defaults.DefaultAsyncSqlSession;
 import org.apache.ibatis.transaction.Transaction;
 import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
 import org.apache.ibatis.transaction.managed.ManagedTransactionFactory;
@@ -101,6 +109,8 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
  */
 public class Configuration {
 
+  private static final int MAX_COMPILED_ROW_MAPPERS = 1024;
+
   /*************************************************************************
    *  对应mybatis-config.xml的配置信息
    *************************************************************************/
@@ -121,6 +131,13 @@ public class Configuration {
   protected boolean useActualParamName = true;
   protected boolean returnInstanceForEmptyRow;
   protected boolean shrinkWhitespacesInSql;
+  protected boolean batchGroupBySql;
+  protected boolean useCompiledRowMappers;
+  protected boolean useCompiledExpressions;
+  protected SubstitutionFilter substitutionFilter;
+  protected boolean useLambdaInvokers;
+  protected boolean cacheKeySqlFingerprint;
+  protected boolean inferResultOrdered;
 
   protected String logPrefix; /* 日志前缀 */
   protected Class<? extends Log> logImpl; /* 日志实现的抽象接口， 能让程序使用多种日志框架 */
@@ -131,8 +148,14 @@ public class Configuration {
   protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString")); /* 懒加载的触发方法 */
   protected Integer defaultStatementTimeout; /* 默认语句超时 */
   protected Integer defaultFetchSize; /*  */
+  protected Integer nestedSelectBatchSize;
+  protected Integer dynamicSqlCacheSize;
+  protected Integer batchFlushRows;
+  protected Long batchFlushBytes;
+  protected Integer batchFlushParallelism;
   protected ResultSetType defaultResultSetType; /* 默认结果集类型 */
   protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE; /* 默认执行器 */
+  protected java.util.concurrent.Executor asyncExecutor;
   protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL; /* 默认使用PARTIAL,可以自动映射简单结果集 https://www.cnblogs.com/TheViper/p/4480765.html */
   protected AutoMappingUnknownColumnBehavior autoMappingUnknownColumnBehavior = AutoMappingUnknownColumnBehavior.NONE; /* 检测到的未知列时默认不打印日志 */
 
@@ -198,6 +221,20 @@ public class Configuration {
    */
   protected final Map<String, String> cacheRefMap = new HashMap<>(); /* mybatis中缓存和各个namespace的绑定关系 */
 
+  /*
+   * Row mappers compiled for a result map and a column layout, see useCompiledRowMappers. The least recently used are
+   * dropped beyond a limit, as statements built with ${} can return any number of column layouts.
+   */
+  protected final Map<String, CompiledRowMapper> compiledRowMappers = Collections.synchronizedMap(
+      new LinkedHashMap<String, CompiledRowMapper>(16, .75F, true) {
+        private static final long serialVersionUID = -2716513985573904212L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledRowMapper> eldest) {
+          return size() > MAX_COMPILED_ROW_MAPPERS;
+        }
+      });
+
   public Configuration(Environment environment) {
     this();
     this.environment = environment;
@@ -222,6 +259,8 @@ public class Configuration {
     typeAliasRegistry.registerAlias("LRU", LruCache.class);
     typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
     typeAliasRegistry.registerAlias("WEAK", WeakCache.class);
+    typeAliasRegistry.registerAlias("TINYLFU", TinyLfuCache.class);
+    typeAliasRegistry.registerAlias("OFFHEAP", OffHeapCache.class);
 
     typeAliasRegistry.registerAlias("DB_VENDOR", VendorDatabaseIdProvider.class);
 
@@ -334,6 +373,337 @@ public class Configuration {
     this.shrinkWhitespacesInSql = shrinkWhitespacesInSql;
   }
 
+  /**
+   * Gets whether rows of simple result maps are mapped by row mappers compiled for their column layout.
+   *
+   * @return true if compiled row mappers are used
+   * @since 3.5.6
+   */
+  public boolean isUseCompiledRowMappers() {
+    return useCompiledRowMappers;
+  }
+
+  /**
+   * Sets whether rows of simple result maps are mapped by row mappers compiled for their column layout.
+   * <p>
+   * A compiled row mapper reads the columns by index with the type handlers resolved once, and writes the properties
+   * without a {@code MetaObject}. Result maps with constructor mappings, nested result maps, nested queries or nested
+   * property paths, and results that are maps, are still mapped property by property. Up to 1024 row mappers are kept,
+   * the least recently used are compiled again when needed.
+   *
+   * @param useCompiledRowMappers
+   *          true to use compiled row mappers
+   * @since 3.5.6
+   */
+  public void setUseCompiledRowMappers(boolean useCompiledRowMappers) {
+    this.useCompiledRowMappers = useCompiledRowMappers;
+  }
+
+  /**
+   * Gets whether properties are read and written by invokers bound through {@code LambdaMetafactory} and method
+   * handles.
+   *
+   * @return true if lambda invokers are used
+   * @since 3.5.6
+   */
+  public boolean isUseLambdaInvokers() {
+    return useLambdaInvokers;
+  }
+
+  /**
+   * Sets whether properties are read and written by invokers bound through {@code LambdaMetafactory} and method
+   * handles instead of core reflection. The setting is passed to the current {@link ReflectorFactory}, and to any
+   * reflector factory set later.
+   *
+   * @param useLambdaInvokers
+   *          true to use lambda invokers
+   * @since 3.5.6
+   */
+  public void setUseLambdaInvokers(boolean useLambdaInvokers) {
+    this.useLambdaInvokers = useLambdaInvokers;
+    reflectorFactory.setLambdaInvokersEnabled(useLambdaInvokers);
+  }
+
+  /**
+   * Gets whether cache keys hold a SHA-256 fingerprint of the SQL instead of the SQL itself.
+   *
+   * @return true if cache keys hold a fingerprint of the SQL
+   * @since 3.5.6
+   */
+  public boolean isCacheKeySqlFingerprint() {
+    return cacheKeySqlFingerprint;
+  }
+
+  /**
+   * Sets whether cache keys hold a SHA-256 fingerprint of the SQL instead of the SQL itself.
+   * <p>
+   * Comparing fingerprints does not depend on the length of the SQL, and a static statement is hashed only once. The
+   * SQL of a dynamic statement is hashed on every execution. See {@link org.apache.ibatis.cache.Fingerprint} about
+   * collisions.
+   *
+   * @param cacheKeySqlFingerprint
+   *          true to use fingerprints of the SQL
+   * @since 3.5.6
+   */
+  public void setCacheKeySqlFingerprint(boolean cacheKeySqlFingerprint) {
+    this.cacheKeySqlFingerprint = cacheKeySqlFingerprint;
+  }
+
+  /**
+   * Gets whether nested result maps read by a cursor or a result handler are streamed when the SQL is sorted by their
+   * ids.
+   *
+   * @return true if the result order is inferred from the SQL
+   * @since 3.5.6
+   */
+  public boolean isInferResultOrdered() {
+    return inferResultOrdered;
+  }
+
+  /**
+   * Sets whether nested result maps read by a cursor or a result handler are streamed when the SQL is sorted by their
+   * ids.
+   * <p>
+   * A select that is not declared {@code resultOrdered}, whose outermost {@code ORDER BY} starts with the id columns of
+   * its result map (as named in the result set), is then handled as if it were: each parent is passed on as soon as
+   * the next one starts, and the state of its children is dropped, so memory does not grow with the number of rows.
+   *
+   * @param inferResultOrdered
+   *          true to infer the result order from the SQL
+   * @since 3.5.6
+   */
+  public void setInferResultOrdered(boolean inferResultOrdered) {
+    this.inferResultOrdered = inferResultOrdered;
+  }
+
+  /**
+   * Gets the number of parents whose nested selects are loaded by one query.
+   *
+   * @return the batch size, or null if nested selects are run once per parent
+   * @since 3.5.6
+   */
+  public Integer getNestedSelectBatchSize() {
+    return nestedSelectBatchSize;
+  }
+
+  /**
+   * Sets the number of parents whose nested selects are loaded by one query.
+   * <p>
+   * Only the nested selects of an association or a collection that declares a {@code foreignColumn} are batched. Their
+   * statement then receives the list of keys (as {@code list} or {@code collection}) instead of a single key, and must
+   * return the {@code foreignColumn} so that each row can be linked back to its parents. The eager loads of a select
+   * returning a list are collected and run once per batch, and a lazy load also loads the same property of the other
+   * objects of the list that have not loaded it yet, up to the batch size. The loads of a cursor or a result handler
+   * pass a list with a single key.
+   *
+   * @param nestedSelectBatchSize
+   *          the batch size, or null to run nested selects once per parent
+   * @since 3.5.6
+   */
+  public void setNestedSelectBatchSize(Integer nestedSelectBatchSize) {
+    this.nestedSelectBatchSize = nestedSelectBatchSize;
+  }
+
+  /**
+   * Gets the number of parsed SQL shapes kept by each dynamic SQL statement.
+   *
+   * @return the number of shapes, or null if dynamic SQL is parsed on every call
+   * @since 3.5.6
+   */
+  public Integer getDynamicSqlCacheSize() {
+    return dynamicSqlCacheSize;
+  }
+
+  /**
+   * Sets the number of parsed SQL shapes kept by each dynamic SQL statement.
+   * <p>
+   * A dynamic statement renders its SQL on every call, but when the rendered SQL is the same as a previous one (the
+   * same branches were taken and the same number of items were iterated) for the same type of parameter, the
+   * {@code #{}} placeholders are not parsed again and their parameter mappings are reused. The least recently used
+   * shapes are dropped first.
+   *
+   * @param dynamicSqlCacheSize
+   *          the number of shapes, or null to parse dynamic SQL on every call
+   * @since 3.5.6
+   */
+  public void setDynamicSqlCacheSize(Integer dynamicSqlCacheSize) {
+    this.dynamicSqlCacheSize = dynamicSqlCacheSize;
+  }
+
+  /**
+   * Gets whether the expressions of dynamic SQL are evaluated without OGNL when possible.
+   *
+   * @return true if compiled expressions are used
+   * @since 3.5.6
+   */
+  public boolean isUseCompiledExpressions() {
+    return useCompiledExpressions;
+  }
+
+  /**
+   * Sets whether the expressions of dynamic SQL are evaluated without OGNL when possible.
+   * <p>
+   * Expressions made of property paths, {@code size()}, {@code isEmpty()}, literals, comparisons, {@code and},
+   * {@code or} and {@code not} are compiled once, and evaluated by reading the properties through the reflector of
+   * each class instead of creating an OGNL context. Other expressions, and evaluations whose result could differ from
+   * OGNL's (for example comparing a string with a number), are evaluated by OGNL.
+   *
+   * @param useCompiledExpressions
+   *          true to use compiled expressions
+   * @since 3.5.6
+   */
+  public void setUseCompiledExpressions(boolean useCompiledExpressions) {
+    this.useCompiledExpressions = useCompiledExpressions;
+  }
+
+  /**
+   * Gets the filter applied to the values substituted for {@code ${}} expressions.
+   *
+   * @return the filter, or null if values are substituted as they are
+   * @since 3.5.6
+   */
+  public SubstitutionFilter getSubstitutionFilter() {
+    return substitutionFilter;
+  }
+
+  /**
+   * Sets the filter applied to the values substituted for {@code ${}} expressions of the statements parsed afterwards.
+   * <p>
+   * The filter can reject a value, for example a column name that is not in a list of sortable columns, or escape
+   * it.
+   *
+   * @param substitutionFilter
+   *          the filter, or null to substitute values as they are
+   * @since 3.5.6
+   */
+  public void setSubstitutionFilter(SubstitutionFilter substitutionFilter) {
+    this.substitutionFilter = substitutionFilter;
+  }
+
+  /**
+   * Gets the executor that runs the calls of the async sessions opened by {@link SqlSessionFactory#openAsyncSession()}.
+   *
+   * @return the executor, or null to use {@link DefaultAsyncSqlSession#getDefaultExecutor()}
+   * @since 3.5.6
+   */
+  public java.util.concurrent.Executor getAsyncExecutor() {
+    return asyncExecutor;
+  }
+
+  /**
+   * Sets the executor that runs the calls of the async sessions opened by {@link SqlSessionFactory#openAsyncSession()}.
+   * <p>
+   * Each call blocks a thread of this executor while it waits for a connection and for the database. The default runs
+   * every call on its own virtual thread when the JVM has them.
+   *
+   * @param asyncExecutor
+   *          the executor, or null to use {@link DefaultAsyncSqlSession#getDefaultExecutor()}
+   * @since 3.5.6
+   */
+  public void setAsyncExecutor(java.util.concurrent.Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  /**
+   * Gets whether the batch executor keeps one open statement per SQL instead of one per change of SQL.
+   *
+   * @return true if pending batches are grouped by SQL
+   * @since 3.5.6
+   */
+  public boolean isBatchGroupBySql() {
+    return batchGroupBySql;
+  }
+
+  /**
+   * Sets whether the batch executor keeps one open statement per SQL instead of one per change of SQL.
+   * <p>
+   * Only the inserts marked with {@link MappedStatement#isGroupBySql()} are grouped: such an insert is added to the
+   * batch of the same statement even when other marked inserts were batched in between, and batches are executed in
+   * the order their SQL was first added. Every other statement, including an unmarked insert, keeps its place, and no
+   * row batched after it is moved before it.
+   * <p>
+   * A row that joins an earlier batch runs before the marked inserts batched since that batch started, so mark an
+   * insert only when its rows never depend on those. For a child table this holds when, since the last statement that
+   * keeps its place, its parent table always received a row before it did; otherwise a child row could run ahead of a
+   * parent batched later and break a foreign key.
+   *
+   * @param batchGroupBySql
+   *          true to group pending batches by SQL
+   * @since 3.5.6
+   */
+  public void setBatchGroupBySql(boolean batchGroupBySql) {
+    this.batchGroupBySql = batchGroupBySql;
+  }
+
+  /**
+   * Gets the number of pending rows after which the batch executor executes its batches.
+   *
+   * @return the row threshold, or null if pending batches are only executed by a flush
+   * @since 3.5.6
+   */
+  public Integer getBatchFlushRows() {
+    return batchFlushRows;
+  }
+
+  /**
+   * Sets the number of pending rows after which the batch executor executes its batches.
+   *
+   * @param batchFlushRows
+   *          the row threshold, or null to disable
+   * @since 3.5.6
+   */
+  public void setBatchFlushRows(Integer batchFlushRows) {
+    this.batchFlushRows = batchFlushRows;
+  }
+
+  /**
+   * Gets the estimated size of the pending parameters after which the batch executor executes its batches.
+   *
+   * @return the size threshold in bytes, or null if pending batches are only executed by a flush
+   * @since 3.5.6
+   */
+  public Long getBatchFlushBytes() {
+    return batchFlushBytes;
+  }
+
+  /**
+   * Sets the estimated size of the pending parameters after which the batch executor executes its batches.
+   *
+   * @param batchFlushBytes
+   *          the size threshold in bytes, or null to disable
+   * @since 3.5.6
+   * @see org.apache.ibatis.cache.ResultSizeEstimator
+   */
+  public void setBatchFlushBytes(Long batchFlushBytes) {
+    this.batchFlushBytes = batchFlushBytes;
+  }
+
+  /**
+   * Gets the number of connections the batch executor executes independent batches on concurrently.
+   *
+   * @return the number of connections, or null if batches are executed one after another on the session connection
+   * @since 3.5.6
+   */
+  public Integer getBatchFlushParallelism() {
+    return batchFlushParallelism;
+  }
+
+  /**
+   * Sets the number of connections the batch executor executes independent batches on concurrently.
+   * <p>
+   * Only the inserts marked with {@link MappedStatement#isParallelFlush()} are spread over the connections, which is
+   * suitable for batches that do not depend on each other, such as bulk loads into unrelated tables. The extra
+   * connections are opened from the environment, rows they write are not visible to the session before commit, and
+   * they are committed after the session connection on a best effort basis.
+   *
+   * @param batchFlushParallelism
+   *          the number of connections including the session connection, or null to disable
+   * @since 3.5.6
+   */
+  public void setBatchFlushParallelism(Integer batchFlushParallelism) {
+    this.batchFlushParallelism = batchFlushParallelism;
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
@@ -604,6 +974,9 @@ public class Configuration {
 
   public void setReflectorFactory(ReflectorFactory reflectorFactory) {
     this.reflectorFactory = reflectorFactory;
+    if (useLambdaInvokers) {
+      reflectorFactory.setLambdaInvokersEnabled(true);
+    }
   }
 
   public ObjectFactory getObjectFactory() {
@@ -963,6 +1336,16 @@ public class Configuration {
     return incompleteStatements;
   }
 
+  /**
+   * Gets the row mappers compiled so far, keyed by result map id and column layout.
+   *
+   * @return the compiled row mappers
+   * @since 3.5.6
+   */
+  public Map<String, CompiledRowMapper> getCompiledRowMappers() {
+    return compiledRowMappers;
+  }
+
   /**
    * 将mapper中的各个xml格式的sql语句加入incompleteStatements
    * @param incompleteStatement
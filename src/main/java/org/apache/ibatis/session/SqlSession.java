@@ -21,6 +21,8 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.Flow;
+import org.apache.ibatis.cursor.defaults.CursorPublisher;
 import org.apache.ibatis.executor.BatchResult;
 
 /**
@@ -144,6 +146,45 @@ public interface SqlSession extends Closeable {
    */
   <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * A Publisher emits the same results as a Cursor, fetching them only as its subscriber requests them.
+   * The cursor is opened on the first request and closed on completion, error or cancellation.
+   * @param <T> the returned element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @return Publisher of mapped objects
+   * @since 3.5.6
+   */
+  default <T> Flow.Publisher<T> selectPublisher(String statement) {
+    return selectPublisher(statement, null);
+  }
+
+  /**
+   * A Publisher emits the same results as a Cursor, fetching them only as its subscriber requests them.
+   * The cursor is opened on the first request and closed on completion, error or cancellation.
+   * @param <T> the returned element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Publisher of mapped objects
+   * @since 3.5.6
+   */
+  default <T> Flow.Publisher<T> selectPublisher(String statement, Object parameter) {
+    return selectPublisher(statement, parameter, RowBounds.DEFAULT);
+  }
+
+  /**
+   * A Publisher emits the same results as a Cursor, fetching them only as its subscriber requests them.
+   * The cursor is opened on the first request and closed on completion, error or cancellation.
+   * @param <T> the returned element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param rowBounds  Bounds to limit object retrieval
+   * @return Publisher of mapped objects
+   * @since 3.5.6
+   */
+  default <T> Flow.Publisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds) {
+    return new CursorPublisher<>(() -> selectCursor(statement, parameter, rowBounds));
+  }
+
   /**
    * Retrieve a single row mapped from the statement key and parameter
    * using a {@code ResultHandler}.
@@ -16,6 +16,9 @@
 package org.apache.ibatis.session;
 
 import java.sql.Connection;
+import java.util.concurrent.Executor;
+
+import org.apache.ibatis.session.defaults.DefaultAsyncSqlSession;
 
 /**
  * Creates an {@link SqlSession} out of a connection or a DataSource
@@ -42,4 +45,28 @@ public interface SqlSessionFactory {
 
   Configuration getConfiguration();
 
+  /**
+   * Opens an async session that runs each call in its own session, with the default executor type, on the
+   * {@link Configuration#getAsyncExecutor() async executor} of the configuration.
+   *
+   * @return the async session
+   * @since 3.5.6
+   */
+  default AsyncSqlSession openAsyncSession() {
+    return openAsyncSession(getConfiguration().getAsyncExecutor());
+  }
+
+  /**
+   * Opens an async session that runs each call in its own session, with the default executor type, on the given
+   * executor.
+   *
+   * @param executor
+   *          runs the calls, or null for the default executor
+   * @return the async session
+   * @since 3.5.6
+   */
+  default AsyncSqlSession openAsyncSession(Executor executor) {
+    return new DefaultAsyncSqlSession(this, getConfiguration().getDefaultExecutorType(), executor);
+  }
+
 }
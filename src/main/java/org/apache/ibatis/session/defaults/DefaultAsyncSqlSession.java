@@ -0,0 +1,162 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session.defaults;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * The default implementation for {@link AsyncSqlSession}.
+ * Note that this class is thread safe, as it holds no session of its own.
+ *
+ * @since 3.5.6
+ */
+public class DefaultAsyncSqlSession implements AsyncSqlSession {
+
+  private final SqlSessionFactory sqlSessionFactory;
+  private final ExecutorType executorType;
+  private final Executor executor;
+
+  /**
+   * @param sqlSessionFactory
+   *          opens the session of each call
+   * @param executorType
+   *          the executor type of those sessions
+   * @param executor
+   *          runs the calls, or null for {@link #getDefaultExecutor()}
+   */
+  public DefaultAsyncSqlSession(SqlSessionFactory sqlSessionFactory, ExecutorType executorType, Executor executor) {
+    this.sqlSessionFactory = sqlSessionFactory;
+    this.executorType = executorType;
+    this.executor = executor == null ? getDefaultExecutor() : executor;
+  }
+
+  /**
+   * Returns the executor used when none is configured: a new virtual thread per call when the JVM has them (Java 21
+   * and later), otherwise a pool of daemon threads that grows on demand and releases the threads after a minute
+   * without work. In both cases the number of concurrent calls is bounded by the connections of the data source.
+   *
+   * @return the shared default executor
+   */
+  public static Executor getDefaultExecutor() {
+    return AsyncThreads.EXECUTOR;
+  }
+
+  @Override
+  public <T> CompletableFuture<T> selectOne(String statement) {
+    return execute(sqlSession -> sqlSession.selectOne(statement));
+  }
+
+  @Override
+  public <T> CompletableFuture<T> selectOne(String statement, Object parameter) {
+    return execute(sqlSession -> sqlSession.selectOne(statement, parameter));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement) {
+    return execute(sqlSession -> sqlSession.selectList(statement));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter) {
+    return execute(sqlSession -> sqlSession.selectList(statement, parameter));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter, RowBounds rowBounds) {
+    return execute(sqlSession -> sqlSession.selectList(statement, parameter, rowBounds));
+  }
+
+  @Override
+  public CompletableFuture<Integer> insert(String statement) {
+    return execute(sqlSession -> sqlSession.insert(statement));
+  }
+
+  @Override
+  public CompletableFuture<Integer> insert(String statement, Object parameter) {
+    return execute(sqlSession -> sqlSession.insert(statement, parameter));
+  }
+
+  @Override
+  public CompletableFuture<Integer> update(String statement) {
+    return execute(sqlSession -> sqlSession.update(statement));
+  }
+
+  @Override
+  public CompletableFuture<Integer> update(String statement, Object parameter) {
+    return execute(sqlSession -> sqlSession.update(statement, parameter));
+  }
+
+  @Override
+  public CompletableFuture<Integer> delete(String statement) {
+    return execute(sqlSession -> sqlSession.delete(statement));
+  }
+
+  @Override
+  public CompletableFuture<Integer> delete(String statement, Object parameter) {
+    return execute(sqlSession -> sqlSession.delete(statement, parameter));
+  }
+
+  @Override
+  public <T> CompletableFuture<T> execute(Function<SqlSession, T> work) {
+    return CompletableFuture.supplyAsync(() -> {
+      try (SqlSession sqlSession = sqlSessionFactory.openSession(executorType)) {
+        T result = work.apply(sqlSession);
+        // also publishes the results to the second level caches, which a session closed without commit discards
+        sqlSession.commit();
+        return result;
+      }
+    }, executor);
+  }
+
+  @Override
+  public <M, T> CompletableFuture<T> execute(Class<M> type, Function<M, T> call) {
+    return execute(sqlSession -> call.apply(sqlSession.getMapper(type)));
+  }
+
+  @Override
+  public Configuration getConfiguration() {
+    return sqlSessionFactory.getConfiguration();
+  }
+
+  private static final class AsyncThreads {
+    private static final Executor EXECUTOR = createExecutor();
+
+    private static Executor createExecutor() {
+      try {
+        // Java 21 and later
+        return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (ReflectiveOperationException e) {
+        return Executors.newCachedThreadPool(runnable -> {
+          Thread thread = new Thread(runnable, "mybatis-async");
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+    }
+  }
+
+}
@@ -15,6 +15,9 @@
  */
 package org.apache.ibatis.builder;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.session.Configuration;
@@ -53,4 +56,17 @@ public class SqlSourceBuilderTest {
     String shrankWhitespacesInSql = "SELECT * FROM user WHERE user_id = 1";
     Assertions.assertEquals(shrankWhitespacesInSql, actual);
   }
+
+  @Test
+  void testExpandedParameter() {
+    Map<String, Object> additionalParameters = new HashMap<>();
+    additionalParameters.put("ids", new Long[] { 1L, 2L, 3L });
+    SqlSource sqlSource = sqlSourceBuilder.parse("SELECT * FROM user WHERE user_id IN (#{ids, expand=3})", null, additionalParameters);
+    BoundSql boundSql = sqlSource.getBoundSql(null);
+
+    Assertions.assertEquals("SELECT * FROM user WHERE user_id IN (?, ?, ?)", boundSql.getSql());
+    Assertions.assertEquals(1, boundSql.getParameterMappings().size());
+    Assertions.assertEquals(Long.class, boundSql.getParameterMappings().get(0).getJavaType());
+    Assertions.assertEquals(3, boundSql.getParameterMappings().get(0).getJdbcParameterCount());
+  }
 }
@@ -101,6 +101,19 @@ class XmlConfigBuilderTest {
       assertNull(config.getConfigurationFactory());
       assertThat(config.getTypeHandlerRegistry().getTypeHandler(RoundingMode.class)).isInstanceOf(EnumTypeHandler.class);
       assertThat(config.isShrinkWhitespacesInSql()).isFalse();
+      assertThat(config.isUseCompiledRowMappers()).isFalse();
+      assertThat(config.isUseLambdaInvokers()).isFalse();
+      assertThat(config.isCacheKeySqlFingerprint()).isFalse();
+      assertThat(config.isInferResultOrdered()).isFalse();
+      assertNull(config.getNestedSelectBatchSize());
+      assertNull(config.getDynamicSqlCacheSize());
+      assertThat(config.isUseCompiledExpressions()).isFalse();
+      assertNull(config.getSubstitutionFilter());
+      assertThat(config.getReflectorFactory().isLambdaInvokersEnabled()).isFalse();
+      assertThat(config.isBatchGroupBySql()).isFalse();
+      assertNull(config.getBatchFlushRows());
+      assertNull(config.getBatchFlushBytes());
+      assertNull(config.getBatchFlushParallelism());
       assertThat(config.getDefaultSqlProviderType()).isNull();
     }
   }
@@ -197,6 +210,18 @@ class XmlConfigBuilderTest {
       assertThat(config.getVfsImpl().getName()).isEqualTo(JBoss6VFS.class.getName());
       assertThat(config.getConfigurationFactory().getName()).isEqualTo(String.class.getName());
       assertThat(config.isShrinkWhitespacesInSql()).isTrue();
+      assertThat(config.isUseCompiledRowMappers()).isTrue();
+      assertThat(config.isUseLambdaInvokers()).isTrue();
+      assertThat(config.isCacheKeySqlFingerprint()).isTrue();
+      assertThat(config.isInferResultOrdered()).isTrue();
+      assertThat(config.getNestedSelectBatchSize()).isEqualTo(100);
+      assertThat(config.getDynamicSqlCacheSize()).isEqualTo(64);
+      assertThat(config.isUseCompiledExpressions()).isTrue();
+      assertThat(config.getSubstitutionFilter()).isInstanceOf(CustomSubstitutionFilter.class);
+      assertThat(config.isBatchGroupBySql()).isTrue();
+      assertThat(config.getBatchFlushRows()).isEqualTo(500);
+      assertThat(config.getBatchFlushBytes()).isEqualTo(1048576L);
+      assertThat(config.getBatchFlushParallelism()).isEqualTo(4);
       assertThat(config.getDefaultSqlProviderType().getName()).isEqualTo(MySqlProvider.class.getName());
 
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blogauthor")).isEqualTo(Author.class);
@@ -216,6 +241,7 @@ class XmlConfigBuilderTest {
       assertThat(config.getObjectWrapperFactory()).isInstanceOf(CustomObjectWrapperFactory.class);
 
       assertThat(config.getReflectorFactory()).isInstanceOf(CustomReflectorFactory.class);
+      assertThat(config.getReflectorFactory().isLambdaInvokersEnabled()).isTrue();
 
       ExamplePlugin plugin = (ExamplePlugin) config.getInterceptors().get(0);
       assertThat(plugin.getProperties().size()).isEqualTo(1);
@@ -19,7 +19,9 @@ import static com.googlecode.catchexception.apis.BDDCatchException.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.BDDAssertions.then;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.regex.Pattern;
 
 import org.apache.ibatis.builder.xml.XMLMapperBuilder;
@@ -44,6 +46,21 @@ class XmlMapperBuilderTest {
     }
   }
 
+  @Test
+  void shouldLoadCacheWithFlushIntervalAndMaxBytes() throws Exception {
+    Configuration configuration = new Configuration();
+    String mapper = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+        + "<!DOCTYPE mapper PUBLIC \"-//mybatis.org//DTD Mapper 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-mapper.dtd\">\n"
+        + "<mapper namespace=\"org.apache.ibatis.builder.CacheAttributesMapper\">\n"
+        + "  <cache eviction=\"LRU\" flushInterval=\"60000\" maxBytes=\"1048576\" readOnly=\"true\"/>\n"
+        + "</mapper>\n";
+    try (InputStream inputStream = new ByteArrayInputStream(mapper.getBytes(StandardCharsets.UTF_8))) {
+      XMLMapperBuilder builder = new XMLMapperBuilder(inputStream, configuration, "CacheAttributesMapper.xml", configuration.getSqlFragments());
+      builder.parse();
+    }
+    assertThat(configuration.hasCache("org.apache.ibatis.builder.CacheAttributesMapper")).isTrue();
+  }
+
   @Test
   void mappedStatementWithOptions() throws Exception {
     Configuration configuration = new Configuration();
@@ -22,13 +22,16 @@ import java.io.Reader;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.scripting.ScriptingException;
 import org.apache.ibatis.scripting.xmltags.ChooseSqlNode;
 import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
 import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
@@ -36,6 +39,7 @@ import org.apache.ibatis.scripting.xmltags.IfSqlNode;
 import org.apache.ibatis.scripting.xmltags.MixedSqlNode;
 import org.apache.ibatis.scripting.xmltags.SetSqlNode;
 import org.apache.ibatis.scripting.xmltags.SqlNode;
+import org.apache.ibatis.scripting.xmltags.SubstitutionFilter;
 import org.apache.ibatis.scripting.xmltags.TextSqlNode;
 import org.apache.ibatis.scripting.xmltags.WhereSqlNode;
 import org.apache.ibatis.session.Configuration;
@@ -399,6 +403,123 @@ class DynamicSqlSourceTest extends BaseDataTest {
     Assertions.assertEquals("id=", sql);
   }
 
+  @Test
+  void shouldSubstituteExpressionsBetweenLiterals() {
+    final TextSqlNode textSqlNode = new TextSqlNode("SELECT ${column} AS \\${column} FROM ${table}");
+    final DynamicSqlSource source = new DynamicSqlSource(new Configuration(), mixedContents(textSqlNode));
+    String sql = source.getBoundSql(new HashMap<String, Object>() {{ put("column", "NAME"); put("table", "BLOG"); }}).getSql();
+    assertEquals("SELECT NAME AS ${column} FROM BLOG", sql);
+    Assertions.assertTrue(textSqlNode.isDynamic());
+    Assertions.assertFalse(new TextSqlNode("SELECT \\${column} FROM BLOG").isDynamic());
+  }
+
+  @Test
+  void shouldApplySubstitutionFilterToSubstitutedValues() {
+    final SubstitutionFilter sortableColumns = (expression, value) -> {
+      if (!Arrays.asList("id", "name").contains(value.toLowerCase())) {
+        throw new ScriptingException("Cannot sort by " + value);
+      }
+      return value.toUpperCase();
+    };
+    final DynamicSqlSource source = new DynamicSqlSource(new Configuration(),
+        mixedContents(new TextSqlNode("SELECT * FROM BLOG ORDER BY ${orderBy}", sortableColumns)));
+    assertEquals("SELECT * FROM BLOG ORDER BY NAME",
+        source.getBoundSql(new HashMap<String, Object>() {{ put("orderBy", "name"); }}).getSql());
+    Assertions.assertThrows(ScriptingException.class,
+        () -> source.getBoundSql(new HashMap<String, Object>() {{ put("orderBy", "1; DROP TABLE BLOG"); }}));
+  }
+
+  @Test
+  void shouldReuseParsedSqlOfSameShape() {
+    final Configuration configuration = new Configuration();
+    configuration.setDynamicSqlCacheSize(8);
+    final DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(configuration, mixedContents(new TextSqlNode("#{item}")), "array", "index", "item", "(", ")", ",")));
+    BoundSql first = source.getBoundSql(Collections.singletonMap("array", new Integer[] { 1, 2 }));
+    BoundSql second = source.getBoundSql(Collections.singletonMap("array", new Integer[] { 3, 4 }));
+    BoundSql third = source.getBoundSql(Collections.singletonMap("array", new Integer[] { 5 }));
+    assertEquals("SELECT * FROM BLOG WHERE ID IN (  ? , ? )", second.getSql());
+    Assertions.assertSame(first.getParameterMappings(), second.getParameterMappings());
+    assertEquals(3, second.getAdditionalParameter(second.getParameterMappings().get(0).getProperty()));
+    assertEquals(4, second.getAdditionalParameter(second.getParameterMappings().get(1).getProperty()));
+    assertEquals("SELECT * FROM BLOG WHERE ID IN (  ? )", third.getSql());
+    assertEquals(5, third.getAdditionalParameter(third.getParameterMappings().get(0).getProperty()));
+  }
+
+  @Test
+  void shouldParseSameShapeAgainWhenParameterTypesChange() {
+    final Configuration configuration = new Configuration();
+    configuration.setDynamicSqlCacheSize(8);
+    final DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(configuration, mixedContents(new TextSqlNode("#{item}")), "array", "index", "item", "(", ")", ",")));
+    BoundSql numbers = source.getBoundSql(Collections.singletonMap("array", new Object[] { 1 }));
+    BoundSql strings = source.getBoundSql(Collections.singletonMap("array", new Object[] { "a" }));
+    assertEquals(Integer.class, numbers.getParameterMappings().get(0).getJavaType());
+    assertEquals(String.class, strings.getParameterMappings().get(0).getJavaType());
+  }
+
+  @Test
+  void shouldBindCollectionOnceAndExpandItsParameter() {
+    final Configuration configuration = new Configuration();
+    final DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(configuration, mixedContents(new TextSqlNode("#{item}")), "array", null, "item", "(", ")", ",", true, null, null)));
+    BoundSql boundSql = source.getBoundSql(Collections.singletonMap("array", new Integer[] { 1, 2, 3 }));
+    assertEquals("SELECT * FROM BLOG WHERE ID IN ( ?, ?, ? )", boundSql.getSql());
+    assertEquals(1, boundSql.getParameterMappings().size());
+    assertEquals(3, boundSql.getParameterMappings().get(0).getExpandedItems());
+    assertEquals(Integer.class, boundSql.getParameterMappings().get(0).getJavaType());
+    Assertions.assertArrayEquals(new Integer[] { 1, 2, 3 }, (Object[]) boundSql.getAdditionalParameter("__frch_item_0"));
+  }
+
+  @Test
+  void shouldSplitItemsIntoChunks() {
+    final Configuration configuration = new Configuration();
+    final Map<String, Object> parameter = new HashMap<String, Object>() {{ put("array", new Integer[] { 1, 2, 3 }); }};
+    final DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(new TextSqlNode("SELECT * FROM BLOG WHERE"),
+        new ForEachSqlNode(configuration, mixedContents(new TextSqlNode("#{item}")), "array", null, "item", "(ID IN (", "))", ",", false, 2, ") OR ID IN (")));
+    BoundSql boundSql = source.getBoundSql(parameter);
+    assertEquals("SELECT * FROM BLOG WHERE (ID IN (  ? , ? ) OR ID IN (  ? ))", boundSql.getSql());
+    assertEquals(3, boundSql.getParameterMappings().size());
+
+    final DynamicSqlSource bindingSource = new DynamicSqlSource(configuration, mixedContents(new TextSqlNode("SELECT * FROM BLOG WHERE"),
+        new ForEachSqlNode(configuration, mixedContents(new TextSqlNode("#{item}")), "array", null, "item", "(ID IN (", "))", ",", true, 2, ") OR ID IN (")));
+    boundSql = bindingSource.getBoundSql(parameter);
+    assertEquals("SELECT * FROM BLOG WHERE (ID IN ( ?, ? ) OR ID IN ( ? ))", boundSql.getSql());
+    assertEquals(2, boundSql.getParameterMappings().get(0).getExpandedItems());
+    assertEquals(1, boundSql.getParameterMappings().get(1).getExpandedItems());
+  }
+
+  @Test
+  void shouldPadItemsToPowerOfTwo() {
+    final Configuration configuration = new Configuration();
+    final DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(configuration, mixedContents(new TextSqlNode("#{item}")), "array", "index", "item", "(", ")", ",", false, null, null, ForEachSqlNode.Padding.LAST)));
+    BoundSql boundSql = source.getBoundSql(Collections.singletonMap("array", new Integer[] { 1, 2, 3 }));
+    assertEquals("SELECT * FROM BLOG WHERE ID IN (  ? , ? , ? , ? )", boundSql.getSql());
+    assertEquals(3, boundSql.getAdditionalParameter(boundSql.getParameterMappings().get(3).getProperty()));
+    boundSql = source.getBoundSql(Collections.singletonMap("array", new Integer[] { 1, 2, 3, 4 }));
+    assertEquals("SELECT * FROM BLOG WHERE ID IN (  ? , ? , ? , ? )", boundSql.getSql());
+  }
+
+  @Test
+  void shouldPadLastChunkWithNulls() {
+    final Configuration configuration = new Configuration();
+    final DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(new TextSqlNode("SELECT * FROM BLOG WHERE"),
+        new ForEachSqlNode(configuration, mixedContents(new TextSqlNode("#{item}")), "array", null, "item", "(ID IN (", "))", ",", true, 4, ") OR ID IN (", ForEachSqlNode.Padding.NULL)));
+    BoundSql boundSql = source.getBoundSql(Collections.singletonMap("array", new Integer[] { 1, 2, 3, 4, 5, 6, 7 }));
+    assertEquals("SELECT * FROM BLOG WHERE (ID IN ( ?, ?, ?, ? ) OR ID IN ( ?, ?, ?, ? ))", boundSql.getSql());
+    Assertions.assertArrayEquals(new Integer[] { 5, 6, 7, null }, (Object[]) boundSql.getAdditionalParameter("__frch_item_1"));
+  }
+
+  @Test
+  void shouldRejectContentsOtherThanItemWhenBindingCollection() {
+    final Configuration configuration = new Configuration();
+    final DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(configuration, mixedContents(new TextSqlNode("#{item.id}")), "array", null, "item", "(", ")", ",", true, null, null)));
+    Assertions.assertThrows(BuilderException.class,
+        () -> source.getBoundSql(Collections.singletonMap("array", new Integer[] { 1 })));
+  }
+
   public static class Bean {
     public String id;
     Bean(String property) {
@@ -0,0 +1,121 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class BlockingCacheTest {
+
+  @Test
+  void shouldReclaimLocksOnceLoaded() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    for (int i = 0; i < 1000; i++) {
+      assertNull(cache.getObject(i));
+      cache.putObject(i, i);
+      assertEquals(i, cache.getObject(i));
+    }
+    assertTrue(locks(cache).isEmpty());
+  }
+
+  @Test
+  void shouldCoalesceConcurrentMisses() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertNull(cache.getObject("key"));
+      Future<Object> waiter = executor.submit(() -> cache.getObject("key"));
+      awaitWaiter(cache);
+      cache.putObject("key", "value");
+      assertEquals("value", waiter.get(5, TimeUnit.SECONDS));
+      assertEquals(1, cache.getWaitCount());
+      assertTrue(locks(cache).isEmpty());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldLetWaiterLoadWhenLoadIsAbandoned() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertNull(cache.getObject("key"));
+      Future<Object> waiter = executor.submit(() -> cache.getObject("key"));
+      awaitWaiter(cache);
+      cache.removeObject("key");
+      assertNull(waiter.get(5, TimeUnit.SECONDS));
+      assertFalse(locks(cache).isEmpty());
+      executor.submit(() -> cache.putObject("key", "value")).get(5, TimeUnit.SECONDS);
+      assertTrue(locks(cache).isEmpty());
+      assertEquals("value", cache.getObject("key"));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldFailAfterTimeout() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    cache.setTimeout(50);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertNull(cache.getObject("key"));
+      Future<Object> waiter = executor.submit(() -> cache.getObject("key"));
+      Exception e = assertThrows(Exception.class, () -> waiter.get(5, TimeUnit.SECONDS));
+      assertTrue(e.getCause() instanceof CacheException);
+      assertEquals(1, cache.getWaitCount());
+      assertTrue(cache.getAccumulatedWaitTime() >= 50);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void awaitWaiter(BlockingCache cache) throws InterruptedException {
+    // the wait is counted once it ends, so wait for the waiting thread to park instead
+    for (int i = 0; i < 500 && Thread.getAllStackTraces().keySet().stream()
+        .noneMatch(t -> t.getState() == Thread.State.WAITING && isAwaitingLoad(t)); i++) {
+      Thread.sleep(10);
+    }
+  }
+
+  private static boolean isAwaitingLoad(Thread thread) {
+    for (StackTraceElement element : thread.getStackTrace()) {
+      if (element.getClassName().equals(BlockingCache.class.getName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<Object, ?> locks(BlockingCache cache) throws Exception {
+    Field field = BlockingCache.class.getDeclaredField("locks");
+    field.setAccessible(true);
+    return (Map<Object, ?>) field.get(cache);
+  }
+
+}
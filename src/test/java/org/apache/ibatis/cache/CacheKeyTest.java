@@ -103,6 +103,66 @@ class CacheKeyTest {
     Assertions.assertEquals(cacheKey, serialize(cacheKey));
   }
 
+  @Test
+  void shouldTestPresizedCacheKeysEqualGrownOnes() throws Exception {
+    CacheKey key1 = new CacheKey(2);
+    CacheKey key2 = new CacheKey();
+    for (int i = 0; i < 20; i++) {
+      key1.update(i);
+      key2.update(i);
+    }
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+    assertEquals(key1.toString(), key2.toString());
+    assertEquals(20, key1.getUpdateCount());
+  }
+
+  @Test
+  void shouldNotShareUpdatesWithClone() throws Exception {
+    CacheKey key = new CacheKey(new Object[] { 1, "hello" });
+    CacheKey clone = key.clone();
+    clone.update("world");
+    assertEquals(2, key.getUpdateCount());
+    assertEquals(3, clone.getUpdateCount());
+    assertNotEquals(key, clone);
+    assertEquals(new CacheKey(new Object[] { 1, "hello", "world" }), clone);
+  }
+
+  @Test
+  void shouldKeepUpdatesAndHashWhenSerialized() throws Exception {
+    CacheKey cacheKey = new CacheKey(new Object[] { 1, "hello", null, new byte[] { 1 } });
+    CacheKey deserialized = serialize(cacheKey);
+    assertEquals(cacheKey, deserialized);
+    assertEquals(cacheKey.hashCode(), deserialized.hashCode());
+    assertEquals(cacheKey.toString(), deserialized.toString());
+    deserialized.update("more");
+    assertEquals(5, deserialized.getUpdateCount());
+  }
+
+  @Test
+  void shouldReuseResetCacheKey() {
+    CacheKey key = new CacheKey(new Object[] { 1, "hello" });
+    key.reset();
+    assertEquals(0, key.getUpdateCount());
+    assertEquals(new CacheKey(), key);
+    key.updateAll(new Object[] { 2, "world" });
+    assertEquals(new CacheKey(new Object[] { 2, "world" }), key);
+    assertEquals(new CacheKey(new Object[] { 2, "world" }).hashCode(), key.hashCode());
+    Assertions.assertThrows(CacheException.class, CacheKey.NULL_CACHE_KEY::reset);
+  }
+
+  @Test
+  void shouldTestFingerprintsOfStatements() throws Exception {
+    String sql = "select * from author where id = ? and username = ?";
+    assertEquals(Fingerprint.of(sql), Fingerprint.of(new String(sql.toCharArray())));
+    assertEquals(Fingerprint.of(sql).hashCode(), Fingerprint.of(new String(sql.toCharArray())).hashCode());
+    assertNotEquals(Fingerprint.of(sql), Fingerprint.of(sql + " "));
+    assertNotEquals(Fingerprint.of(""), Fingerprint.of("\0"));
+    assertNotEquals(Fingerprint.of("select 1"), Fingerprint.of("select 2"));
+    assertEquals(Fingerprint.of(sql), serialize(Fingerprint.of(sql)));
+    assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", Fingerprint.of("").toString());
+  }
+
   private static <T> T serialize(T object) throws Exception {
       ByteArrayOutputStream baos = new ByteArrayOutputStream();
       new ObjectOutputStream(baos).writeObject(object);
@@ -36,6 +36,35 @@ class LruCacheTest {
     assertEquals(5, cache.getSize());
   }
 
+  @Test
+  void shouldRemoveLeastRecentlyUsedItemsBeyondMaxBytes() {
+    LruCache cache = new LruCache(new PerpetualCache("default"));
+    cache.setWeigher((key, value) -> 10);
+    cache.setMaxBytes(50);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(0, cache.getObject(0));
+    cache.putObject(5, 5);
+    assertNull(cache.getObject(1));
+    assertEquals(5, cache.getSize());
+    assertEquals(50, cache.getWeightedSize());
+    cache.removeObject(0);
+    assertEquals(40, cache.getWeightedSize());
+  }
+
+  @Test
+  void shouldNotKeepItemHeavierThanMaxBytes() {
+    LruCache cache = new LruCache(new PerpetualCache("default"));
+    cache.setWeigher((key, value) -> ((String) value).length());
+    cache.setMaxBytes(10);
+    cache.putObject(0, "abcde");
+    cache.putObject(1, "abcdefghijk");
+    assertNull(cache.getObject(1));
+    assertEquals(0, cache.getSize());
+    assertEquals(0, cache.getWeightedSize());
+  }
+
   @Test
   void shouldRemoveItemOnDemand() {
     Cache cache = new LruCache(new PerpetualCache("default"));
@@ -0,0 +1,154 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OffHeapCacheTest {
+
+  @Test
+  void shouldReturnCopiesOfCachedValues() {
+    OffHeapCache cache = new OffHeapCache("default");
+    List<String> value = new ArrayList<>(Arrays.asList("a", "b"));
+    cache.putObject(0, value);
+    Object cached = cache.getObject(0);
+    assertEquals(value, cached);
+    assertNotSame(value, cached);
+    assertEquals(1, cache.getHitCount());
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedItemsWhenFull() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setPageSize(4096);
+    cache.setMaxBytes(4 * 4096);
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, "value" + i);
+      assertEquals("value0", cache.getObject(0));
+    }
+    assertTrue(cache.getSize() < 1000);
+    assertEquals(1000 - cache.getSize(), cache.getEvictionCount());
+  }
+
+  @Test
+  void shouldReassignPagesBetweenEntrySizes() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setPageSize(4096);
+    cache.setMaxBytes(4 * 4096);
+    for (int i = 0; i < 1000; i++) {
+      char[] chars = new char[i % 10 == 0 ? 1500 : 10];
+      Arrays.fill(chars, 'x');
+      String value = new String(chars);
+      cache.putObject(i, value);
+      assertEquals(value, cache.getObject(i));
+    }
+    assertTrue(cache.getEvictionCount() > 0);
+  }
+
+  @Test
+  void shouldEvictAtMostAPageForAnEntryOfAnotherSize() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setPageSize(4096);
+    cache.setMaxBytes(4 * 4096);
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, "value" + i);
+    }
+    int size = cache.getSize();
+    char[] chars = new char[1500];
+    Arrays.fill(chars, 'x');
+    cache.putObject(-1, new String(chars));
+    assertNotNull(cache.getObject(-1));
+    assertTrue(cache.getSize() > size * 3 / 4);
+  }
+
+  @Test
+  void shouldNotCacheItemLargerThanAPage() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setPageSize(4096);
+    cache.putObject(0, new byte[8192]);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    Cache cache = new OffHeapCache("default");
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    assertEquals(0, cache.removeObject(0));
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new OffHeapCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldRejectNonSerializableValue() {
+    Cache cache = new OffHeapCache("default");
+    assertThrows(CacheException.class, () -> cache.putObject(0, new Object()));
+  }
+
+  @Test
+  void shouldLoadEntriesOfMappedFileAgain(@TempDir Path directory) {
+    String file = directory.resolve("cache.bin").toString();
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setFile(file);
+    cache.setMaxBytes(1024 * 1024);
+    for (int i = 0; i < 10; i++) {
+      cache.putObject(new CacheKey(new Object[] { "select", i }), "row" + i);
+    }
+    cache.removeObject(new CacheKey(new Object[] { "select", 3 }));
+    cache.close();
+
+    OffHeapCache reopened = new OffHeapCache("default");
+    reopened.setFile(file);
+    reopened.setMaxBytes(1024 * 1024);
+    assertEquals(9, reopened.getSize());
+    assertEquals("row7", reopened.getObject(new CacheKey(new Object[] { "select", 7 })));
+    assertNull(reopened.getObject(new CacheKey(new Object[] { "select", 3 })));
+    reopened.close();
+  }
+
+  @Test
+  void shouldStartAgainAfterClose() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.putObject(0, "value");
+    cache.close();
+    assertNull(cache.getObject(0));
+    cache.putObject(0, "value");
+    assertEquals("value", cache.getObject(0));
+    cache.close();
+  }
+
+}
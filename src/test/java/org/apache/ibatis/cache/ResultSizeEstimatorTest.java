@@ -0,0 +1,75 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.junit.jupiter.api.Test;
+
+class ResultSizeEstimatorTest {
+
+  private final ResultSizeEstimator estimator = new ResultSizeEstimator();
+
+  @Test
+  void shouldEstimateStringsAndArrays() {
+    assertEquals(0, estimator.estimate(null));
+    assertEquals(24 + 16, estimator.estimate(""));
+    assertEquals(24 + 48, estimator.estimate("0123456789abcdef"));
+    assertEquals(16 + 8 * 10, estimator.estimate(new long[10]));
+  }
+
+  @Test
+  void shouldGrowWithTheNumberOfRows() {
+    List<Author> one = authors(1);
+    List<Author> hundred = authors(100);
+    long row = estimator.estimate(one.get(0));
+    assertTrue(row > 0);
+    assertTrue(estimator.estimate(hundred) >= 100 * row);
+  }
+
+  @Test
+  void shouldCountSharedObjectsOnce() {
+    Author author = authors(1).get(0);
+    List<Author> twice = new ArrayList<>();
+    twice.add(author);
+    twice.add(author);
+    List<Author> once = new ArrayList<>();
+    once.add(author);
+    // only the second reference in the backing array is added
+    assertTrue(estimator.estimate(twice) - estimator.estimate(once) <= 8);
+  }
+
+  @Test
+  void shouldWeighKeyAndValue() {
+    CacheKey key = new CacheKey(new Object[] { "select * from author", 1 });
+    List<Author> value = authors(1);
+    assertEquals(estimator.estimate(key) + estimator.estimate(value), estimator.weigh(key, value));
+  }
+
+  private static List<Author> authors(int count) {
+    List<Author> authors = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      authors.add(new Author(i, "user" + i, "password" + i, "user" + i + "@example.com", "bio " + i, Section.NEWS));
+    }
+    return authors;
+  }
+
+}
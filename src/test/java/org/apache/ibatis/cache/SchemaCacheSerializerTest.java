@@ -0,0 +1,137 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.serializer.SchemaCacheSerializer;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Blog;
+import org.apache.ibatis.domain.blog.Post;
+import org.apache.ibatis.domain.blog.Section;
+import org.junit.jupiter.api.Test;
+
+class SchemaCacheSerializerTest {
+
+  private final CacheSerializer serializer = new SchemaCacheSerializer();
+
+  @Test
+  void shouldCopyResultObjects() {
+    Author author = new Author(101, "jim", "********", "jim@ibatis.apache.org", "", Section.NEWS);
+    List<Author> authors = new ArrayList<>(Collections.singletonList(author));
+    Object copy = serializer.deserialize(serializer.serialize(authors));
+    assertEquals(authors, copy);
+    assertNotSame(author, ((List<?>) copy).get(0));
+  }
+
+  @Test
+  void shouldPreserveSharedAndCyclicReferences() {
+    Author author = new Author(101, "jim", "********", "jim@ibatis.apache.org", "", Section.NEWS);
+    Blog blog = new Blog(1, "Blog", author, new ArrayList<>());
+    for (int i = 0; i < 2; i++) {
+      Post post = new Post();
+      post.setId(i);
+      post.setAuthor(author);
+      post.setBlog(blog);
+      blog.getPosts().add(post);
+    }
+    Blog copy = (Blog) serializer.deserialize(serializer.serialize(blog));
+    assertEquals(2, copy.getPosts().size());
+    assertSame(copy, copy.getPosts().get(0).getBlog());
+    assertSame(copy.getAuthor(), copy.getPosts().get(1).getAuthor());
+    assertEquals(author, copy.getAuthor());
+  }
+
+  @Test
+  void shouldCopyValuesNatively() {
+    Timestamp timestamp = new Timestamp(1000L);
+    timestamp.setNanos(123456789);
+    Map<String, Object> row = new HashMap<>();
+    row.put("amount", new BigDecimal("12.3400"));
+    row.put("created", timestamp);
+    row.put("updated", new Date(2000L));
+    row.put("data", new byte[] { 1, 2, 3 });
+    row.put("names", new String[] { "a", null });
+    row.put("section", Section.VIDEOS);
+    Map<?, ?> copy = (Map<?, ?>) serializer.deserialize(serializer.serialize(row));
+    assertEquals(new BigDecimal("12.3400"), copy.get("amount"));
+    assertEquals(timestamp, copy.get("created"));
+    assertEquals(new Date(2000L), copy.get("updated"));
+    assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[]) copy.get("data"));
+    assertArrayEquals(new String[] { "a", null }, (String[]) copy.get("names"));
+    assertSame(Section.VIDEOS, copy.get("section"));
+  }
+
+  @Test
+  void shouldFallBackToJavaSerialization() {
+    List<Integer> fixed = Arrays.asList(1, 2);
+    TreeSet<String> descending = new TreeSet<>(Collections.reverseOrder());
+    descending.addAll(Arrays.asList("a", "b"));
+    assertEquals(fixed, serializer.deserialize(serializer.serialize(fixed)));
+    assertEquals("b", ((TreeSet<?>) serializer.deserialize(serializer.serialize(descending))).first());
+    CacheKey key = new CacheKey(new Object[] { "select", 1 });
+    assertEquals(key, serializer.deserialize(serializer.serialize(key)));
+  }
+
+  @Test
+  void shouldBeUsableBySerializedCache() {
+    Cache cache = new SerializedCache(new PerpetualCache("default"), serializer);
+    Author author = new Author(101, "jim", "********", "jim@ibatis.apache.org", "", Section.NEWS);
+    cache.putObject(0, author);
+    assertEquals(author, cache.getObject(0));
+    assertNotSame(author, cache.getObject(0));
+  }
+
+  @Test
+  void shouldRejectClassesNotAllowedForDeserialization() throws IOException {
+    Author author = new Author(101, "jim", "********", "jim@ibatis.apache.org", "", Section.NEWS);
+    byte[] bytes = replaceClassName(serializer.serialize(author), Author.class.getName(),
+        "com.sun.org.apache.xalan.internal.xsltc.trax.TemplatesImpl");
+    CacheException e = assertThrows(CacheException.class, () -> serializer.deserialize(bytes));
+    assertTrue(e.getCause() instanceof InvalidClassException);
+  }
+
+  private static byte[] replaceClassName(byte[] bytes, String className, String replacement) throws IOException {
+    // a class name is written as the length of its UTF-8 bytes followed by them
+    int start = new String(bytes, StandardCharsets.ISO_8859_1).indexOf(className);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bos);
+    out.write(bytes, 0, start - 4);
+    out.writeInt(replacement.length());
+    out.write(replacement.getBytes(StandardCharsets.UTF_8));
+    out.write(bytes, start + className.length(), bytes.length - start - className.length());
+    return bos.toByteArray();
+  }
+
+}
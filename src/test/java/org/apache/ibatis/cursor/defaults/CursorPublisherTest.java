@@ -0,0 +1,201 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.Flow;
+import org.junit.jupiter.api.Test;
+
+class CursorPublisherTest {
+
+  @Test
+  void shouldNotOpenCursorBeforeFirstRequest() {
+    List<ListCursor> opened = new ArrayList<>();
+    CursorPublisher<String> publisher = new CursorPublisher<>(() -> {
+      ListCursor cursor = new ListCursor("a", "b");
+      opened.add(cursor);
+      return cursor;
+    });
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    assertTrue(opened.isEmpty());
+
+    subscriber.subscription.request(1);
+    assertEquals(1, opened.size());
+    assertEquals(Arrays.asList("a"), subscriber.items);
+    assertEquals(1, opened.get(0).fetched);
+  }
+
+  @Test
+  void shouldCloseCursorOnCompletion() {
+    ListCursor cursor = new ListCursor("a", "b");
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<String>(() -> cursor).subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertEquals(Arrays.asList("a", "b"), subscriber.items);
+    assertTrue(subscriber.completed);
+    assertTrue(cursor.closed);
+  }
+
+  @Test
+  void shouldCloseCursorOnCancel() {
+    ListCursor cursor = new ListCursor("a", "b", "c");
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<String>(() -> cursor).subscribe(subscriber);
+    subscriber.subscription.request(1);
+    subscriber.subscription.cancel();
+    assertTrue(cursor.closed);
+    subscriber.subscription.request(1);
+    assertEquals(Arrays.asList("a"), subscriber.items);
+    assertFalse(subscriber.completed);
+  }
+
+  @Test
+  void shouldSignalErrorOnInvalidRequest() {
+    ListCursor cursor = new ListCursor("a");
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<String>(() -> cursor).subscribe(subscriber);
+    subscriber.subscription.request(0);
+    assertTrue(subscriber.error instanceof IllegalArgumentException);
+    assertTrue(subscriber.items.isEmpty());
+  }
+
+  @Test
+  void shouldSignalErrorOnSecondSubscription() {
+    CursorPublisher<String> publisher = new CursorPublisher<>(() -> new ListCursor("a"));
+    publisher.subscribe(new RecordingSubscriber());
+    RecordingSubscriber second = new RecordingSubscriber();
+    publisher.subscribe(second);
+    assertTrue(second.error instanceof IllegalStateException);
+  }
+
+  @Test
+  void shouldSignalErrorWhenFetchingFails() {
+    ListCursor cursor = new ListCursor("a", null);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<String>(() -> cursor).subscribe(subscriber);
+    subscriber.subscription.request(5);
+    assertEquals(Arrays.asList("a"), subscriber.items);
+    assertTrue(subscriber.error instanceof IllegalStateException);
+    assertTrue(cursor.closed);
+  }
+
+  @Test
+  void shouldCloseCursorWhenSubscriberFails() {
+    ListCursor cursor = new ListCursor("a", "b", "c");
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    subscriber.failOn = "b";
+    new CursorPublisher<String>(() -> cursor).subscribe(subscriber);
+    subscriber.subscription.request(5);
+    assertEquals(Arrays.asList("a"), subscriber.items);
+    assertTrue(subscriber.error instanceof IllegalStateException);
+    assertTrue(cursor.closed);
+    subscriber.subscription.request(1);
+    assertEquals(2, cursor.fetched);
+  }
+
+  private static class RecordingSubscriber implements Flow.Subscriber<String> {
+    private final List<String> items = new ArrayList<>();
+    private Flow.Subscription subscription;
+    private Throwable error;
+    private boolean completed;
+    private String failOn;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(String item) {
+      if (item.equals(failOn)) {
+        throw new IllegalStateException("onNext failed");
+      }
+      items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+  /**
+   * A cursor over fixed items, a null item stands for a failed fetch.
+   */
+  private static class ListCursor implements Cursor<String> {
+    private final List<String> items;
+    private int fetched;
+    private boolean closed;
+
+    ListCursor(String... items) {
+      this.items = Arrays.asList(items);
+    }
+
+    @Override
+    public boolean isOpen() {
+      return fetched > 0 && !closed;
+    }
+
+    @Override
+    public boolean isConsumed() {
+      return false;
+    }
+
+    @Override
+    public int getCurrentIndex() {
+      return fetched - 1;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return new Iterator<String>() {
+        @Override
+        public boolean hasNext() {
+          if (fetched < items.size() && items.get(fetched) == null) {
+            throw new IllegalStateException("fetch failed");
+          }
+          return fetched < items.size();
+        }
+
+        @Override
+        public String next() {
+          return items.get(fetched++);
+        }
+      };
+    }
+  }
+
+}
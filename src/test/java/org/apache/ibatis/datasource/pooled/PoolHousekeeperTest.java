@@ -0,0 +1,81 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.junit.jupiter.api.Test;
+
+class PoolHousekeeperTest extends BaseDataTest {
+
+  @Test
+  void shouldKeepMinimumIdleConnectionsAndEvictIdleOnes() throws Exception {
+    for (PoolMode poolMode : PoolMode.values()) {
+      PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+      try {
+        ds.setPoolMode(poolMode);
+        ds.setPoolMinimumIdleConnections(2);
+        ds.setPoolMaximumIdleTime(100);
+        ds.setPoolPingEnabled(true);
+        ds.setPoolPingQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+        ds.housekeep();
+        assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+          connections.add(ds.getConnection());
+        }
+        for (Connection c : connections) {
+          c.close();
+        }
+        assertEquals(4, ds.getPoolState().getIdleConnectionCount());
+        // only has to outlast the maximum idle time, the pass itself runs on this thread
+        Thread.sleep(150);
+        ds.housekeep();
+        assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+        assertEquals(0, ds.getPoolState().getBadConnectionCount());
+      } finally {
+        ds.forceCloseAll();
+      }
+    }
+  }
+
+  @Test
+  void shouldRunInBackgroundOnceAConnectionIsCheckedOut() throws Exception {
+    for (PoolMode poolMode : PoolMode.values()) {
+      PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+      try {
+        ds.setPoolMode(poolMode);
+        ds.setPoolMinimumIdleConnections(3);
+        ds.setPoolHousekeepingPeriod(20);
+        ds.getConnection().close();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (ds.getPoolState().getIdleConnectionCount() < 3 && System.currentTimeMillis() < deadline) {
+          Thread.sleep(10);
+        }
+        assertEquals(3, ds.getPoolState().getIdleConnectionCount());
+      } finally {
+        ds.setPoolHousekeepingPeriod(0);
+        ds.forceCloseAll();
+      }
+    }
+  }
+
+}
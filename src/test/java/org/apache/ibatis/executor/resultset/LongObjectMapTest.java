@@ -0,0 +1,62 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class LongObjectMapTest {
+
+  @Test
+  void shouldGetPutValues() {
+    LongObjectMap<String> map = new LongObjectMap<>();
+    for (long i = -1000; i < 1000; i++) {
+      map.put(i * 31, "v" + i);
+    }
+    assertEquals(2000, map.size());
+    for (long i = -1000; i < 1000; i++) {
+      assertEquals("v" + i, map.get(i * 31));
+    }
+    assertNull(map.get(1));
+    assertNull(map.get(Long.MIN_VALUE));
+  }
+
+  @Test
+  void shouldReplaceValue() {
+    LongObjectMap<String> map = new LongObjectMap<>();
+    map.put(0, "a");
+    map.put(0, "b");
+    assertEquals(1, map.size());
+    assertSame("b", map.get(0));
+  }
+
+  @Test
+  void shouldClear() {
+    LongObjectMap<String> map = new LongObjectMap<>();
+    for (long i = 0; i < 5000; i++) {
+      map.put(i, "v" + i);
+    }
+    map.clear();
+    assertEquals(0, map.size());
+    assertNull(map.get(1));
+    map.put(1, "a");
+    assertEquals("a", map.get(1));
+  }
+
+}
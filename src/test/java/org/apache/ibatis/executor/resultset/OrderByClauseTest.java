@@ -0,0 +1,54 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+class OrderByClauseTest {
+
+  @Test
+  void shouldReadPlainSortColumns() {
+    assertEquals(Arrays.asList("BLOG_ID", "POST_ID"),
+        OrderByClause.leadingColumnsOf("select b.id blog_id, p.id post_id from blog b join post p on p.blog_id = b.id order by blog_id, post_id desc"));
+    assertEquals(Arrays.asList("ID"), OrderByClause.leadingColumnsOf("SELECT * FROM blog\n ORDER\n BY \"id\" ASC NULLS LAST LIMIT 10"));
+    assertEquals(Arrays.asList("ID"), OrderByClause.leadingColumnsOf("select * from blog order by id for update"));
+  }
+
+  @Test
+  void shouldStopAtFirstExpressionThatIsNotAPlainColumn() {
+    assertEquals(Arrays.asList("BLOG_ID"), OrderByClause.leadingColumnsOf("select * from t order by blog_id, lower(name), id"));
+    assertEquals(Collections.emptyList(), OrderByClause.leadingColumnsOf("select * from t b order by b.id"));
+    assertEquals(Collections.emptyList(), OrderByClause.leadingColumnsOf("select * from t order by 1"));
+    assertEquals(Collections.emptyList(), OrderByClause.leadingColumnsOf("select * from t order by id collate nocase"));
+  }
+
+  @Test
+  void shouldIgnoreNestedAndQuotedOrderBy() {
+    assertEquals(Collections.emptyList(),
+        OrderByClause.leadingColumnsOf("select * from (select * from t order by id) x"));
+    assertEquals(Collections.emptyList(),
+        OrderByClause.leadingColumnsOf("select row_number() over (order by id) rn from t where name = 'order by id'"));
+    assertEquals(Arrays.asList("NAME"),
+        OrderByClause.leadingColumnsOf("select * from (select * from t order by id) x order by name"));
+    assertEquals(Collections.emptyList(), OrderByClause.leadingColumnsOf("select * from t where sort_order = 1"));
+  }
+
+}
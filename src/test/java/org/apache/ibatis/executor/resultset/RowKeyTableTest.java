@@ -0,0 +1,70 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.junit.jupiter.api.Test;
+
+class RowKeyTableTest {
+
+  @Test
+  void shouldFindStoredKeyWithProbeKey() {
+    RowKeyTable table = new RowKeyTable();
+    for (int i = 0; i < 1000; i++) {
+      table.put(new CacheKey(new Object[] { "blog", "ID", i }), "blog" + i);
+    }
+    CacheKey probe = new CacheKey();
+    for (int i = 0; i < 1000; i++) {
+      probe.reset();
+      probe.updateAll(new Object[] { "blog", "ID", i });
+      CacheKey stored = table.findKey(probe);
+      assertEquals(probe, stored);
+      assertEquals("blog" + i, table.get(stored));
+    }
+    probe.reset();
+    probe.updateAll(new Object[] { "blog", "ID", 1000 });
+    assertNull(table.findKey(probe));
+    assertNull(table.get(probe));
+  }
+
+  @Test
+  void shouldKeepNullValuesAndReplaceValues() {
+    RowKeyTable table = new RowKeyTable();
+    CacheKey key = new CacheKey(new Object[] { "post", "ID", 1L });
+    table.put(key, null);
+    assertSame(key, table.findKey(new CacheKey(new Object[] { "post", "ID", 1L })));
+    assertNull(table.get(key));
+    table.put(new CacheKey(new Object[] { "post", "ID", 1L }), "post");
+    assertEquals("post", table.get(key));
+  }
+
+  @Test
+  void shouldClear() {
+    RowKeyTable table = new RowKeyTable();
+    for (int i = 0; i < 5000; i++) {
+      table.put(new CacheKey(new Object[] { i }), i);
+    }
+    table.clear();
+    assertNull(table.get(new CacheKey(new Object[] { 1 })));
+    table.put(new CacheKey(new Object[] { 1 }), 1);
+    assertEquals(1, table.get(new CacheKey(new Object[] { 1 })));
+  }
+
+}
@@ -23,7 +23,15 @@ import java.lang.reflect.Field;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheWeigher;
+import org.apache.ibatis.cache.decorators.FifoCache;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.ScheduledCache;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.impl.TinyLfuCache;
+import org.apache.ibatis.cache.serializer.SchemaCacheSerializer;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -43,6 +51,62 @@ class CacheBuilderTest {
       .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
   }
 
+  @Test
+  void testTinyLfuCacheIsNotSynchronized() {
+    Cache cache = new CacheBuilder("test").implementation(TinyLfuCache.class).size(10).readWrite(true).build();
+    then(cache).isInstanceOf(LoggingCache.class);
+    Cache serializedCache = unwrap(cache);
+    then(serializedCache).isInstanceOf(SerializedCache.class);
+    then(unwrap(serializedCache)).isInstanceOf(TinyLfuCache.class);
+    for (int i = 0; i < 20; i++) {
+      cache.putObject(i, i);
+    }
+    then(cache.getSize()).isEqualTo(10);
+  }
+
+  @Test
+  void testOffHeapCacheIsNotSerializedTwice() {
+    Cache cache = new CacheBuilder("test").implementation(OffHeapCache.class).maxBytes(1024L * 1024).readWrite(true).build();
+    then(cache).isInstanceOf(LoggingCache.class);
+    then(unwrap(cache)).isInstanceOf(OffHeapCache.class);
+    then(((OffHeapCache) unwrap(cache)).getMaxBytes()).isEqualTo(1024L * 1024);
+  }
+
+  @Test
+  void testOffHeapCacheWithClearIntervalIsNotSerializedTwice() {
+    Cache cache = new CacheBuilder("test").implementation(OffHeapCache.class).clearInterval(60000L).readWrite(true).build();
+    then(cache).isInstanceOf(LoggingCache.class);
+    Cache scheduledCache = unwrap(cache);
+    then(scheduledCache).isInstanceOf(ScheduledCache.class);
+    then(unwrap(scheduledCache)).isInstanceOf(OffHeapCache.class);
+  }
+
+  @Test
+  void testSerializerIsUsedByReadWriteCache() throws Exception {
+    Cache cache = new CacheBuilder("test").serializer(SchemaCacheSerializer.class).readWrite(true).build();
+    Cache serializedCache = unwrap(unwrap(cache));
+    then(serializedCache).isInstanceOf(SerializedCache.class);
+    Field serializer = SerializedCache.class.getDeclaredField("serializer");
+    serializer.setAccessible(true);
+    then(serializer.get(serializedCache)).isInstanceOf(SchemaCacheSerializer.class);
+  }
+
+  @Test
+  void testMaxBytesIsAppliedToLruEviction() {
+    Cache cache = new CacheBuilder("test").maxBytes(100L).weigher(TenBytesWeigher.class).readWrite(false).build();
+    for (int i = 0; i < 20; i++) {
+      cache.putObject(i, i);
+    }
+    then(cache.getSize()).isEqualTo(10);
+  }
+
+  @Test
+  void testMaxBytesIsRejectedByFifoEviction() {
+    when(() -> new CacheBuilder("test").addDecorator(FifoCache.class).maxBytes(100L).build());
+    then(caughtException()).isInstanceOf(CacheException.class)
+      .hasMessageContaining("cannot be bounded by maxBytes");
+  }
+
   @SuppressWarnings("unchecked")
   private <T> T unwrap(Cache cache) {
     Field field;
@@ -61,6 +125,15 @@ class CacheBuilderTest {
     }
   }
 
+  public static class TenBytesWeigher implements CacheWeigher {
+
+    @Override
+    public long weigh(Object key, Object value) {
+      return 10;
+    }
+
+  }
+
   private static class InitializingCache extends PerpetualCache implements InitializingObject {
 
     private boolean initialized;
@@ -20,10 +20,14 @@ import static org.assertj.core.api.BDDAssertions.then;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
 import java.util.List;
 
 import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.LambdaGetInvoker;
+import org.apache.ibatis.reflection.invoker.LambdaSetInvoker;
+import org.apache.ibatis.reflection.invoker.MethodInvoker;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -321,4 +325,96 @@ class ReflectorTest {
             "Ambiguous setters defined for property 'bool' in class '" + Bean.class.getName().replace("$", "\\$")
                 + "' with types '(java.lang.Integer|boolean)' and '(java.lang.Integer|boolean)'\\.");
   }
+
+  public static class LambdaBean {
+    private String name;
+    private int count;
+    private List<String> tags;
+    private Long secret;
+    private String nickName;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    public void setCount(int count) {
+      this.count = count;
+    }
+
+    public List<String> getTags() {
+      return tags;
+    }
+
+    public void setTags(List<String> tags) {
+      this.tags = tags;
+    }
+
+    String getNickName() {
+      return nickName;
+    }
+
+    void setNickName(String nickName) {
+      this.nickName = nickName;
+    }
+
+    public void setBroken(String broken) {
+      throw new IllegalStateException("broken");
+    }
+  }
+
+  @Test
+  void shouldReadAndWritePropertiesWithLambdaInvokers() throws Exception {
+    ReflectorFactory reflectorFactory = new DefaultReflectorFactory();
+    reflectorFactory.setLambdaInvokersEnabled(true);
+    Reflector reflector = reflectorFactory.findForClass(LambdaBean.class);
+    assertTrue(reflector.getGetInvoker("name") instanceof LambdaGetInvoker);
+    assertTrue(reflector.getSetInvoker("count") instanceof LambdaSetInvoker);
+    assertTrue(reflector.getSetInvoker("secret") instanceof LambdaSetInvoker);
+
+    LambdaBean bean = new LambdaBean();
+    reflector.getSetInvoker("name").invoke(bean, new Object[] { "John" });
+    reflector.getSetInvoker("count").invoke(bean, new Object[] { 3 });
+    reflector.getSetInvoker("nickName").invoke(bean, new Object[] { "Johnny" });
+    reflector.getSetInvoker("secret").invoke(bean, new Object[] { 7L });
+    assertEquals("John", reflector.getGetInvoker("name").invoke(bean, null));
+    assertEquals(3, reflector.getGetInvoker("count").invoke(bean, null));
+    assertEquals("Johnny", reflector.getGetInvoker("nickName").invoke(bean, null));
+    assertEquals(7L, reflector.getGetInvoker("secret").invoke(bean, null));
+    assertEquals(int.class, reflector.getSetInvoker("count").getType());
+  }
+
+  @Test
+  void shouldWrapExceptionsOfLambdaInvokers() {
+    Reflector reflector = new Reflector(LambdaBean.class, true);
+    Invoker invoker = reflector.getSetInvoker("broken");
+    when(() -> invoker.invoke(new LambdaBean(), new Object[] { "x" }));
+    then(caughtException()).isInstanceOf(InvocationTargetException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void shouldResolveGenericTypesWithLambdaInvokers() {
+    ReflectorFactory reflectorFactory = new DefaultReflectorFactory();
+    reflectorFactory.setLambdaInvokersEnabled(true);
+    MetaClass metaClass = MetaClass.forClass(LambdaBean.class, reflectorFactory);
+    assertEquals(String.class, metaClass.getGetterType("tags[0]"));
+  }
+
+  @Test
+  void shouldRebuildReflectorsWhenLambdaInvokersAreToggled() {
+    ReflectorFactory reflectorFactory = new DefaultReflectorFactory();
+    Reflector reflector = reflectorFactory.findForClass(LambdaBean.class);
+    assertTrue(reflector.getGetInvoker("name") instanceof MethodInvoker);
+    reflectorFactory.setLambdaInvokersEnabled(true);
+    assertNotSame(reflector, reflectorFactory.findForClass(LambdaBean.class));
+    assertTrue(reflectorFactory.findForClass(LambdaBean.class).getGetInvoker("name") instanceof LambdaGetInvoker);
+  }
 }
@@ -19,14 +19,17 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.ibatis.builder.StaticSqlSource;
 import org.apache.ibatis.mapping.*;
@@ -70,6 +73,28 @@ class DefaultParameterHandlerTest {
 
   }
 
+  @Test
+  void setParametersExpandsItemsOfArrayParameter() throws SQLException {
+    final MappedStatement mappedStatement = getMappedStatement();
+    final Configuration config = mappedStatement.getConfiguration();
+    final Map<String, Object> parameterObject = new HashMap<>();
+    parameterObject.put("name", "blog");
+    List<ParameterMapping> parameterMappings = Arrays.asList(
+        new ParameterMapping.Builder(config, "__frch_item_0", Integer.class).expandedItems(3).build(),
+        new ParameterMapping.Builder(config, "name", String.class).build());
+    final BoundSql boundSql = new BoundSql(config, "some select statement", parameterMappings, parameterObject);
+    boundSql.setAdditionalParameter("__frch_item_0", new Integer[] { 1, 2, 3 });
+
+    DefaultParameterHandler defaultParameterHandler = new DefaultParameterHandler(mappedStatement, parameterObject, boundSql);
+
+    PreparedStatement ps = mock(PreparedStatement.class);
+    defaultParameterHandler.setParameters(ps);
+    verify(ps).setInt(1, 1);
+    verify(ps).setInt(2, 2);
+    verify(ps).setInt(3, 3);
+    verify(ps).setString(4, "blog");
+  }
+
   MappedStatement getMappedStatement() {
     final Configuration config = new Configuration();
     final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
@@ -0,0 +1,89 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.scripting.xmltags.DynamicContext.ContextMap;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class CompiledExpressionTest {
+
+  private static final String[] SUPPORTED = {
+      "username", "username != null", "password == null", "username == 'cbegin'", "username == \"norm\"",
+      "username != 'cbegin' and id > 0", "id == 1 or password != null", "!(id >= 2)", "not (id lt 1)",
+      "id == 1.0", "id gte 1 && id lte 1", "username.length() > 3", "username.isEmpty()", "bio == null || bio == ''",
+      "favouriteSection != null", "true", "false and username", "null == password", "1 < 2" };
+
+  private static final String[] NOT_SUPPORTED = {
+      "username == 'c'", "id == '1'", "favouriteSection == 'NEWS'", "password.length()", "id + 1", "id in {1, 2}",
+      "username.substring(1)", "@java.lang.Math@max(1, 2)", "username[0]", "id == 1L", "password ? 1 : 2",
+      "username instanceof String", "id == 010", "id and true" };
+
+  @Test
+  void shouldEvaluateSupportedExpressionsWithoutOgnl() {
+    ContextMap bindings = bindings(new Author(1, "cbegin", null, "cbegin@apache.org", "", Section.NEWS));
+    Object[] expected = { "cbegin", true, true, true, false, false, true, true, true, true, true, true, false, true,
+        true, true, false, true, true };
+    for (int i = 0; i < SUPPORTED.length; i++) {
+      assertEquals(expected[i], CompiledExpression.evaluate(SUPPORTED[i], bindings), SUPPORTED[i]);
+    }
+  }
+
+  @Test
+  void shouldFallBackToOgnlForOtherExpressions() {
+    ContextMap bindings = bindings(new Author(1, "cbegin", null, "cbegin@apache.org", "", Section.NEWS));
+    for (String expression : NOT_SUPPORTED) {
+      assertSame(CompiledExpression.FALLBACK, CompiledExpression.evaluate(expression, bindings), expression);
+    }
+  }
+
+  @Test
+  void shouldReadNestedPropertiesOfMapsAndBeans() {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("author", new Author(3, "jdoe", null, null, null, null));
+    parameter.put("ids", Arrays.asList(1, 2, 3));
+    parameter.put("names", Collections.emptyMap());
+    ContextMap bindings = bindings(parameter);
+    bindings.put("item", 2L);
+
+    assertEquals(3, CompiledExpression.evaluate("author.id", bindings));
+    assertEquals(true, CompiledExpression.evaluate("author.username == 'jdoe' and author.email == null", bindings));
+    assertEquals(true, CompiledExpression.evaluate("ids != null and ids.size() > 2", bindings));
+    assertEquals(true, CompiledExpression.evaluate("names.isEmpty() and names.size == 0", bindings));
+    assertEquals(true, CompiledExpression.evaluate("item == 2", bindings));
+    assertEquals(true, CompiledExpression.evaluate("_parameter.author.id == _parameter.author.id", bindings));
+    assertEquals(null, CompiledExpression.evaluate("missing", bindings));
+    assertSame(CompiledExpression.FALLBACK, CompiledExpression.evaluate("missing.id", bindings));
+    assertSame(CompiledExpression.FALLBACK, CompiledExpression.evaluate("author.unknown", bindings));
+  }
+
+  private static ContextMap bindings(Object parameter) {
+    Configuration configuration = new Configuration();
+    configuration.setUseCompiledExpressions(true);
+    return (ContextMap) new DynamicContext(configuration, parameter).getBindings();
+  }
+
+}
@@ -0,0 +1,116 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncSessionTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/async_session/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/async_session/CreateDB.sql");
+  }
+
+  @Test
+  void shouldRunIndependentSelects() throws Exception {
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    CompletableFuture<User> user = asyncSession.selectOne("org.apache.ibatis.submitted.async_session.Mapper.getUser", 2);
+    CompletableFuture<List<User>> users = asyncSession.selectList("org.apache.ibatis.submitted.async_session.Mapper.getUsers");
+    CompletableFuture<String> names = user.thenCombine(users, (one, all) -> one.getName() + "/" + all.size());
+    assertEquals("User2/3", names.get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldCommitInsert() throws Exception {
+    User user = new User();
+    user.setId(4);
+    user.setName("User4");
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    int inserted = asyncSession.insert("org.apache.ibatis.submitted.async_session.Mapper.insertUser", user)
+        .get(10, TimeUnit.SECONDS);
+    assertEquals(1, inserted);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals("User4", sqlSession.getMapper(Mapper.class).getUser(4).getName());
+    }
+  }
+
+  @Test
+  void shouldCallMapperInItsOwnSession() throws Exception {
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    User user = asyncSession.execute(Mapper.class, mapper -> mapper.getUser(1)).get(10, TimeUnit.SECONDS);
+    assertEquals("User1", user.getName());
+    assertNull(asyncSession.execute(Mapper.class, mapper -> mapper.getUser(99)).get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldRollbackFailedWork() throws Exception {
+    User user = new User();
+    user.setId(5);
+    user.setName("User5");
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    CompletableFuture<Integer> future = asyncSession.execute(Mapper.class, mapper -> {
+      mapper.insertUser(user);
+      // duplicate key
+      return mapper.insertUser(user);
+    });
+    ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+    assertTrue(e.getCause() instanceof PersistenceException);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertNull(sqlSession.getMapper(Mapper.class).getUser(5));
+    }
+  }
+
+  @Test
+  void shouldUseConfiguredExecutor() throws Exception {
+    AtomicInteger submitted = new AtomicInteger();
+    sqlSessionFactory.getConfiguration().setAsyncExecutor(command -> {
+      submitted.incrementAndGet();
+      command.run();
+    });
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    assertEquals("User3", asyncSession.<User>selectOne("org.apache.ibatis.submitted.async_session.Mapper.getUser", 3)
+        .get(10, TimeUnit.SECONDS).getName());
+    assertEquals(1, submitted.get());
+  }
+
+}
@@ -0,0 +1,188 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_grouping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchGroupingTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_grouping/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+  }
+
+  @BeforeEach
+  void createTables() throws Exception {
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_grouping/CreateDB.sql");
+  }
+
+  @AfterEach
+  void resetThresholds() {
+    sqlSessionFactory.getConfiguration().setBatchFlushRows(null);
+    sqlSessionFactory.getConfiguration().setBatchFlushBytes(null);
+    sqlSessionFactory.getConfiguration().setBatchFlushParallelism(null);
+  }
+
+  @Test
+  void shouldGroupInterleavedInsertsBySql() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 1; i <= 3; i++) {
+        mapper.insertDept(i, "Dept" + i);
+        mapper.insertUser(i, "User" + i, i);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(2, results.size());
+      assertTrue(results.get(0).getSql().contains("depts"));
+      assertEquals(3, results.get(0).getParameterObjects().size());
+      assertTrue(results.get(1).getSql().contains("users"));
+      assertEquals(3, results.get(1).getParameterObjects().size());
+      assertEquals(3, mapper.countUsers());
+    }
+  }
+
+  @Test
+  void shouldNotMoveInsertsBeforeAnEarlierUpdate() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertDept(1, "Dept1");
+      mapper.insertUser(1, "User1", 1);
+      mapper.updateDept(1, "Renamed");
+      mapper.insertDept(2, "Dept2");
+      mapper.deleteUsers(1);
+      mapper.insertUser(2, "User2", 1);
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(6, results.size());
+      assertEquals("Renamed", mapper.getDeptName(1));
+      assertEquals("Dept2", mapper.getDeptName(2));
+      assertEquals(1, mapper.countUsers());
+    }
+  }
+
+  @Test
+  void shouldNotMoveInsertsBeforeAnUngroupedInsert() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUser(1, "User1", 1);
+      mapper.insertDept(2, "Dept2");
+      mapper.insertUserInPlace(2, "User2", 2);
+      mapper.insertUser(3, "User3", 2);
+      mapper.insertDept(3, "Dept3");
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(5, results.size());
+      assertEquals(1, results.get(0).getParameterObjects().size());
+      assertTrue(results.get(1).getSql().contains("depts"));
+      assertEquals(1, results.get(2).getParameterObjects().size());
+      assertTrue(results.get(3).getSql().contains("users"));
+      assertTrue(results.get(4).getSql().contains("depts"));
+      assertEquals(3, mapper.countUsers());
+    }
+  }
+
+  @Test
+  void shouldExecutePendingBatchesWhenRowThresholdIsReached() {
+    sqlSessionFactory.getConfiguration().setBatchFlushRows(4);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 1; i <= 5; i++) {
+        mapper.insertDept(i, "Dept" + i);
+        mapper.insertUser(i, "User" + i, i);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(6, results.size());
+      assertEquals(2, results.get(0).getParameterObjects().size());
+      assertEquals(2, results.get(1).getParameterObjects().size());
+      assertEquals(2, results.get(2).getParameterObjects().size());
+      assertEquals(2, results.get(3).getParameterObjects().size());
+      assertEquals(1, results.get(4).getParameterObjects().size());
+      assertEquals(1, results.get(5).getParameterObjects().size());
+      assertEquals(5, mapper.countUsers());
+    }
+  }
+
+  @Test
+  void shouldExecutePendingBatchesWhenByteThresholdIsReached() {
+    sqlSessionFactory.getConfiguration().setBatchFlushBytes(1L);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUser(1, "User1", 1);
+      mapper.insertUser(2, "User2", 1);
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(2, results.size());
+      assertEquals(2, mapper.countUsers());
+    }
+  }
+
+  @Test
+  void shouldDiscardExecutedBatchesOnRollback() {
+    sqlSessionFactory.getConfiguration().setBatchFlushRows(2);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUser(1, "User1", 1);
+      mapper.insertUser(2, "User2", 1);
+      mapper.insertUser(3, "User3", 1);
+      sqlSession.rollback(true);
+      assertTrue(sqlSession.flushStatements().isEmpty());
+      assertEquals(0, mapper.countUsers());
+    }
+  }
+
+  @Test
+  void shouldExecuteBatchesOnParallelLanes() {
+    sqlSessionFactory.getConfiguration().setBatchFlushParallelism(2);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 1; i <= 3; i++) {
+        mapper.insertDept(i, "Dept" + i);
+        mapper.insertUser(i, "User" + i, i);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(2, results.size());
+      assertEquals(3, results.get(0).getUpdateCounts().length);
+      assertEquals(3, results.get(1).getUpdateCounts().length);
+      assertTrue(results.get(0).getElapsedNanos() > 0);
+      assertTrue(results.get(1).getElapsedNanos() > 0);
+      sqlSession.commit(true);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(3, mapper.countUsers());
+      assertEquals("Dept3", mapper.getDeptName(3));
+    }
+  }
+
+}
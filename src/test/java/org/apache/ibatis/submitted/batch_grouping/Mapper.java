@@ -0,0 +1,50 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_grouping;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+public interface Mapper {
+
+  @Insert("insert into depts (id, name) values (#{id}, #{name})")
+  @Options(parallelFlush = true, groupBySql = true)
+  void insertDept(@Param("id") int id, @Param("name") String name);
+
+  @Insert("insert into users (id, name, dept_id) values (#{id}, #{name}, #{deptId})")
+  @Options(parallelFlush = true, groupBySql = true)
+  void insertUser(@Param("id") int id, @Param("name") String name, @Param("deptId") int deptId);
+
+  @Insert("insert into users (id, name, dept_id) values (#{id}, #{name}, #{deptId})")
+  void insertUserInPlace(@Param("id") int id, @Param("name") String name, @Param("deptId") int deptId);
+
+  @Update("update depts set name = #{name} where id = #{id}")
+  void updateDept(@Param("id") int id, @Param("name") String name);
+
+  @Delete("delete from users where dept_id = #{deptId}")
+  void deleteUsers(int deptId);
+
+  @Select("select count(*) from users")
+  int countUsers();
+
+  @Select("select name from depts where id = #{id}")
+  String getDeptName(int id);
+
+}
@@ -0,0 +1,106 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.resultset.CompiledRowMapper;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CompiledRowMappersTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compiled_row_mappers/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compiled_row_mappers/CreateDB.sql");
+  }
+
+  @Test
+  void shouldMapAutoMappedColumns() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersAutoMapped();
+      assertEquals(2, users.size());
+      User user = users.get(0);
+      assertEquals(1, user.getId());
+      assertEquals("User1", user.getName());
+      assertEquals("one", user.getNickName());
+      assertEquals(Integer.valueOf(31), user.getAge());
+      assertEquals(100L, user.getScore());
+      User userWithNulls = users.get(1);
+      assertEquals(2, userWithNulls.getId());
+      assertNull(userWithNulls.getNickName());
+      assertNull(userWithNulls.getAge());
+      assertEquals(0L, userWithNulls.getScore());
+    }
+  }
+
+  @Test
+  void shouldMapResultMapColumns() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersWithResultMap();
+      assertEquals(2, users.size());
+      assertEquals(1, users.get(0).getId());
+      assertEquals("one", users.get(0).getName());
+      assertEquals("User1", users.get(0).getNickName());
+      assertEquals(Integer.valueOf(31), users.get(0).getAge());
+      assertNull(users.get(1).getName());
+    }
+  }
+
+  @Test
+  void shouldReuseRowMapperForSameColumns() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getUsersAutoMapped();
+      Map<String, CompiledRowMapper> rowMappers = sqlSessionFactory.getConfiguration().getCompiledRowMappers();
+      assertFalse(rowMappers.isEmpty());
+      String key = rowMappers.keySet().stream().filter(k -> k.contains("getUsersAutoMapped")).findFirst().get();
+      CompiledRowMapper rowMapper = rowMappers.get(key);
+      sqlSession.clearCache();
+      sqlSession.getMapper(Mapper.class).getUsersAutoMapped();
+      assertSame(rowMapper, rowMappers.get(key));
+    }
+  }
+
+  @Test
+  void shouldMapMapsAsUsual() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Map<String, Object>> users = sqlSession.getMapper(Mapper.class).getUsersAsMaps();
+      assertEquals(2, users.size());
+      assertEquals("User1", users.get(0).get("NAME"));
+      assertTrue(users.get(1).containsKey("ID"));
+    }
+  }
+
+}
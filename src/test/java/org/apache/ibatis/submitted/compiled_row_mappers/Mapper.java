@@ -0,0 +1,41 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mappers;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  @Select("select id, name, nick_name as nickName, age, score from users order by id")
+  List<User> getUsersAutoMapped();
+
+  @Results({
+      @Result(property = "id", column = "user_id", id = true),
+      @Result(property = "name", column = "nick_name"),
+      @Result(property = "nickName", column = "name")
+  })
+  @Select("select id as user_id, name, nick_name, age from users order by id")
+  List<User> getUsersWithResultMap();
+
+  @Select("select id, name from users order by id")
+  List<Map<String, Object>> getUsersAsMaps();
+
+}
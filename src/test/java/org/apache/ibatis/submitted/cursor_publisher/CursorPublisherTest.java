@@ -0,0 +1,174 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cursor_publisher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Flow;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CursorPublisherTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor_publisher/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cursor_publisher/CreateDB.sql");
+  }
+
+  @Test
+  void shouldEmitOnlyRequestedUsers() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      RecordingSubscriber<User> subscriber = new RecordingSubscriber<>();
+      mapper.getAllUsers().subscribe(subscriber);
+      assertTrue(subscriber.items.isEmpty());
+
+      subscriber.subscription.request(2);
+      assertEquals(2, subscriber.items.size());
+      assertEquals("User2", subscriber.items.get(1).getName());
+      assertFalse(subscriber.completed);
+
+      subscriber.subscription.request(10);
+      assertEquals(5, subscriber.items.size());
+      assertTrue(subscriber.completed);
+      assertNull(subscriber.error);
+    }
+  }
+
+  @Test
+  void shouldRequestMoreFromOnNext() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<String> names = new ArrayList<>();
+      boolean[] completed = { false };
+      sqlSession.<User>selectPublisher("org.apache.ibatis.submitted.cursor_publisher.Mapper.getAllUsers")
+          .subscribe(new Flow.Subscriber<User>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+              this.subscription = subscription;
+              subscription.request(1);
+            }
+
+            @Override
+            public void onNext(User item) {
+              names.add(item.getName());
+              subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+              throw new AssertionError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+              completed[0] = true;
+            }
+          });
+      assertEquals(5, names.size());
+      assertTrue(completed[0]);
+    }
+  }
+
+  @Test
+  void shouldStopOnCancel() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      RecordingSubscriber<User> subscriber = new RecordingSubscriber<>();
+      mapper.getAllUsers().subscribe(subscriber);
+      subscriber.subscription.request(1);
+      subscriber.subscription.cancel();
+      subscriber.subscription.request(1);
+      assertEquals(1, subscriber.items.size());
+      assertFalse(subscriber.completed);
+      assertNull(subscriber.error);
+    }
+  }
+
+  @Test
+  void shouldApplyRowBounds() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      RecordingSubscriber<User> subscriber = new RecordingSubscriber<>();
+      mapper.getUsers(new RowBounds(1, 2)).subscribe(subscriber);
+      subscriber.subscription.request(Long.MAX_VALUE);
+      assertEquals(2, subscriber.items.size());
+      assertEquals("User2", subscriber.items.get(0).getName());
+      assertTrue(subscriber.completed);
+    }
+  }
+
+  @Test
+  void shouldSignalErrors() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      RecordingSubscriber<User> subscriber = new RecordingSubscriber<>();
+      sqlSession.<User>selectPublisher("unknown").subscribe(subscriber);
+      subscriber.subscription.request(1);
+      assertTrue(subscriber.error instanceof PersistenceException);
+      assertTrue(subscriber.items.isEmpty());
+    }
+  }
+
+  private static class RecordingSubscriber<T> implements Flow.Subscriber<T> {
+    private final List<T> items = new ArrayList<>();
+    private Flow.Subscription subscription;
+    private Throwable error;
+    private boolean completed;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(T item) {
+      items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+}
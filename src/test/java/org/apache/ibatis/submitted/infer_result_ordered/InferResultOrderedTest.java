@@ -0,0 +1,95 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.infer_result_ordered;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class InferResultOrderedTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/infer_result_ordered/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/infer_result_ordered/CreateDB.sql");
+  }
+
+  @Test
+  void shouldPassCompleteParentsToResultHandler() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<String> handled = new ArrayList<>();
+      sqlSession.getMapper(Mapper.class).getBlogsSortedById(context -> {
+        // a parent is passed on only once all its rows have been read
+        Blog blog = context.getResultObject();
+        handled.add(blog.getTitle() + ":" + blog.getPosts().size());
+      });
+      assertEquals(3, handled.size());
+      assertEquals("Blog1:2", handled.get(0));
+      assertEquals("Blog2:1", handled.get(1));
+      assertEquals("Blog3:3", handled.get(2));
+    }
+  }
+
+  @Test
+  void shouldStreamParentsThroughCursor() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      try (Cursor<Blog> blogs = sqlSession.getMapper(Mapper.class).getBlogsSortedById()) {
+        Iterator<Blog> iterator = blogs.iterator();
+        Blog blog = iterator.next();
+        assertEquals(Integer.valueOf(1), blog.getId());
+        assertEquals(2, blog.getPosts().size());
+        assertEquals(0, blogs.getCurrentIndex());
+        blog = iterator.next();
+        assertEquals(Integer.valueOf(2), blog.getId());
+        assertEquals("Post21", blog.getPosts().get(0).getSubject());
+        blog = iterator.next();
+        assertEquals(Integer.valueOf(3), blog.getId());
+        assertEquals(3, blog.getPosts().size());
+        assertFalse(iterator.hasNext());
+      }
+    }
+  }
+
+  @Test
+  void shouldRejectResultHandlerWhenNotSortedById() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThrows(PersistenceException.class, () -> mapper.getBlogsUnsorted(context -> {
+      }));
+    }
+  }
+
+}
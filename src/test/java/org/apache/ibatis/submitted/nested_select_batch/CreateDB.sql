@@ -0,0 +1,42 @@
+--
+--    Copyright 2009-2020 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table post if exists;
+drop table blog if exists;
+
+create table blog (
+  id int,
+  title varchar(20)
+);
+
+create table post (
+  id int,
+  blog_id int,
+  subject varchar(20)
+);
+
+insert into blog (id, title) values(1, 'Blog1');
+insert into blog (id, title) values(2, 'Blog2');
+insert into blog (id, title) values(3, 'Blog3');
+insert into blog (id, title) values(4, 'Blog4');
+insert into blog (id, title) values(5, 'Blog5');
+
+insert into post (id, blog_id, subject) values(10, 1, 'Post10');
+insert into post (id, blog_id, subject) values(11, 1, 'Post11');
+insert into post (id, blog_id, subject) values(20, 2, 'Post20');
+insert into post (id, blog_id, subject) values(40, 4, 'Post40');
+insert into post (id, blog_id, subject) values(50, 5, 'Post50');
+insert into post (id, blog_id, subject) values(51, 5, 'Post51');
@@ -0,0 +1,179 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.nested_select_batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.Reader;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NestedSelectBatchTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+  private QueryCounter queryCounter;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/nested_select_batch/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    queryCounter = new QueryCounter();
+    sqlSessionFactory.getConfiguration().addInterceptor(queryCounter);
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/nested_select_batch/CreateDB.sql");
+  }
+
+  @Test
+  void shouldLoadNestedSelectsInBatches() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getBlogs();
+      assertBlogs(blogs);
+      // 1 for the blogs, then 3 batches of at most 2 blogs for each of the 2 nested selects
+      assertEquals(7, queryCounter.count);
+    }
+  }
+
+  @Test
+  void shouldLoadAllParentsInOneBatch() {
+    sqlSessionFactory.getConfiguration().setNestedSelectBatchSize(100);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getBlogs();
+      assertBlogs(blogs);
+      assertEquals(3, queryCounter.count);
+    }
+  }
+
+  @Test
+  void shouldLoadParentOfEarlierSelectAgain() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Blog blog = mapper.getBlog(1);
+      assertEquals(2, blog.getPosts().size());
+      assertEquals("Post10", blog.getFirstPost().getSubject());
+      assertBlogs(mapper.getBlogs());
+    }
+  }
+
+  @Test
+  void shouldLoadParentsOfEarlierLazySelectAgain() {
+    sqlSessionFactory.getConfiguration().setNestedSelectBatchSize(1);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertBlogs(mapper.getLazyBlogs());
+      assertBlogs(mapper.getBlogs());
+    }
+  }
+
+  @Test
+  void shouldLoadOneKeyAtATimeForCursor() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession();
+         Cursor<Blog> cursor = sqlSession.getMapper(Mapper.class).getBlogCursor()) {
+      List<Blog> blogs = new ArrayList<>();
+      cursor.forEach(blogs::add);
+      assertBlogs(blogs);
+      // the blogs are read by queryCursor, which is not counted
+      assertEquals(10, queryCounter.count);
+    }
+  }
+
+  @Test
+  void shouldLoadLazyPropertyOfSiblingsInBatches() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getLazyBlogs();
+      assertEquals(4, queryCounter.count);
+      blogs.get(0).getPosts();
+      assertEquals(5, queryCounter.count);
+      // loaded along with the first blog
+      blogs.get(1).getPosts();
+      assertEquals(5, queryCounter.count);
+      assertBlogs(blogs);
+      assertEquals(7, queryCounter.count);
+    }
+  }
+
+  @Test
+  void shouldLoadLazyPropertyOfAllSiblingsAtOnce() {
+    sqlSessionFactory.getConfiguration().setNestedSelectBatchSize(100);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getLazyBlogs();
+      assertEquals(2, queryCounter.count);
+      assertBlogs(blogs);
+      assertEquals(3, queryCounter.count);
+    }
+  }
+
+  @Test
+  void shouldKeepPropertySetBeforeLoading() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getLazyBlogs();
+      blogs.get(1).setPosts(new ArrayList<>());
+      blogs.get(0).getPosts();
+      assertEquals(0, blogs.get(1).getPosts().size());
+    }
+  }
+
+  private void assertBlogs(List<Blog> blogs) {
+    assertEquals(5, blogs.size());
+    assertEquals(2, blogs.get(0).getPosts().size());
+    assertEquals("Post10", blogs.get(0).getPosts().get(0).getSubject());
+    assertEquals("Post11", blogs.get(0).getPosts().get(1).getSubject());
+    assertEquals("Post10", blogs.get(0).getFirstPost().getSubject());
+    assertEquals("Post20", blogs.get(1).getFirstPost().getSubject());
+    assertEquals(0, blogs.get(2).getPosts().size());
+    assertNull(blogs.get(2).getFirstPost());
+    assertEquals("Post40", blogs.get(3).getPosts().get(0).getSubject());
+    assertEquals(2, blogs.get(4).getPosts().size());
+    assertEquals("Post50", blogs.get(4).getFirstPost().getSubject());
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "query", args = { Statement.class, ResultHandler.class }))
+  public static class QueryCounter implements Interceptor {
+
+    private int count;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      count++;
+      return invocation.proceed();
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+      // nothing to set
+    }
+  }
+
+}